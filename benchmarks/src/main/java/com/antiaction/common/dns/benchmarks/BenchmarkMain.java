@@ -0,0 +1,59 @@
+/*
+ * Benchmark launcher, runs the JMH benchmarks with the gc profiler.
+ * Copyright (C) 2026  Nicholas Clarke
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+
+/*
+ * History:
+ *
+ * 16-Oct-2026 : First implementation.
+ *
+ */
+
+package com.antiaction.common.dns.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Benchmark launcher, runs the JMH benchmarks with the gc profiler.
+ * Accepts the usual JMH command line options, the gc profiler is always added
+ * so the allocation per operation is reported as <CODE>gc.alloc.rate.norm</CODE>.
+ *
+ * @version 2.00
+ * @author Nicholas Clarke <nclarke@diku.dk>
+ */
+public class BenchmarkMain {
+
+	/**
+	 * Run the benchmarks.
+	 * @param args JMH command line options.
+	 * @throws Exception if the options are invalid or a benchmark fails.
+	 */
+	public static void main(String[] args) throws Exception {
+		Options options = new OptionsBuilder()
+			.parent(new CommandLineOptions(args))
+			.addProfiler(GCProfiler.class)
+			.build();
+		new Runner(options).run();
+	}
+
+}
@@ -0,0 +1,312 @@
+/*
+ * Representative DNS messages used by the benchmarks.
+ * Copyright (C) 2026  Nicholas Clarke
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+
+/*
+ * History:
+ *
+ * 16-Oct-2026 : First implementation.
+ *
+ */
+
+package com.antiaction.common.dns.benchmarks;
+
+import java.nio.ByteBuffer;
+
+import com.antiaction.common.dns.DNSClass;
+import com.antiaction.common.dns.DNSException;
+import com.antiaction.common.dns.DNSHeader;
+import com.antiaction.common.dns.DNSMessage;
+import com.antiaction.common.dns.DNSNameException;
+import com.antiaction.common.dns.DNSQuestion;
+import com.antiaction.common.dns.DNSRecord;
+import com.antiaction.common.dns.DNSRecordHeader;
+import com.antiaction.common.dns.DNSType;
+import com.antiaction.common.dns.record.DNSRDataA;
+import com.antiaction.common.dns.record.DNSRDataCName;
+import com.antiaction.common.dns.record.DNSRDataException;
+import com.antiaction.common.dns.record.DNSRDataInterface;
+import com.antiaction.common.dns.record.DNSRDataMX;
+import com.antiaction.common.dns.record.DNSRDataNS;
+import com.antiaction.common.dns.record.DNSRDataSOA;
+import com.antiaction.common.dns.record.DNSRDataTXT;
+
+/**
+ * Representative DNS messages used by the benchmarks.
+ * <UL>
+ * <LI><CODE>small_a</CODE>: recursive response with a single A answer.
+ * <LI><CODE>referral</CODE>: large response with MX answers, a full NS referral and glue addresses.
+ * <LI><CODE>txt_heavy</CODE>: response with SPF, DKIM and verification style TXT records.
+ * <LI><CODE>axfr_100</CODE>: zone transfer chunk of 100 mixed records sharing the zone suffix.
+ * </UL>
+ *
+ * @version 2.00
+ * @author Nicholas Clarke <nclarke@diku.dk>
+ */
+public class BenchmarkMessages {
+
+	/** Names of the available message shapes. */
+	public static final String[] SHAPES = {"small_a", "referral", "txt_heavy", "axfr_100"};
+
+	/** Largest encoded message. */
+	public static final int MAX_SIZE = 65535;
+
+	/**
+	 * Prevent instantiation.
+	 */
+	private BenchmarkMessages() {
+	}
+
+	/**
+	 * Build a message of the given shape.
+	 * @param shape message shape name.
+	 * @return message object.
+	 * @throws DNSRDataException if the record data is invalid.
+	 * @throws IllegalArgumentException if the shape is unknown.
+	 */
+	public static DNSMessage build(String shape) throws DNSRDataException {
+		if ( "small_a".equals(shape) ) {
+			return smallA();
+		}
+		else if ( "referral".equals(shape) ) {
+			return referral();
+		}
+		else if ( "txt_heavy".equals(shape) ) {
+			return txtHeavy();
+		}
+		else if ( "axfr_100".equals(shape) ) {
+			return axfr(100);
+		}
+		throw new IllegalArgumentException("Unknown message shape: " + shape);
+	}
+
+	/**
+	 * Build a message of the given shape and encode it.
+	 * @param shape message shape name.
+	 * @return encoded message.
+	 * @throws DNSException if the message could not be encoded.
+	 * @throws DNSNameException if a domain name is invalid.
+	 * @throws DNSRDataException if the record data is invalid.
+	 */
+	public static byte[] encode(String shape) throws DNSException, DNSNameException, DNSRDataException {
+		ByteBuffer dst = ByteBuffer.allocate(MAX_SIZE);
+		byte[] pDat;
+		int pLen;
+		pLen = build(shape).assemblePacket(dst);
+		pDat = new byte[pLen];
+		dst.flip();
+		dst.get(pDat);
+		return pDat;
+	}
+
+	/**
+	 * Response with a single A answer.
+	 * @return message object.
+	 * @throws DNSRDataException if the record data is invalid.
+	 */
+	protected static DNSMessage smallA() throws DNSRDataException {
+		DNSMessage msg = response(0x1234, "www.example.com.", DNSType.A);
+		msg.addAnswer(record("www.example.com.", DNSType.A, 300, a("93.184.216.34")));
+		return msg;
+	}
+
+	/**
+	 * Response with MX answers, a referral to 13 name servers and their glue addresses.
+	 * @return message object.
+	 * @throws DNSRDataException if the record data is invalid.
+	 */
+	protected static DNSMessage referral() throws DNSRDataException {
+		DNSMessage msg = response(0x2345, "example.com.", DNSType.MX);
+		DNSRDataMX mx;
+		DNSRDataNS ns;
+		String server;
+		for(int i=0; i<5; i++) {
+			mx = new DNSRDataMX();
+			mx.setPrefs(10 * (i + 1));
+			mx.setExchange("mx" + i + ".mail.example.com.");
+			msg.addAnswer(record("example.com.", DNSType.MX, 3600, mx));
+		}
+		for(int i=0; i<13; i++) {
+			server = (char)('a' + i) + ".gtld-servers.net.";
+			ns = new DNSRDataNS();
+			ns.setNameServer(server);
+			msg.addAuthority(record("com.", DNSType.NS, 172800, ns));
+			msg.addAdditional(record(server, DNSType.A, 172800, a("192." + (i + 5) + ".6.30")));
+		}
+		return msg;
+	}
+
+	/**
+	 * Response with SPF, DKIM and verification style TXT records.
+	 * @return message object.
+	 * @throws DNSRDataException if the record data is invalid.
+	 */
+	protected static DNSMessage txtHeavy() throws DNSRDataException {
+		DNSMessage msg = response(0x3456, "example.com.", DNSType.TXT);
+		DNSRDataTXT txt;
+		txt = new DNSRDataTXT();
+		txt.addSegment(ascii("v=spf1 ip4:192.0.2.0/24 ip4:198.51.100.0/24 include:_spf.example.net include:_spf.example.org ~all"));
+		msg.addAnswer(record("example.com.", DNSType.TXT, 3600, txt));
+		txt = new DNSRDataTXT();
+		txt.addSegment(ascii("v=DKIM1; k=rsa; p=" + filler(216)));
+		txt.addSegment(ascii(filler(176)));
+		msg.addAnswer(record("example.com.", DNSType.TXT, 3600, txt));
+		for(int i=0; i<8; i++) {
+			txt = new DNSRDataTXT();
+			txt.addSegment(ascii("site-verification=" + filler(43 + i)));
+			msg.addAnswer(record("example.com.", DNSType.TXT, 3600, txt));
+		}
+		return msg;
+	}
+
+	/**
+	 * Zone transfer chunk of mixed records, all below the same zone.
+	 * @param count number of records.
+	 * @return message object.
+	 * @throws DNSRDataException if the record data is invalid.
+	 */
+	protected static DNSMessage axfr(int count) throws DNSRDataException {
+		DNSMessage msg = response(0x4567, "example.com.", 252);
+		DNSRDataSOA soa;
+		DNSRDataNS ns;
+		DNSRDataMX mx;
+		DNSRDataCName cname;
+		DNSRDataTXT txt;
+		String name;
+		soa = new DNSRDataSOA();
+		soa.setMName("ns1.example.com.");
+		soa.setRName("hostmaster.example.com.");
+		soa.setSerial(2026101601);
+		soa.setRefresh(7200);
+		soa.setRetry(3600);
+		soa.setExpire(1209600);
+		soa.setMinimum(300);
+		msg.addAnswer(record("example.com.", DNSType.SOA, 3600, soa));
+		for(int i=1; i<count; i++) {
+			name = "host" + i + ".example.com.";
+			switch ( i % 5 ) {
+			case 0:
+				ns = new DNSRDataNS();
+				ns.setNameServer("ns" + (i % 3 + 1) + ".example.com.");
+				msg.addAnswer(record("zone" + i + ".example.com.", DNSType.NS, 3600, ns));
+				break;
+			case 1:
+				mx = new DNSRDataMX();
+				mx.setPrefs(10);
+				mx.setExchange("mail.example.com.");
+				msg.addAnswer(record(name, DNSType.MX, 3600, mx));
+				break;
+			case 2:
+				cname = new DNSRDataCName();
+				cname.setCName("host" + (i - 1) + ".example.com.");
+				msg.addAnswer(record("alias" + i + ".example.com.", DNSType.CNAME, 3600, cname));
+				break;
+			case 3:
+				txt = new DNSRDataTXT();
+				txt.addSegment(ascii("record " + i));
+				msg.addAnswer(record(name, DNSType.TXT, 3600, txt));
+				break;
+			default:
+				msg.addAnswer(record(name, DNSType.A, 3600, a("10.0." + (i / 256) + "." + (i % 256))));
+				break;
+			}
+		}
+		return msg;
+	}
+
+	/**
+	 * Response message with a header and a single question.
+	 * @param id message id.
+	 * @param qname question name.
+	 * @param qtype question type.
+	 * @return message object.
+	 */
+	protected static DNSMessage response(int id, String qname, int qtype) {
+		DNSMessage msg = new DNSMessage();
+		DNSHeader header = new DNSHeader();
+		DNSQuestion question = new DNSQuestion();
+		header.setID(id);
+		header.setQueryResponse(DNSHeader.Response);
+		header.setRecursionDesired(true);
+		header.setRecursionAvailable(true);
+		msg.setHeader(header);
+		question.setQName(qname);
+		question.setQType(qtype);
+		question.setQClass(DNSClass.IN);
+		msg.addQuestion(question);
+		return msg;
+	}
+
+	/**
+	 * Build a record of class IN.
+	 * @param name owner name.
+	 * @param rtype record type.
+	 * @param ttl time to live.
+	 * @param rdata record data.
+	 * @return record object.
+	 */
+	protected static DNSRecord record(String name, int rtype, int ttl, DNSRDataInterface rdata) {
+		DNSRecordHeader header = new DNSRecordHeader();
+		header.setRName(name);
+		header.setRType(rtype);
+		header.setRClass(DNSClass.IN);
+		header.setRTTL(ttl);
+		return new DNSRecord(header, rdata);
+	}
+
+	/**
+	 * Build A record data.
+	 * @param ip dotted quad address.
+	 * @return record data object.
+	 * @throws DNSRDataException if the address is invalid.
+	 */
+	protected static DNSRDataA a(String ip) throws DNSRDataException {
+		DNSRDataA rdata = new DNSRDataA();
+		rdata.setIPAddr(ip);
+		return rdata;
+	}
+
+	/**
+	 * Returns a string of base64 like characters.
+	 * @param len string length.
+	 * @return string.
+	 */
+	protected static String filler(int len) {
+		String chars = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/";
+		StringBuilder sb = new StringBuilder(len);
+		for(int i=0; i<len; i++) {
+			sb.append(chars.charAt((i * 7 + len) & 63));
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Returns the ASCII bytes of a string.
+	 * @param s string.
+	 * @return byte array.
+	 */
+	protected static byte[] ascii(String s) {
+		byte[] arr = new byte[s.length()];
+		for(int i=0; i<arr.length; i++) {
+			arr[i] = (byte)s.charAt(i);
+		}
+		return arr;
+	}
+
+}
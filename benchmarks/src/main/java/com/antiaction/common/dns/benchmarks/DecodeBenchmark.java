@@ -0,0 +1,161 @@
+/*
+ * Decode benchmarks, header-only, cursor and full decoding.
+ * Copyright (C) 2026  Nicholas Clarke
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+
+/*
+ * History:
+ *
+ * 16-Oct-2026 : First implementation.
+ *
+ */
+
+package com.antiaction.common.dns.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.antiaction.common.dns.DNSException;
+import com.antiaction.common.dns.DNSHeader;
+import com.antiaction.common.dns.DNSMessage;
+import com.antiaction.common.dns.DNSMessageView;
+import com.antiaction.common.dns.DNSNameException;
+import com.antiaction.common.dns.record.DNSRDataException;
+
+/**
+ * Decode benchmarks, header-only, cursor and full decoding.
+ * Each message shape is encoded once during setup and decoded over and over.
+ *
+ * @version 2.00
+ * @author Nicholas Clarke <nclarke@diku.dk>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DecodeBenchmark {
+
+	/** Message shape. */
+	@Param({"small_a", "referral", "txt_heavy", "axfr_100"})
+	public String shape;
+
+	/** Encoded message. */
+	protected byte[] pDat;
+
+	/** Header object reused by the header-only benchmark. */
+	protected DNSHeader header;
+
+	/** Cursor reused by the view benchmarks. */
+	protected DNSMessageView view;
+
+	/** Message reused by the recycling benchmark. */
+	protected DNSMessage recycled;
+
+	/**
+	 * Encode the message and prepare the reusable decoders.
+	 * @throws Exception if the message could not be built.
+	 */
+	@Setup
+	public void setup() throws Exception {
+		pDat = BenchmarkMessages.encode(shape);
+		header = new DNSHeader();
+		view = new DNSMessageView();
+		recycled = new DNSMessage();
+		recycled.setRecycle(true);
+	}
+
+	/**
+	 * Decode the fixed size header only.
+	 * @return message id.
+	 * @throws DNSException if the message is corrupted.
+	 */
+	@Benchmark
+	public int headerOnly() throws DNSException {
+		header.disassemblePacket(pDat, 0, pDat.length);
+		return header.getID();
+	}
+
+	/**
+	 * Wrap the message in a cursor and read the header fields.
+	 * @return message id and answer count.
+	 * @throws DNSException if the message is corrupted.
+	 */
+	@Benchmark
+	public int headerView() throws DNSException {
+		view.wrap(pDat);
+		return view.getID() + view.getAnswerCount();
+	}
+
+	/**
+	 * Walk all records with the cursor without decoding them into objects.
+	 * @return sum of record types and rdata lengths.
+	 * @throws DNSException if the message is corrupted.
+	 * @throws DNSNameException if a name is invalid.
+	 */
+	@Benchmark
+	public int viewWalk() throws DNSException, DNSNameException {
+		int sum = 0;
+		view.wrap(pDat);
+		while ( view.nextRecord() ) {
+			sum += view.getType() + view.getRDataLength();
+		}
+		return sum;
+	}
+
+	/**
+	 * Decode the complete message into a new message object.
+	 * @param bh blackhole consuming the result.
+	 * @throws DNSException if the message is corrupted.
+	 * @throws DNSNameException if a name is invalid.
+	 * @throws DNSRDataException if record data is invalid.
+	 */
+	@Benchmark
+	public void full(Blackhole bh) throws DNSException, DNSNameException, DNSRDataException {
+		DNSMessage msg = new DNSMessage();
+		msg.disassemblePacket(pDat);
+		bh.consume(msg);
+	}
+
+	/**
+	 * Decode the complete message into a recycling message object.
+	 * @param bh blackhole consuming the result.
+	 * @throws DNSException if the message is corrupted.
+	 * @throws DNSNameException if a name is invalid.
+	 * @throws DNSRDataException if record data is invalid.
+	 */
+	@Benchmark
+	public void fullRecycled(Blackhole bh) throws DNSException, DNSNameException, DNSRDataException {
+		recycled.disassemblePacket(pDat);
+		bh.consume(recycled.getAnswerView());
+	}
+
+}
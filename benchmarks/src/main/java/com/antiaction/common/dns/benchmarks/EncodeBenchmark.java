@@ -0,0 +1,113 @@
+/*
+ * Encode benchmarks, with and without name compression.
+ * Copyright (C) 2026  Nicholas Clarke
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+
+/*
+ * History:
+ *
+ * 16-Oct-2026 : First implementation.
+ *
+ */
+
+package com.antiaction.common.dns.benchmarks;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.antiaction.common.dns.DNSException;
+import com.antiaction.common.dns.DNSMessage;
+import com.antiaction.common.dns.DNSNameException;
+
+/**
+ * Encode benchmarks, with and without name compression.
+ * Each message shape is built once during setup and encoded over and over.
+ *
+ * @version 2.00
+ * @author Nicholas Clarke <nclarke@diku.dk>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EncodeBenchmark {
+
+	/** Message shape. */
+	@Param({"small_a", "referral", "txt_heavy", "axfr_100"})
+	public String shape;
+
+	/** Name compression on/off. */
+	@Param({"true", "false"})
+	public boolean compression;
+
+	/** Message being encoded. */
+	protected DNSMessage msg;
+
+	/** Buffer reused by the single pass encoder. */
+	protected ByteBuffer dst;
+
+	/**
+	 * Build the message and allocate the output buffer.
+	 * @throws Exception if the message could not be built.
+	 */
+	@Setup
+	public void setup() throws Exception {
+		msg = BenchmarkMessages.build(shape);
+		msg.setCompression(compression);
+		dst = ByteBuffer.allocate(BenchmarkMessages.MAX_SIZE);
+	}
+
+	/**
+	 * Encode directly into a reused buffer.
+	 * @return encoded length.
+	 * @throws DNSException if the buffer is too small.
+	 * @throws DNSNameException if a name is invalid.
+	 */
+	@Benchmark
+	public int buffer() throws DNSException, DNSNameException {
+		dst.clear();
+		return msg.assemblePacket(dst);
+	}
+
+	/**
+	 * Encode with the legacy build and assemble passes into a new array.
+	 * @return encoded message.
+	 * @throws DNSException if the message could not be assembled.
+	 * @throws DNSNameException if a name is invalid.
+	 */
+	@Benchmark
+	public byte[] array() throws DNSException, DNSNameException {
+		msg.buildPacket();
+		return msg.assemblePacket();
+	}
+
+}
@@ -0,0 +1,141 @@
+/*
+ * Resolver benchmark, many concurrent blocking lookups on a thread per query.
+ * Copyright (C) 2026  Nicholas Clarke
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+
+/*
+ * History:
+ *
+ * 16-Oct-2026 : First implementation.
+ *
+ */
+
+package com.antiaction.common.dns.benchmarks;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.antiaction.common.dns.DNSClass;
+import com.antiaction.common.dns.DNSHeader;
+import com.antiaction.common.dns.DNSMessage;
+import com.antiaction.common.dns.DNSQuestion;
+import com.antiaction.common.dns.DNSType;
+import com.antiaction.common.dns.transport.DNSResolver;
+import com.antiaction.common.dns.transport.DNSUDPTransport;
+
+/**
+ * Resolver benchmark, many concurrent blocking lookups on a thread per query.
+ * Each operation submits <CODE>lookups</CODE> queries at once to a <CODE>DNSResolver</CODE>
+ * over the blocking UDP transport and waits for all of them, answered by a local stand-in server.
+ * Run on Java 21 or later to measure virtual threads, older versions fall back to a fixed thread pool.
+ *
+ * @version 2.00
+ * @author Nicholas Clarke <nclarke@diku.dk>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = {"-Xmx2g"})
+public class ResolverBenchmark {
+
+	/** Number of concurrent lookups per operation. */
+	@Param({"1000", "10000", "100000"})
+	public int lookups;
+
+	/** Maximum number of exchanges using the network at the same time. */
+	@Param({"1024"})
+	public int maxConcurrent;
+
+	/** Stand-in server. */
+	protected StandInServer server;
+
+	/** Resolver. */
+	protected DNSResolver resolver;
+
+	/** Queries, one per lookup. */
+	protected DNSMessage[] queries;
+
+	/**
+	 * Start the stand-in server and the resolver and build the queries.
+	 * @throws Exception if the server could not be started.
+	 */
+	@Setup
+	public void setup() throws Exception {
+		DNSUDPTransport transport;
+		DNSHeader header;
+		DNSQuestion question;
+		server = new StandInServer();
+		transport = new DNSUDPTransport();
+		transport.addHost("127.0.0.1", server.getPort());
+		transport.setTimeout(1000);
+		resolver = new DNSResolver(transport, maxConcurrent);
+		queries = new DNSMessage[lookups];
+		for(int i=0; i<lookups; i++) {
+			header = new DNSHeader();
+			header.setID(i & 0xFFFF);
+			header.setRecursionDesired(true);
+			question = new DNSQuestion();
+			question.setQName("host" + i + ".example.com.");
+			question.setQType(DNSType.A);
+			question.setQClass(DNSClass.IN);
+			queries[i] = new DNSMessage();
+			queries[i].setHeader(header);
+			queries[i].addQuestion(question);
+		}
+	}
+
+	/**
+	 * Stop the resolver and the stand-in server.
+	 */
+	@TearDown
+	public void tearDown() {
+		resolver.close();
+		server.close();
+	}
+
+	/**
+	 * Submit all lookups at once and wait for them to complete.
+	 * @return number of lookups answered.
+	 * @throws Exception if a lookup fails.
+	 */
+	@Benchmark
+	public int concurrentLookups() throws Exception {
+		CompletableFuture[] futures = new CompletableFuture[lookups];
+		for(int i=0; i<lookups; i++) {
+			futures[i] = resolver.submit(queries[i]);
+		}
+		CompletableFuture.allOf(futures).join();
+		return lookups;
+	}
+
+}
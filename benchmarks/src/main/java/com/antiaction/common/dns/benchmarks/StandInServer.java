@@ -0,0 +1,109 @@
+/*
+ * Stand-in DNS server answering every query on the loopback interface.
+ * Copyright (C) 2026  Nicholas Clarke
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+
+/*
+ * History:
+ *
+ * 16-Oct-2026 : First implementation.
+ *
+ */
+
+package com.antiaction.common.dns.benchmarks;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+
+/**
+ * Stand-in DNS server answering every query on the loopback interface.
+ * Each query is returned as its own response with the response flag and an empty
+ * answer section, which is enough for a client to match and decode it.
+ *
+ * @version 2.00
+ * @author Nicholas Clarke <nclarke@diku.dk>
+ */
+public class StandInServer implements Runnable {
+
+	/** Server socket. */
+	protected DatagramSocket socket;
+	/** Server thread. */
+	protected Thread thread;
+	/** Number of queries answered. */
+	protected volatile long answered = 0;
+
+	/**
+	 * Bind to an ephemeral loopback port and start answering.
+	 * @throws IOException if the socket could not be bound.
+	 */
+	public StandInServer() throws IOException {
+		socket = new DatagramSocket(0, InetAddress.getLoopbackAddress());
+		socket.setReceiveBufferSize(1 << 22);
+		socket.setSendBufferSize(1 << 22);
+		thread = new Thread(this, "StandInServer");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Get the port the server listens on.
+	 * @return port.
+	 */
+	public int getPort() {
+		return socket.getLocalPort();
+	}
+
+	/**
+	 * Get the number of queries answered.
+	 * @return number of queries answered.
+	 */
+	public long getAnswered() {
+		return answered;
+	}
+
+	/**
+	 * Answer queries until the socket is closed.
+	 */
+	public void run() {
+		byte[] pDat = new byte[512];
+		DatagramPacket packet = new DatagramPacket(pDat, pDat.length);
+		try {
+			while ( true ) {
+				packet.setLength(pDat.length);
+				socket.receive(packet);
+				if ( packet.getLength() >= 12 ) {
+					pDat[2] |= (byte)0x80;
+					socket.send(packet);
+					++answered;
+				}
+			}
+		}
+		catch (IOException e) {					// Socket closed.
+		}
+	}
+
+	/**
+	 * Stop answering and close the socket.
+	 */
+	public void close() {
+		socket.close();
+	}
+
+}
@@ -0,0 +1,67 @@
+/*
+ * DNS Codec adapter, empty DNSCodecListener implementation.
+ * Copyright (C) 2026  Nicholas Clarke
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+
+/*
+ * History:
+ *
+ * 16-Oct-2026 : First implementation.
+ *
+ */
+
+package com.antiaction.common.dns;
+
+/**
+ * DNS Codec adapter, empty <CODE>DNSCodecListener</CODE> implementation.
+ * Extend and override the events of interest.
+ *
+ * @version 2.00
+ * @author Nicholas Clarke <nclarke@diku.dk>
+ */
+public abstract class DNSCodecAdapter implements DNSCodecListener {
+
+	// Javadoc inherited from interface.
+	public void messageStart(int op) {
+	}
+
+	// Javadoc inherited from interface.
+	public void messageEnd(int op, int length) {
+	}
+
+	// Javadoc inherited from interface.
+	public void sectionStart(int op, int section, int count, int offset) {
+	}
+
+	// Javadoc inherited from interface.
+	public void nameDecoded(int offset, String name) {
+	}
+
+	// Javadoc inherited from interface.
+	public void compressionHit(int offset, String name, int target) {
+	}
+
+	// Javadoc inherited from interface.
+	public void compressionMiss(int offset, String name) {
+	}
+
+	// Javadoc inherited from interface.
+	public void error(int op, Exception e) {
+	}
+
+}
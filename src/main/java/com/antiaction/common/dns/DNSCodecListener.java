@@ -0,0 +1,103 @@
+/*
+ * DNS Codec listener, receives events while messages are encoded and decoded.
+ * Copyright (C) 2026  Nicholas Clarke
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+
+/*
+ * History:
+ *
+ * 16-Oct-2026 : First implementation.
+ *
+ */
+
+package com.antiaction.common.dns;
+
+/**
+ * DNS Codec listener, receives events while messages are encoded and decoded.
+ * A listener is installed on a <CODE>DNSMessage</CODE> with <CODE>setCodecListener</CODE>.
+ * Without a listener each event costs a single null check, so tracing can be left
+ * compiled in and switched on for production traffic when needed.
+ * Events are delivered synchronously on the thread using the message, listeners should
+ * be quick and must not modify the message.
+ * Extend <CODE>DNSCodecAdapter</CODE> to only handle some of the events.
+ *
+ * @version 2.00
+ * @author Nicholas Clarke <nclarke@diku.dk>
+ */
+public interface DNSCodecListener {
+
+	/** A message is being encoded. */
+	public static final int ENCODE = 0;
+	/** A message is being decoded. */
+	public static final int DECODE = 1;
+
+	/** Question section, the record sections use the <CODE>DNSSectionType</CODE> constants. */
+	public static final int QUESTION = -1;
+
+	/**
+	 * Called before a message is encoded or decoded.
+	 * @param op <CODE>ENCODE</CODE> or <CODE>DECODE</CODE>.
+	 */
+	public void messageStart(int op);
+
+	/**
+	 * Called after a message has been encoded or decoded.
+	 * @param op <CODE>ENCODE</CODE> or <CODE>DECODE</CODE>.
+	 * @param length length of the message.
+	 */
+	public void messageEnd(int op, int length);
+
+	/**
+	 * Called when a section is about to be encoded or decoded.
+	 * @param op <CODE>ENCODE</CODE> or <CODE>DECODE</CODE>.
+	 * @param section <CODE>QUESTION</CODE> or one of the <CODE>DNSSectionType</CODE> record sections.
+	 * @param count number of entries in the section.
+	 * @param offset message offset of the first entry, -1 if not known.
+	 */
+	public void sectionStart(int op, int section, int count, int offset);
+
+	/**
+	 * Called when a domain name has been decoded.
+	 * @param offset message offset of the name.
+	 * @param name decoded name.
+	 */
+	public void nameDecoded(int offset, String name);
+
+	/**
+	 * Called when a domain name is encoded with a compression pointer to a known suffix.
+	 * @param offset message offset of the name.
+	 * @param name domain name.
+	 * @param target message offset the compression pointer refers to.
+	 */
+	public void compressionHit(int offset, String name, int target);
+
+	/**
+	 * Called when a domain name is encoded without a compression pointer.
+	 * @param offset message offset of the name.
+	 * @param name domain name.
+	 */
+	public void compressionMiss(int offset, String name);
+
+	/**
+	 * Called when encoding or decoding a message fails, before the exception is thrown to the caller.
+	 * @param op <CODE>ENCODE</CODE> or <CODE>DECODE</CODE>.
+	 * @param e exception thrown.
+	 */
+	public void error(int op, Exception e);
+
+}
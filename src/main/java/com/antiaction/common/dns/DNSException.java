@@ -22,6 +22,7 @@
  * History:
  *
  * 22-Jul-2001 : First implemenation, Javadoc.
+ * 16-Oct-2026 : Added constructor with cause.
  *
  */
 
@@ -48,4 +49,13 @@ public class DNSException extends java.lang.Exception {
 		super(text);
 	}
 
+	/**
+	 * Overriding constructor.
+	 * @param text error message.
+	 * @param cause underlying exception.
+	 */
+	public DNSException(String text, Throwable cause){
+		super(text, cause);
+	}
+
 }
@@ -34,11 +34,13 @@
  * 09-Oct-2001 : Cloneable.
  * 18-Nov-2001 : Javadoc fix.
  * 04-Mar-2005 : Fixed javadoc.
+ * 16-Oct-2026 : Added ByteBuffer buildPacket method.
  *
  */
 
 package com.antiaction.common.dns;
 
+import java.nio.ByteBuffer;
 
 /**
  * DNS header container, contains the header portion of a DNS message.
@@ -208,6 +210,46 @@ public class DNSHeader implements Cloneable {
 		return packetData;
 	}
 
+	/**
+	 * Build the header based on the internal state directly into a buffer.
+	 * @param dst buffer the header is written into, starting at its current position.
+	 * @return number of bytes written.
+	 * @throws java.nio.BufferOverflowException if the buffer is too small.
+	 */
+	public int buildPacket(ByteBuffer dst) {
+		int field;
+
+		if ( debug ) {
+			System.out.println("-> DNSHeader.buildPacket(ByteBuffer)");
+		}
+
+		// Fields
+
+		field = 0;
+		field = field | ((queryResponse & 1) << 15);
+		field = field | (opcode << 11);
+		field = field | (b2i(authoritativeAnswer) << 10);
+		field = field | (b2i(trunCation) << 9);
+		field = field | (b2i(recursionDesired) << 8);
+		field = field | (b2i(recursionAvailable) << 7);
+		field = field | (responseCode << 0);
+
+		// Id / Fields / QDCount / ANCount / NSCount / ARCount
+
+		dst.putShort((short)identifier);
+		dst.putShort((short)field);
+		dst.putShort((short)questionCount);
+		dst.putShort((short)answerCount);
+		dst.putShort((short)authorityCount);
+		dst.putShort((short)additionalCount);
+
+		if ( debug ) {
+			System.out.println("<- DNSHeader.buildPacket(ByteBuffer)");
+		}
+
+		return HEADER_SIZE;
+	}
+
 	/**
 	 * Returns the length of the previously disassembled header.
 	 * @return length of previously disassembled header.
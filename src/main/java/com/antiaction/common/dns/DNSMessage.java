@@ -43,17 +43,38 @@
  * 10-Oct-2001 : Recoded getRecords, merged the two versions into one, and it now clones the objects.
  * 18-Nov-2001 : Javadoc fix.
  * 04-Mar-2005 : Fixed javadoc.
+ * 16-Oct-2026 : Added single pass assemblePacket(ByteBuffer).
+ *             : Added lazy per-section record decoding.
+ *             : Unmodifiable section views, encoders and lookups no longer clone records.
+ *             : Recycling mode, decoded objects are reused for the next packet.
+ *             : Added encodedLength measuring pass.
+ *             : Added size limited assemblePacket with truncation.
+ *             : EDNS(0) UDP payload size negotiation, OPT record is kept when truncating.
+ *             : Codec listener events, debug flag is no longer pushed to every object.
+ *             : Lazily built per section RRset index used by record lookups.
+ *             : Added name compression toggle.
+ *             : buildPacket resets the compression table, repeated builds no longer point into stale offsets.
+ *             : A section which failed lazy decoding stays failed and keeps no partial records.
+ *             : Changing the UDP payload size invalidates the additional section RRset index.
+ *             : disassembleSections fails a broken section the same way as lazy access, without partial records.
+ *             : Debug flag is set on the name and rdata builder objects once, in setDebug.
  *
  */
 
 package com.antiaction.common.dns;
 
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 
 import com.antiaction.common.dns.record.DNSRData;
 import com.antiaction.common.dns.record.DNSRDataException;
 import com.antiaction.common.dns.record.DNSRDataInterface;
+import com.antiaction.common.dns.record.DNSRDataOPT;
 
 /**
  * DNS Message, main entry point for dis/assembling DNS packets.
@@ -64,12 +85,18 @@ import com.antiaction.common.dns.record.DNSRDataInterface;
  */
 public class DNSMessage {
 
+	/** Maximum size of a UDP message without EDNS, as defined in rfc1035. */
+	public static final int UDP_PAYLOAD_SIZE = 512;
+
 	/** Return packet length. */
 	private int disLen = 0;
 
 	/** Debug on/off. */
 	private boolean debug = false;
 
+	/** Codec listener, null if none. */
+	protected DNSCodecListener listener = null;
+
 	/** DNS Header object. */
 	protected DNSHeader dnsheader;
 
@@ -91,6 +118,35 @@ public class DNSMessage {
 	/** Array of partial packet byte arrays. */
 	protected ArrayList arrPackets;
 
+	/** Lazy record section decoding on/off. */
+	protected boolean lazy = false;
+	/** Packet the pending record sections are decoded from. */
+	protected byte[] lazyDat;
+	/** Length of the packet the pending record sections are decoded from. */
+	protected int lazyLen;
+	/** Record offsets per section, indexed by section type. */
+	protected int[][] lazyOffsets = new int[3][];
+	/** Number of record offsets per section, indexed by section type. */
+	protected int[] lazyCount = new int[3];
+	/** Sections not yet decoded, indexed by section type. */
+	protected boolean[] lazyPending = new boolean[3];
+	/** Cause of a failed lazy section decoding, indexed by section type, null if none. */
+	protected Exception[] lazyFailure = new Exception[3];
+	/** Message view used to index the record sections. */
+	protected DNSMessageView lazyView;
+
+	/** Recycling of decoded objects on/off. */
+	protected boolean recycle = false;
+	/** Recycled question objects. */
+	protected ArrayList qd_pool = new ArrayList();
+	/** Recycled record objects, each with its record header. */
+	protected ArrayList rr_pool = new ArrayList();
+
+	/** RRset index per section, indexed by section type, null until needed. */
+	protected HashMap[] rrsetIndex = new HashMap[3];
+	/** Key reused for RRset index lookups. */
+	protected RRsetKey rrsetProbe = new RRsetKey();
+
 	/**
 	 * Instantiate a new message object.
 	 */
@@ -105,19 +161,168 @@ public class DNSMessage {
 	 * Reset the objects internal state.
 	 */
 	public void reset() {
-		qd_array = new ArrayList();
-		an_array = new ArrayList();
-		ns_array = new ArrayList();
-		ar_array = new ArrayList();
+		if ( recycle ) {
+			qd_pool.addAll(qd_array);
+			qd_array.clear();
+			recycleRecords(an_array);
+			recycleRecords(ns_array);
+			recycleRecords(ar_array);
+		}
+		else {
+			qd_array = new ArrayList();
+			an_array = new ArrayList();
+			ns_array = new ArrayList();
+			ar_array = new ArrayList();
+		}
 		dnsname.reset();
+		invalidateIndex();
+		lazyDat = null;
+		lazyPending[DNSSectionType.ANSWER] = false;
+		lazyPending[DNSSectionType.AUTHORITY] = false;
+		lazyPending[DNSSectionType.ADDITIONAL] = false;
+		lazyFailure[DNSSectionType.ANSWER] = null;
+		lazyFailure[DNSSectionType.AUTHORITY] = null;
+		lazyFailure[DNSSectionType.ADDITIONAL] = null;
 	}
 
 	/**
 	 * Toggle debug status.
+	 * The status is applied once to the objects currently held, objects encoded or
+	 * decoded later are only touched while debugging is on.
 	 * @param b boolean.
+	 * @deprecated debug output goes to <CODE>System.out</CODE>, use a codec listener instead.
+	 * @see #setCodecListener(DNSCodecListener)
 	 */
+	@Deprecated
 	public void setDebug(boolean b) {
 		debug = b;
+		if ( dnsheader != null ) {
+			dnsheader.setDebug(b);
+		}
+		dnsrdatabuilder.setDebug(b);
+		dnsname.setDebug(b);
+		for(int i=0; i<qd_array.size(); i++) {
+			((DNSQuestion)qd_array.get(i)).setDebug(b);
+		}
+		for(int i=0; i<an_array.size(); i++) {
+			((DNSRecord)an_array.get(i)).setDebug(b);
+		}
+		for(int i=0; i<ns_array.size(); i++) {
+			((DNSRecord)ns_array.get(i)).setDebug(b);
+		}
+		for(int i=0; i<ar_array.size(); i++) {
+			((DNSRecord)ar_array.get(i)).setDebug(b);
+		}
+	}
+
+	/**
+	 * Install a codec listener which receives events while this message is encoded and decoded.
+	 * Without a listener the events cost a single null check each.
+	 * @param l codec listener or null to remove it.
+	 */
+	public void setCodecListener(DNSCodecListener l) {
+		listener = l;
+		dnsname.setCodecListener(l);
+	}
+
+	/**
+	 * Get the installed codec listener.
+	 * @return codec listener or null.
+	 */
+	public DNSCodecListener getCodecListener() {
+		return listener;
+	}
+
+	/**
+	 * Toggle lazy record section decoding.
+	 * When enabled <CODE>disassemblePacket</CODE> only decodes the header and questions,
+	 * the answer, authority and additional sections are merely indexed and each
+	 * section is decoded into objects the first time it is accessed.
+	 * The packet array is referenced until all sections have been decoded or the message is reset,
+	 * so it must not be modified or reused in the meantime.
+	 * Decoding errors discovered when a section is accessed are thrown as <CODE>IllegalStateException</CODE>,
+	 * use <CODE>disassembleSections</CODE> to force decoding with checked exceptions.
+	 * @param b boolean.
+	 * @see #disassembleSections()
+	 */
+	public void setLazy(boolean b) {
+		lazy = b;
+	}
+
+	/**
+	 * Toggle name compression when assembling.
+	 * Compression is enabled by default, disabled all names are written in full
+	 * which gives larger packets but skips the compression table entirely.
+	 * @param b boolean.
+	 */
+	public void setCompression(boolean b) {
+		dnsname.setCompression(b);
+	}
+
+	/**
+	 * Returns whether name compression is used when assembling.
+	 * @return boolean.
+	 */
+	public boolean getCompression() {
+		return dnsname.getCompression();
+	}
+
+	/**
+	 * Toggle recycling of decoded objects.
+	 * When enabled <CODE>reset</CODE>, and thereby <CODE>disassemblePacket</CODE>, keeps the
+	 * section lists and returns the question, record, record header and rdata objects
+	 * of the previous message to pools, which the next decoded message is built from.
+	 * Decoded name strings are also reused across messages.
+	 * A single message object can then be decoded into over and over with next to no allocation.
+	 * Objects and lists obtained through the view methods belong to the message and are
+	 * overwritten by the next decode, copy them if they must outlive it.
+	 * @param b boolean.
+	 */
+	public void setRecycle(boolean b) {
+		recycle = b;
+		dnsrdatabuilder.setRecycle(b);
+		dnsname.setRecycle(b);
+		if ( !b ) {
+			qd_pool.clear();
+			rr_pool.clear();
+		}
+	}
+
+	/**
+	 * Return the records of a section list to the pools and clear the list.
+	 * @param arr section list.
+	 */
+	protected void recycleRecords(ArrayList arr) {
+		DNSRecord dnsrecord;
+		for(int i=0; i<arr.size(); i++) {
+			dnsrecord = (DNSRecord)arr.get(i);
+			dnsrdatabuilder.recycle(dnsrecord.dnsrdata);
+			dnsrecord.dnsrdata = null;
+			rr_pool.add(dnsrecord);
+		}
+		arr.clear();
+	}
+
+	/**
+	 * Returns a recycled question object or a new one.
+	 * @return question object.
+	 */
+	protected DNSQuestion obtainQuestion() {
+		if ( recycle && (qd_pool.size() > 0) ) {
+			return (DNSQuestion)qd_pool.remove(qd_pool.size() - 1);
+		}
+		return new DNSQuestion();
+	}
+
+	/**
+	 * Returns a recycled record object, with a record header and no rdata, or a new one.
+	 * @return record object.
+	 */
+	protected DNSRecord obtainRecord() {
+		if ( recycle && (rr_pool.size() > 0) ) {
+			return (DNSRecord)rr_pool.remove(rr_pool.size() - 1);
+		}
+		return DNSRecord.wrap(new DNSRecordHeader(), null);
 	}
 
 	/**
@@ -135,15 +340,28 @@ public class DNSMessage {
 			System.out.println("-> DNSMessage.buildPacket()");
 		}
 
+		disassembleLazy();
+
 		arrPackets = new ArrayList();
 
+		dnsname.reset();
+
 		pIdx = DNSHeader.HEADER_SIZE;
 
+		if ( listener != null ) {
+			listener.messageStart(DNSCodecListener.ENCODE);
+		}
+
 	// Questions
 
+		if ( listener != null ) {
+			listener.sectionStart(DNSCodecListener.ENCODE, DNSCodecListener.QUESTION, qd_array.size(), pIdx);
+		}
 		for(int i=0; i<qd_array.size(); i++) {
 			dnsquestion = (DNSQuestion)qd_array.get(i);
-			dnsquestion.setDebug(debug);
+			if ( debug ) {
+				dnsquestion.setDebug(true);
+			}
 			pDat = dnsquestion.buildPacket(dnsname, pIdx);
 			arrPackets.add(pDat);
 			pIdx += pDat.length;
@@ -151,43 +369,62 @@ public class DNSMessage {
 
 	// Answers
 
+		if ( listener != null ) {
+			listener.sectionStart(DNSCodecListener.ENCODE, DNSSectionType.ANSWER, an_array.size(), pIdx);
+		}
 		for(int i=0; i<an_array.size(); i++) {
 			dnsrecord = (DNSRecord)an_array.get(i);
-			dnsrecord.setDebug(debug);
-			pDat = dnsrecord.getHeader().buildPacket(dnsname, pIdx);
+			if ( debug ) {
+				dnsrecord.setDebug(true);
+			}
+			pDat = dnsrecord.dnsrecordheader.buildPacket(dnsname, pIdx);
 			arrPackets.add(pDat);
 			pIdx += pDat.length;
-			pDat = dnsrecord.getRData().buildPacket(dnsname, pIdx);
+			pDat = dnsrecord.dnsrdata.buildPacket(dnsname, pIdx);
 			arrPackets.add(pDat);
 			pIdx += pDat.length;
 		}
 
 	// Authorities
 
+		if ( listener != null ) {
+			listener.sectionStart(DNSCodecListener.ENCODE, DNSSectionType.AUTHORITY, ns_array.size(), pIdx);
+		}
 		for(int i=0; i<ns_array.size(); i++) {
 			dnsrecord = (DNSRecord)ns_array.get(i);
-			dnsrecord.setDebug(debug);
-			pDat = dnsrecord.getHeader().buildPacket(dnsname, pIdx);
+			if ( debug ) {
+				dnsrecord.setDebug(true);
+			}
+			pDat = dnsrecord.dnsrecordheader.buildPacket(dnsname, pIdx);
 			arrPackets.add(pDat);
 			pIdx += pDat.length;
-			pDat = dnsrecord.getRData().buildPacket(dnsname, pIdx);
+			pDat = dnsrecord.dnsrdata.buildPacket(dnsname, pIdx);
 			arrPackets.add(pDat);
 			pIdx += pDat.length;
 		}
 
 	// Additionals
 
+		if ( listener != null ) {
+			listener.sectionStart(DNSCodecListener.ENCODE, DNSSectionType.ADDITIONAL, ar_array.size(), pIdx);
+		}
 		for(int i=0; i<ar_array.size(); i++) {
 			dnsrecord = (DNSRecord)ar_array.get(i);
-			dnsrecord.setDebug(debug);
-			pDat = dnsrecord.getHeader().buildPacket(dnsname, pIdx);
+			if ( debug ) {
+				dnsrecord.setDebug(true);
+			}
+			pDat = dnsrecord.dnsrecordheader.buildPacket(dnsname, pIdx);
 			arrPackets.add(pDat);
 			pIdx += pDat.length;
-			pDat = dnsrecord.getRData().buildPacket(dnsname, pIdx);
+			pDat = dnsrecord.dnsrdata.buildPacket(dnsname, pIdx);
 			arrPackets.add(pDat);
 			pIdx += pDat.length;
 		}
 
+		if ( listener != null ) {
+			listener.messageEnd(DNSCodecListener.ENCODE, pIdx);
+		}
+
 		if ( debug ) {
 			System.out.println("<- DNSMessage.buildPacket()");
 		}
@@ -212,6 +449,8 @@ public class DNSMessage {
 			throw new DNSException("No header assigned.");
 		}
 
+		disassembleLazy();
+
 		dnsheader.setQuestionCount( qd_array.size() );
 		dnsheader.setAnswerCount( an_array.size() );
 		dnsheader.setAuthorityCount( ns_array.size() );
@@ -227,7 +466,9 @@ public class DNSMessage {
 
 		packetData = new byte[pLen];
 
-		dnsheader.setDebug(debug);
+		if ( debug ) {
+			dnsheader.setDebug(true);
+		}
 		pDat = dnsheader.buildPacket();
 		System.arraycopy(pDat, 0, packetData, pIdx, pDat.length);
 		pIdx += pDat.length;
@@ -245,6 +486,386 @@ public class DNSMessage {
 		return packetData;
 	}
 
+	/**
+	 * Assembles the message directly into the supplied buffer in a single pass.
+	 * No intermediate packet fragments are created, the header, questions and
+	 * all three record sections are written starting at the buffers current position.
+	 * On success the buffer position is advanced past the message, on failure it is left unchanged.
+	 * @param dst heap or direct buffer to write the message into.
+	 * @return number of bytes written.
+	 * @throws DNSException if there is no header or the buffer is too small.
+	 * @throws DNSNameException if a domain name is invalid.
+	 */
+	public int assemblePacket(ByteBuffer dst) throws DNSException, DNSNameException {
+		DNSQuestion dnsquestion;
+		DNSRecord dnsrecord;
+		int base;
+
+		if ( debug ) {
+			System.out.println("-> DNSMessage.assemblePacket(ByteBuffer)");
+		}
+
+		if ( dnsheader == null ) {
+			throw new DNSException("No header assigned.");
+		}
+
+		disassembleLazy();
+
+		dnsheader.setQuestionCount( qd_array.size() );
+		dnsheader.setAnswerCount( an_array.size() );
+		dnsheader.setAuthorityCount( ns_array.size() );
+		dnsheader.setAdditionalCount( ar_array.size() );
+
+		base = dst.position();
+		dnsname.reset();
+
+		if ( listener != null ) {
+			listener.messageStart(DNSCodecListener.ENCODE);
+		}
+
+		try {
+
+	// Header
+
+			if ( debug ) {
+				dnsheader.setDebug(true);
+			}
+			dnsheader.buildPacket(dst);
+
+	// Questions
+
+			if ( listener != null ) {
+				listener.sectionStart(DNSCodecListener.ENCODE, DNSCodecListener.QUESTION, qd_array.size(), dst.position() - base);
+			}
+			for(int i=0; i<qd_array.size(); i++) {
+				dnsquestion = (DNSQuestion)qd_array.get(i);
+				if ( debug ) {
+					dnsquestion.setDebug(true);
+				}
+				dnsquestion.buildPacket(dnsname, dst, base);
+			}
+
+	// Answers
+
+			if ( listener != null ) {
+				listener.sectionStart(DNSCodecListener.ENCODE, DNSSectionType.ANSWER, an_array.size(), dst.position() - base);
+			}
+			for(int i=0; i<an_array.size(); i++) {
+				dnsrecord = (DNSRecord)an_array.get(i);
+				if ( debug ) {
+					dnsrecord.setDebug(true);
+				}
+				dnsrecord.dnsrecordheader.buildPacket(dnsname, dst, base);
+				dnsrecord.dnsrdata.buildPacket(dnsname, dst, base);
+			}
+
+	// Authorities
+
+			if ( listener != null ) {
+				listener.sectionStart(DNSCodecListener.ENCODE, DNSSectionType.AUTHORITY, ns_array.size(), dst.position() - base);
+			}
+			for(int i=0; i<ns_array.size(); i++) {
+				dnsrecord = (DNSRecord)ns_array.get(i);
+				if ( debug ) {
+					dnsrecord.setDebug(true);
+				}
+				dnsrecord.dnsrecordheader.buildPacket(dnsname, dst, base);
+				dnsrecord.dnsrdata.buildPacket(dnsname, dst, base);
+			}
+
+	// Additionals
+
+			if ( listener != null ) {
+				listener.sectionStart(DNSCodecListener.ENCODE, DNSSectionType.ADDITIONAL, ar_array.size(), dst.position() - base);
+			}
+			for(int i=0; i<ar_array.size(); i++) {
+				dnsrecord = (DNSRecord)ar_array.get(i);
+				if ( debug ) {
+					dnsrecord.setDebug(true);
+				}
+				dnsrecord.dnsrecordheader.buildPacket(dnsname, dst, base);
+				dnsrecord.dnsrdata.buildPacket(dnsname, dst, base);
+			}
+		}
+		catch(BufferOverflowException e) {
+			dst.position(base);
+			DNSException de = new DNSException("Buffer overflow.");
+			if ( listener != null ) {
+				listener.error(DNSCodecListener.ENCODE, de);
+			}
+			throw de;
+		}
+		catch(DNSNameException e) {
+			dst.position(base);
+			if ( listener != null ) {
+				listener.error(DNSCodecListener.ENCODE, e);
+			}
+			throw e;
+		}
+
+		if ( listener != null ) {
+			listener.messageEnd(DNSCodecListener.ENCODE, dst.position() - base);
+		}
+
+		if ( debug ) {
+			System.out.println("<- DNSMessage.assemblePacket(ByteBuffer) - Len=" + (dst.position() - base));
+		}
+
+		return dst.position() - base;
+	}
+
+	/**
+	 * Assemble the message directly into a buffer without exceeding a maximum size.
+	 * Sections are filled in order and filling stops cleanly at the first record which does not fit.
+	 * Additional records which do not fit are simply left out, if an answer or authority record
+	 * does not fit the remaining records are left out and the truncation flag is set in the header.
+	 * An OPT pseudo record is always kept, space for it is reserved up front.
+	 * The written header carries the section counts actually written and the truncation flag is set
+	 * or cleared accordingly. The header object itself is not modified, so the message can be
+	 * assembled again in full, eg. for a TCP retry.
+	 * @param dst buffer the message is written into, starting at its current position.
+	 * @param maxSize maximum size of the message, eg. 512 for UDP.
+	 * @return number of bytes written.
+	 * @throws DNSException if no header has been assigned or the header and questions do not fit.
+	 * @throws DNSNameException if a domain name is invalid.
+	 */
+	public int assemblePacket(ByteBuffer dst, int maxSize) throws DNSException, DNSNameException {
+		DNSQuestion dnsquestion;
+		DNSRecord optrecord;
+		int optLen;
+		int base;
+		int limit;
+		int anCount;
+		int nsCount;
+		int arCount;
+		int field;
+
+		if ( debug ) {
+			System.out.println("-> DNSMessage.assemblePacket(ByteBuffer, " + maxSize + ")");
+		}
+
+		if ( dnsheader == null ) {
+			throw new DNSException("No header assigned.");
+		}
+
+		disassembleLazy();
+
+		base = dst.position();
+		limit = dst.limit();
+		if ( maxSize < limit - base ) {
+			dst.limit(base + maxSize);
+		}
+		dnsname.reset();
+
+	// Reserve room for the OPT record, which must not be left out.
+
+		optrecord = getOPTRecord();
+		optLen = 0;
+		if ( optrecord != null ) {
+			optLen = optrecord.dnsrecordheader.encodedLength(dnsname, 0) + optrecord.dnsrdata.encodedLength(dnsname, 0);
+			dst.limit(Math.max(dst.limit() - optLen, base));
+		}
+
+		if ( listener != null ) {
+			listener.messageStart(DNSCodecListener.ENCODE);
+		}
+
+		try {
+
+	// Header and questions, must fit.
+
+			try {
+				if ( debug ) {
+					dnsheader.setDebug(true);
+				}
+				dnsheader.buildPacket(dst);
+
+				if ( listener != null ) {
+					listener.sectionStart(DNSCodecListener.ENCODE, DNSCodecListener.QUESTION, qd_array.size(), dst.position() - base);
+				}
+				for(int i=0; i<qd_array.size(); i++) {
+					dnsquestion = (DNSQuestion)qd_array.get(i);
+					if ( debug ) {
+						dnsquestion.setDebug(true);
+					}
+					dnsquestion.buildPacket(dnsname, dst, base);
+				}
+			}
+			catch(BufferOverflowException e) {
+				dst.position(base);
+				DNSException de = new DNSException("Buffer overflow.");
+				if ( listener != null ) {
+					listener.error(DNSCodecListener.ENCODE, de);
+				}
+				throw de;
+			}
+			catch(DNSNameException e) {
+				dst.position(base);
+				if ( listener != null ) {
+					listener.error(DNSCodecListener.ENCODE, e);
+				}
+				throw e;
+			}
+
+	// Records, up to the first one which does not fit.
+
+			nsCount = 0;
+			arCount = 0;
+			try {
+				anCount = assembleSection(DNSSectionType.ANSWER, an_array, dst, base, null);
+				if ( anCount == an_array.size() ) {
+					nsCount = assembleSection(DNSSectionType.AUTHORITY, ns_array, dst, base, null);
+					if ( nsCount == ns_array.size() ) {
+						arCount = assembleSection(DNSSectionType.ADDITIONAL, ar_array, dst, base, optrecord);
+					}
+				}
+				if ( optrecord != null ) {
+					dst.limit(dst.limit() + optLen);
+					if ( debug ) {
+						optrecord.setDebug(true);
+					}
+					optrecord.dnsrecordheader.buildPacket(dnsname, dst, base);
+					optrecord.dnsrdata.buildPacket(dnsname, dst, base);
+					arCount++;
+				}
+			}
+			catch(DNSNameException e) {
+				dst.position(base);
+				if ( listener != null ) {
+					listener.error(DNSCodecListener.ENCODE, e);
+				}
+				throw e;
+			}
+
+	// Header with the actual counts, patched into the written bytes only.
+
+			field = dst.getShort(base + 2) & 0xFFFF;
+			if ( (anCount < an_array.size()) || (nsCount < ns_array.size()) ) {
+				field |= 0x0200;
+			}
+			else {
+				field &= ~0x0200;
+			}
+			dst.putShort(base + 2, (short)field);
+			dst.putShort(base + 4, (short)qd_array.size());
+			dst.putShort(base + 6, (short)anCount);
+			dst.putShort(base + 8, (short)nsCount);
+			dst.putShort(base + 10, (short)arCount);
+		}
+		finally {
+			dst.limit(limit);
+		}
+
+		if ( listener != null ) {
+			listener.messageEnd(DNSCodecListener.ENCODE, dst.position() - base);
+		}
+
+		if ( debug ) {
+			System.out.println("<- DNSMessage.assemblePacket(ByteBuffer, " + maxSize + ") - Len=" + (dst.position() - base));
+		}
+
+		return dst.position() - base;
+	}
+
+	/**
+	 * Assemble the records of a section list until one does not fit in the buffer.
+	 * A record which does not fit is removed again, including its domain names from the compression structures.
+	 * @param stype section type.
+	 * @param arr section list.
+	 * @param dst buffer the records are written into, starting at its current position.
+	 * @param base index in the buffer where the message begins.
+	 * @param skip record which is left out, or null.
+	 * @return number of records written.
+	 * @throws DNSNameException if a domain name is invalid.
+	 */
+	protected int assembleSection(int stype, ArrayList arr, ByteBuffer dst, int base, DNSRecord skip) throws DNSNameException {
+		DNSRecord dnsrecord;
+		int count;
+		int mark;
+		int pIdx;
+		count = 0;
+		if ( listener != null ) {
+			listener.sectionStart(DNSCodecListener.ENCODE, stype, arr.size(), dst.position() - base);
+		}
+		for(int i=0; i<arr.size(); i++) {
+			dnsrecord = (DNSRecord)arr.get(i);
+			if ( dnsrecord == skip ) {
+				continue;
+			}
+			if ( debug ) {
+				dnsrecord.setDebug(true);
+			}
+			mark = dnsname.mark();
+			pIdx = dst.position();
+			try {
+				dnsrecord.dnsrecordheader.buildPacket(dnsname, dst, base);
+				dnsrecord.dnsrdata.buildPacket(dnsname, dst, base);
+			}
+			catch(BufferOverflowException e) {
+				dst.position(pIdx);
+				dnsname.rollback(mark);
+				return count;
+			}
+			count++;
+		}
+		return count;
+	}
+
+	/**
+	 * Returns the exact length of the packet <CODE>assemblePacket</CODE> would produce, without encoding it.
+	 * The same domain name compression logic is run as when assembling, only nothing is written.
+	 * Can be used to size buffers or decide between UDP and TCP before serialising.
+	 * @return encoded length of the message.
+	 * @throws DNSNameException if a domain name is invalid.
+	 * @see #assemblePacket(ByteBuffer)
+	 */
+	public int encodedLength() throws DNSNameException {
+		DNSQuestion dnsquestion;
+		DNSRecord dnsrecord;
+		int pIdx;
+
+		disassembleLazy();
+		dnsname.reset();
+
+	// Header
+
+		pIdx = DNSHeader.HEADER_SIZE;
+
+	// Questions
+
+		for(int i=0; i<qd_array.size(); i++) {
+			dnsquestion = (DNSQuestion)qd_array.get(i);
+			pIdx += dnsquestion.encodedLength(dnsname, pIdx);
+		}
+
+	// Records
+
+		pIdx = encodedLength(an_array, pIdx);
+		pIdx = encodedLength(ns_array, pIdx);
+		pIdx = encodedLength(ar_array, pIdx);
+
+		dnsname.reset();
+
+		return pIdx;
+	}
+
+	/**
+	 * Measure the records of a section list.
+	 * @param arr section list.
+	 * @param pIdx index in the message where the section begins.
+	 * @return index in the message where the section ends.
+	 * @throws DNSNameException if a domain name is invalid.
+	 */
+	protected int encodedLength(ArrayList arr, int pIdx) throws DNSNameException {
+		DNSRecord dnsrecord;
+		for(int i=0; i<arr.size(); i++) {
+			dnsrecord = (DNSRecord)arr.get(i);
+			pIdx += dnsrecord.dnsrecordheader.encodedLength(dnsname, pIdx);
+			pIdx += dnsrecord.dnsrdata.encodedLength(dnsname, pIdx);
+		}
+		return pIdx;
+	}
+
 	/**
 	 * Returns the length of the previously disassembled record header.
 	 * @return length of previously disassembled message.
@@ -263,6 +884,38 @@ public class DNSMessage {
 	 * @see #getDisassembledLen()
 	 */
 	public void disassemblePacket(byte[] pDat) throws DNSException, DNSNameException, DNSRDataException {
+		try {
+			disassemble(pDat);
+		}
+		catch(DNSException e) {
+			if ( listener != null ) {
+				listener.error(DNSCodecListener.DECODE, e);
+			}
+			throw e;
+		}
+		catch(DNSNameException e) {
+			if ( listener != null ) {
+				listener.error(DNSCodecListener.DECODE, e);
+			}
+			throw e;
+		}
+		catch(DNSRDataException e) {
+			if ( listener != null ) {
+				listener.error(DNSCodecListener.DECODE, e);
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * Parses a packet, codec listener errors are reported by the caller.
+	 * @param pDat array containing the complete packet.
+	 * @throws DNSException if the packet is corrupted.
+	 * @throws DNSNameException if the domain name is invalid.
+	 * @throws DNSRDataException if the rdata packet is corrupted.
+	 * @see #disassemblePacket(byte[])
+	 */
+	protected void disassemble(byte[] pDat) throws DNSException, DNSNameException, DNSRDataException {
 		DNSQuestion dnsquestion;
 		DNSRecordHeader dnsrecordheader;
 		DNSRDataInterface dnsrdata;
@@ -283,86 +936,350 @@ public class DNSMessage {
 	// Reset
 
 		reset();
+		dnsname.beginMessage(pDat, pLen);
+
+		if ( listener != null ) {
+			listener.messageStart(DNSCodecListener.DECODE);
+		}
 
 	// Header
 
-		dnsheader.setDebug(debug);
+		if ( debug ) {
+			dnsheader.setDebug(true);
+		}
 		dnsheader.disassemblePacket(pDat, pIdx, pLen);
 		pIdx += dnsheader.getDisassembledLen();
 
-		dnsrdatabuilder.setDebug(debug);
-
 	// Questions
 
 		count = dnsheader.getQuestionCount();
 
+		if ( listener != null ) {
+			listener.sectionStart(DNSCodecListener.DECODE, DNSCodecListener.QUESTION, count, pIdx);
+		}
 		for(int i=0; i<count; i++) {
-			dnsquestion = new DNSQuestion();
-			dnsquestion.setDebug(debug);
+			dnsquestion = obtainQuestion();
+			if ( debug ) {
+				dnsquestion.setDebug(true);
+			}
 			dnsquestion.disassemblePacket(dnsname, pDat, pIdx, pLen);
 			pIdx += dnsquestion.getDisassembledLen();
 
 			qd_array.add(dnsquestion);
 		}
 
+		if ( lazy ) {
+
+	// Index record sections
+
+			pIdx = indexSections(pDat, pIdx, pLen);
+		}
+		else {
+
 	// Answers
 
-		count = dnsheader.getAnswerCount();
+			count = dnsheader.getAnswerCount();
 
-		for(int i=0; i<count; i++) {
-			dnsrecordheader = new DNSRecordHeader();
-			dnsrecordheader.setDebug(debug);
-			dnsrecordheader.disassemblePacket(dnsname, pDat, pIdx, pLen);
-			pIdx += dnsrecordheader.getDisassembledLen();
+			if ( listener != null ) {
+				listener.sectionStart(DNSCodecListener.DECODE, DNSSectionType.ANSWER, count, pIdx);
+			}
+			for(int i=0; i<count; i++) {
+				dnsrecord = obtainRecord();
+				dnsrecordheader = dnsrecord.dnsrecordheader;
+				if ( debug ) {
+					dnsrecordheader.setDebug(true);
+				}
+				dnsrecordheader.disassemblePacket(dnsname, pDat, pIdx, pLen);
+				pIdx += dnsrecordheader.getDisassembledLen();
 
-			dnsrdata = dnsrdatabuilder.disassemblePacket(dnsname, pDat, pIdx, pLen, dnsrecordheader);
-			pIdx += dnsrdata.getDisassembledLen();
+				dnsrdata = dnsrdatabuilder.disassemblePacket(dnsname, pDat, pIdx, pLen, dnsrecordheader);
+				pIdx += dnsrdata.getDisassembledLen();
 
-			dnsrecord = new DNSRecord(dnsrecordheader, dnsrdata);
-			an_array.add(dnsrecord);
-		}
+				dnsrecord.dnsrdata = dnsrdata;
+				an_array.add(dnsrecord);
+			}
 
 	// Authority
 
-		count = dnsheader.getAuthorityCount();
+			count = dnsheader.getAuthorityCount();
 
-		for(int i=0; i<count; i++) {
-			dnsrecordheader = new DNSRecordHeader();
-			dnsrecordheader.setDebug(debug);
-			dnsrecordheader.disassemblePacket(dnsname, pDat, pIdx, pLen);
-			pIdx += dnsrecordheader.getDisassembledLen();
+			if ( listener != null ) {
+				listener.sectionStart(DNSCodecListener.DECODE, DNSSectionType.AUTHORITY, count, pIdx);
+			}
+			for(int i=0; i<count; i++) {
+				dnsrecord = obtainRecord();
+				dnsrecordheader = dnsrecord.dnsrecordheader;
+				if ( debug ) {
+					dnsrecordheader.setDebug(true);
+				}
+				dnsrecordheader.disassemblePacket(dnsname, pDat, pIdx, pLen);
+				pIdx += dnsrecordheader.getDisassembledLen();
 
-			dnsrdata = dnsrdatabuilder.disassemblePacket(dnsname, pDat, pIdx, pLen, dnsrecordheader);
-			pIdx += dnsrdata.getDisassembledLen();
+				dnsrdata = dnsrdatabuilder.disassemblePacket(dnsname, pDat, pIdx, pLen, dnsrecordheader);
+				pIdx += dnsrdata.getDisassembledLen();
 
-			dnsrecord = new DNSRecord(dnsrecordheader, dnsrdata);
-			ns_array.add(dnsrecord);
-		}
+				dnsrecord.dnsrdata = dnsrdata;
+				ns_array.add(dnsrecord);
+			}
 
 	// Additional
 
-		count = dnsheader.getAdditionalCount();
+			count = dnsheader.getAdditionalCount();
 
-		for(int i=0; i<count; i++) {
-			dnsrecordheader = new DNSRecordHeader();
-			dnsrecordheader.setDebug(debug);
-			dnsrecordheader.disassemblePacket(dnsname, pDat, pIdx, pLen);
-			pIdx += dnsrecordheader.getDisassembledLen();
+			if ( listener != null ) {
+				listener.sectionStart(DNSCodecListener.DECODE, DNSSectionType.ADDITIONAL, count, pIdx);
+			}
+			for(int i=0; i<count; i++) {
+				dnsrecord = obtainRecord();
+				dnsrecordheader = dnsrecord.dnsrecordheader;
+				if ( debug ) {
+					dnsrecordheader.setDebug(true);
+				}
+				dnsrecordheader.disassemblePacket(dnsname, pDat, pIdx, pLen);
+				pIdx += dnsrecordheader.getDisassembledLen();
 
-			dnsrdata = dnsrdatabuilder.disassemblePacket(dnsname, pDat, pIdx, pLen, dnsrecordheader);
-			pIdx += dnsrdata.getDisassembledLen();
+				dnsrdata = dnsrdatabuilder.disassemblePacket(dnsname, pDat, pIdx, pLen, dnsrecordheader);
+				pIdx += dnsrdata.getDisassembledLen();
 
-			dnsrecord = new DNSRecord(dnsrecordheader, dnsrdata);
-			ar_array.add(dnsrecord);
+				dnsrecord.dnsrdata = dnsrdata;
+				ar_array.add(dnsrecord);
+			}
 		}
 
 		disLen = pIdx;
 
+		if ( listener != null ) {
+			listener.messageEnd(DNSCodecListener.DECODE, disLen);
+		}
+
 		if ( debug ) {
 			System.out.println("<- DNSMessage.disassemblePacket() - Len=" + disLen);
 		}
 	}
 
+	/**
+	 * Index the record sections of a packet, only the record offsets are stored.
+	 * @param pDat array containing the complete packet.
+	 * @param pIdx index to where in the array the answer section begins.
+	 * @param pLen length of the whole packet.
+	 * @return index to where in the array the message ends.
+	 * @throws DNSException if the packet is corrupted.
+	 * @throws DNSNameException if a domain name is invalid.
+	 */
+	protected int indexSections(byte[] pDat, int pIdx, int pLen) throws DNSException, DNSNameException {
+		int[] offsets;
+		int stype;
+		int count;
+
+		if ( lazyView == null ) {
+			lazyView = new DNSMessageView();
+		}
+		lazyView.wrap(pDat, 0, pLen);
+
+		lazyCount[DNSSectionType.ANSWER] = dnsheader.getAnswerCount();
+		lazyCount[DNSSectionType.AUTHORITY] = dnsheader.getAuthorityCount();
+		lazyCount[DNSSectionType.ADDITIONAL] = dnsheader.getAdditionalCount();
+
+		for(stype=DNSSectionType.ANSWER; stype<=DNSSectionType.ADDITIONAL; stype++) {
+			count = lazyCount[stype];
+			offsets = lazyOffsets[stype];
+			if ( (offsets == null) || (offsets.length < count) ) {
+				offsets = new int[count];
+				lazyOffsets[stype] = offsets;
+			}
+			for(int i=0; i<count; i++) {
+				lazyView.nextRecord();
+				offsets[i] = lazyView.getOffset();
+				pIdx = lazyView.getOffset() + lazyView.getEntryLength();
+			}
+			lazyPending[stype] = (count > 0);
+			lazyFailure[stype] = null;
+		}
+
+		lazyDat = pDat;
+		lazyLen = pLen;
+
+		return pIdx;
+	}
+
+	/**
+	 * Decode all record sections still pending from a lazy disassembly.
+	 * @throws DNSException if the packet is corrupted.
+	 * @throws DNSNameException if a domain name is invalid.
+	 * @throws DNSRDataException if the rdata packet is corrupted.
+	 * @see #setLazy(boolean)
+	 */
+	public void disassembleSections() throws DNSException, DNSNameException, DNSRDataException {
+		disassembleSection(DNSSectionType.ANSWER);
+		disassembleSection(DNSSectionType.AUTHORITY);
+		disassembleSection(DNSSectionType.ADDITIONAL);
+	}
+
+	/**
+	 * Decode one record section if it is still pending from a lazy disassembly.
+	 * A section which could not be decoded is left empty and every later call throws the same exception,
+	 * until the section is replaced or another packet is parsed.
+	 * @param stype section type.
+	 * @throws DNSException if the packet is corrupted.
+	 * @throws DNSNameException if a domain name is invalid.
+	 * @throws DNSRDataException if the rdata packet is corrupted.
+	 */
+	protected void disassembleSection(int stype) throws DNSException, DNSNameException, DNSRDataException {
+		DNSRecord dnsrecord;
+		DNSRecordHeader dnsrecordheader;
+		DNSRDataInterface dnsrdata;
+		ArrayList arr;
+		int[] offsets;
+		int pIdx;
+
+		if ( lazyFailure[stype] != null ) {
+			throwFailure(stype);
+		}
+		if ( !lazyPending[stype] ) {
+			return;
+		}
+
+		switch ( stype ) {
+			case DNSSectionType.ANSWER:
+				arr = an_array;
+				break;
+			case DNSSectionType.AUTHORITY:
+				arr = ns_array;
+				break;
+			default:
+				arr = ar_array;
+				break;
+		}
+
+		offsets = lazyOffsets[stype];
+
+		if ( listener != null ) {
+			listener.sectionStart(DNSCodecListener.DECODE, stype, lazyCount[stype], (lazyCount[stype] > 0) ? offsets[0] : -1);
+		}
+
+		dnsrecord = null;
+		try {
+			for(int i=0; i<lazyCount[stype]; i++) {
+				pIdx = offsets[i];
+
+				dnsrecord = obtainRecord();
+				dnsrecordheader = dnsrecord.dnsrecordheader;
+				if ( debug ) {
+					dnsrecordheader.setDebug(true);
+				}
+				dnsrecordheader.disassemblePacket(dnsname, lazyDat, pIdx, lazyLen);
+				pIdx += dnsrecordheader.getDisassembledLen();
+
+				dnsrdata = dnsrdatabuilder.disassemblePacket(dnsname, lazyDat, pIdx, lazyLen, dnsrecordheader);
+
+				dnsrecord.dnsrdata = dnsrdata;
+				arr.add(dnsrecord);
+				dnsrecord = null;
+			}
+		}
+		catch(DNSException e) {
+			failSection(stype, dnsrecord, e);
+		}
+		catch(DNSNameException e) {
+			failSection(stype, dnsrecord, e);
+		}
+		catch(DNSRDataException e) {
+			failSection(stype, dnsrecord, e);
+		}
+
+		lazyPending[stype] = false;
+		rrsetIndex[stype] = null;
+
+		if ( !lazyPending[DNSSectionType.ANSWER] && !lazyPending[DNSSectionType.AUTHORITY] && !lazyPending[DNSSectionType.ADDITIONAL] ) {
+			lazyDat = null;
+		}
+	}
+
+	/**
+	 * Record the failure of a section being decoded and throw it.
+	 * The records decoded so far, and the one being decoded, are dropped or recycled.
+	 * @param stype section type.
+	 * @param dnsrecord record being decoded when the failure occurred, or null.
+	 * @param e failure.
+	 * @throws DNSException if the failure is a <CODE>DNSException</CODE>.
+	 * @throws DNSNameException if the failure is a <CODE>DNSNameException</CODE>.
+	 * @throws DNSRDataException if the failure is a <CODE>DNSRDataException</CODE>.
+	 */
+	protected void failSection(int stype, DNSRecord dnsrecord, Exception e) throws DNSException, DNSNameException, DNSRDataException {
+		if ( listener != null ) {
+			listener.error(DNSCodecListener.DECODE, e);
+		}
+		lazyFailure[stype] = e;
+		lazyPending[stype] = false;
+		rrsetIndex[stype] = null;
+		if ( recycle ) {
+			if ( dnsrecord != null ) {
+				dnsrecord.dnsrdata = null;
+				rr_pool.add(dnsrecord);
+			}
+			recycleRecords(getSection(stype));
+		}
+		else {
+			getSection(stype).clear();
+		}
+		if ( !lazyPending[DNSSectionType.ANSWER] && !lazyPending[DNSSectionType.AUTHORITY] && !lazyPending[DNSSectionType.ADDITIONAL] ) {
+			lazyDat = null;
+		}
+		throwFailure(stype);
+	}
+
+	/**
+	 * Throw the recorded failure of a section.
+	 * @param stype section type.
+	 * @throws DNSException if the failure is a <CODE>DNSException</CODE>.
+	 * @throws DNSNameException if the failure is a <CODE>DNSNameException</CODE>.
+	 * @throws DNSRDataException if the failure is a <CODE>DNSRDataException</CODE>.
+	 */
+	protected void throwFailure(int stype) throws DNSException, DNSNameException, DNSRDataException {
+		Exception e = lazyFailure[stype];
+		if ( e instanceof DNSNameException ) {
+			throw (DNSNameException)e;
+		}
+		if ( e instanceof DNSRDataException ) {
+			throw (DNSRDataException)e;
+		}
+		throw (DNSException)e;
+	}
+
+	/**
+	 * Decode one pending record section, packet corruption is reported as an unchecked exception.
+	 * A section which could not be decoded is left empty and every later access fails the same way,
+	 * until the section is replaced or another packet is parsed.
+	 * @param stype section type.
+	 * @throws IllegalStateException if the section could not be decoded.
+	 */
+	protected void disassembleLazy(int stype) throws IllegalStateException {
+		if ( (lazyFailure[stype] == null) && !lazyPending[stype] ) {
+			return;
+		}
+		try {
+			disassembleSection(stype);
+			return;
+		}
+		catch(DNSException e) {
+		}
+		catch(DNSNameException e) {
+		}
+		catch(DNSRDataException e) {
+		}
+		throw new IllegalStateException(lazyFailure[stype].getMessage(), lazyFailure[stype]);
+	}
+
+	/**
+	 * Decode all pending record sections, packet corruption is reported as an unchecked exception.
+	 * @throws IllegalStateException if a section could not be decoded.
+	 */
+	protected void disassembleLazy() throws IllegalStateException {
+		disassembleLazy(DNSSectionType.ANSWER);
+		disassembleLazy(DNSSectionType.AUTHORITY);
+		disassembleLazy(DNSSectionType.ADDITIONAL);
+	}
+
 	/**
 	 * Set a copy of the message header object.
 	 * @param header header object.
@@ -423,7 +1340,9 @@ public class DNSMessage {
 	 * @param rec record container object.
 	 */
 	public void addAnswer(DNSRecord rec) {
+		disassembleLazy(DNSSectionType.ANSWER);
 		an_array.add( (DNSRecord)rec.clone() );
+		rrsetIndex[DNSSectionType.ANSWER] = null;
 	}
 
 	/**
@@ -432,7 +1351,9 @@ public class DNSMessage {
 	 */
 	public ArrayList getAnswers() {
 		ArrayList tmpArr = new ArrayList();
-		Iterator iter = an_array.iterator();
+		Iterator iter;
+		disassembleLazy(DNSSectionType.ANSWER);
+		iter = an_array.iterator();
 		DNSRecord tmpRec;
 
 		while ( iter.hasNext() ) {
@@ -448,6 +1369,9 @@ public class DNSMessage {
 	 */
 	public void setAnswers(ArrayList qArr) {
 		an_array = new ArrayList();
+		lazyPending[DNSSectionType.ANSWER] = false;
+		lazyFailure[DNSSectionType.ANSWER] = null;
+		rrsetIndex[DNSSectionType.ANSWER] = null;
 		Iterator iter = qArr.iterator();
 		DNSRecord tmpRec;
 
@@ -462,7 +1386,9 @@ public class DNSMessage {
 	 * @param rec record container object.
 	 */
 	public void addAuthority(DNSRecord rec) {
+		disassembleLazy(DNSSectionType.AUTHORITY);
 		ns_array.add( (DNSRecord)rec.clone() );
+		rrsetIndex[DNSSectionType.AUTHORITY] = null;
 	}
 
 	/**
@@ -471,7 +1397,9 @@ public class DNSMessage {
 	 */
 	public ArrayList getAuthorities() {
 		ArrayList tmpArr = new ArrayList();
-		Iterator iter = ns_array.iterator();
+		Iterator iter;
+		disassembleLazy(DNSSectionType.AUTHORITY);
+		iter = ns_array.iterator();
 		DNSRecord tmpRec;
 
 		while ( iter.hasNext() ) {
@@ -487,6 +1415,9 @@ public class DNSMessage {
 	 */
 	public void setAuthorities(ArrayList qArr) {
 		ns_array = new ArrayList();
+		lazyPending[DNSSectionType.AUTHORITY] = false;
+		lazyFailure[DNSSectionType.AUTHORITY] = null;
+		rrsetIndex[DNSSectionType.AUTHORITY] = null;
 		Iterator iter = qArr.iterator();
 		DNSRecord tmpRec;
 
@@ -501,7 +1432,9 @@ public class DNSMessage {
 	 * @param rec record container object.
 	 */
 	public void addAdditional(DNSRecord rec) {
+		disassembleLazy(DNSSectionType.ADDITIONAL);
 		ar_array.add( (DNSRecord)rec.clone() );
+		rrsetIndex[DNSSectionType.ADDITIONAL] = null;
 	}
 
 	/**
@@ -510,7 +1443,9 @@ public class DNSMessage {
 	 */
 	public ArrayList getAdditionals() {
 		ArrayList tmpArr = new ArrayList();
-		Iterator iter = ar_array.iterator();
+		Iterator iter;
+		disassembleLazy(DNSSectionType.ADDITIONAL);
+		iter = ar_array.iterator();
 		DNSRecord tmpRec;
 
 		while ( iter.hasNext() ) {
@@ -526,6 +1461,9 @@ public class DNSMessage {
 	 */
 	public void setAdditionals(ArrayList qArr) {
 		ar_array = new ArrayList();
+		lazyPending[DNSSectionType.ADDITIONAL] = false;
+		lazyFailure[DNSSectionType.ADDITIONAL] = null;
+		rrsetIndex[DNSSectionType.ADDITIONAL] = null;
 		Iterator iter = qArr.iterator();
 		DNSRecord tmpRec;
 
@@ -535,6 +1473,143 @@ public class DNSMessage {
 		}
 	}
 
+	/**
+	 * Get an unmodifiable view of the list of question objects, nothing is copied.
+	 * The question objects are shared with the message and must be treated as read-only.
+	 * @return read-only list of question objects.
+	 */
+	public List getQuestionView() {
+		return Collections.unmodifiableList(qd_array);
+	}
+
+	/**
+	 * Get an unmodifiable view of the list of answer record objects, nothing is copied.
+	 * The record objects are shared with the message and must be treated as read-only.
+	 * @return read-only list of answer record objects.
+	 * @see DNSRecord#getHeaderView()
+	 * @see DNSRecord#getRDataView()
+	 */
+	public List getAnswerView() {
+		disassembleLazy(DNSSectionType.ANSWER);
+		return Collections.unmodifiableList(an_array);
+	}
+
+	/**
+	 * Get an unmodifiable view of the list of authority record objects, nothing is copied.
+	 * The record objects are shared with the message and must be treated as read-only.
+	 * @return read-only list of authority record objects.
+	 * @see DNSRecord#getHeaderView()
+	 * @see DNSRecord#getRDataView()
+	 */
+	public List getAuthorityView() {
+		disassembleLazy(DNSSectionType.AUTHORITY);
+		return Collections.unmodifiableList(ns_array);
+	}
+
+	/**
+	 * Get an unmodifiable view of the list of additional record objects, nothing is copied.
+	 * The record objects are shared with the message and must be treated as read-only.
+	 * @return read-only list of additional record objects.
+	 * @see DNSRecord#getHeaderView()
+	 * @see DNSRecord#getRDataView()
+	 */
+	public List getAdditionalView() {
+		disassembleLazy(DNSSectionType.ADDITIONAL);
+		return Collections.unmodifiableList(ar_array);
+	}
+
+	/**
+	 * Get the message header object without copying it.
+	 * The object is shared with the message and must be treated as read-only.
+	 * @return shared header object.
+	 */
+	public DNSHeader getHeaderView() {
+		return dnsheader;
+	}
+
+	/**
+	 * Returns the OPT pseudo record from the additional section.
+	 * @return shared OPT record or null if the message has none.
+	 */
+	protected DNSRecord getOPTRecord() {
+		DNSRecord dnsrecord;
+		disassembleLazy(DNSSectionType.ADDITIONAL);
+		for(int i=0; i<ar_array.size(); i++) {
+			dnsrecord = (DNSRecord)ar_array.get(i);
+			if ( dnsrecord.dnsrecordheader.rtype == DNSType.OPT ) {
+				return dnsrecord;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Advertise EDNS(0) support and the largest UDP payload this end can receive.
+	 * Adds an OPT pseudo record to the additional section if the message has none.
+	 * @param size UDP payload size, eg. 1232 or 4096.
+	 * @see #getUDPPayloadSize()
+	 */
+	public void setUDPPayloadSize(int size) {
+		DNSRecord dnsrecord = getOPTRecord();
+		DNSRecordHeader dnsrecordheader;
+		if ( dnsrecord == null ) {
+			dnsrecordheader = new DNSRecordHeader();
+			dnsrecordheader.setRName(".");
+			dnsrecordheader.setRType(DNSType.OPT);
+			dnsrecordheader.setRTTL(0);
+			dnsrecord = DNSRecord.wrap(dnsrecordheader, new DNSRDataOPT());
+			ar_array.add(dnsrecord);
+		}
+		dnsrecord.dnsrecordheader.setRClass(size);
+		rrsetIndex[DNSSectionType.ADDITIONAL] = null;
+	}
+
+	/**
+	 * Returns the UDP payload size advertised by the message.
+	 * Without an OPT record, or if the advertised size is less, this is 512 bytes.
+	 * A responder should limit UDP responses to the smaller of this value for the query and its own limit.
+	 * @return UDP payload size.
+	 * @see #setUDPPayloadSize(int)
+	 */
+	public int getUDPPayloadSize() {
+		DNSRecord dnsrecord = getOPTRecord();
+		if ( (dnsrecord == null) || (dnsrecord.dnsrecordheader.rclass < UDP_PAYLOAD_SIZE) ) {
+			return UDP_PAYLOAD_SIZE;
+		}
+		return dnsrecord.dnsrecordheader.rclass;
+	}
+
+	/**
+	 * Returns a boolean indicating whether the message contains an OPT pseudo record.
+	 * @return true if the message uses EDNS.
+	 */
+	public boolean isEDNS() {
+		return getOPTRecord() != null;
+	}
+
+	/**
+	 * Returns the EDNS version of the message.
+	 * @return EDNS version or -1 if the message does not use EDNS.
+	 */
+	public int getEDNSVersion() {
+		DNSRecord dnsrecord = getOPTRecord();
+		if ( dnsrecord == null ) {
+			return -1;
+		}
+		return (dnsrecord.dnsrecordheader.rttl >> 16) & 255;
+	}
+
+	/**
+	 * Remove the OPT pseudo record from the message.
+	 */
+	public void clearEDNS() {
+		DNSRecord dnsrecord = getOPTRecord();
+		if ( dnsrecord != null ) {
+			ar_array.remove(dnsrecord);
+			rrsetIndex[DNSSectionType.ADDITIONAL] = null;
+		}
+	}
+
 	/**
 	 * Get a copy of the Question objects that match the given arguments.
 	 * @param qname Question hostname. (* equals all hostnames)
@@ -548,23 +1623,44 @@ public class DNSMessage {
 	 */
 	public ArrayList getQuestions(String qname, int qtype, int qclass) {
 		ArrayList tmpArr = new ArrayList();
+		List view = getQuestionView(qname, qtype, qclass);
+		for(int i=0; i<view.size(); i++) {
+			tmpArr.add( ((DNSQuestion)view.get(i)).clone() );
+		}
+		return tmpArr;
+	}
+
+	/**
+	 * Get the Question objects that match the given arguments, nothing is copied.
+	 * The question objects are shared with the message and must be treated as read-only.
+	 * @param qname Question hostname. (* equals all hostnames)
+	 * @param qtype Query Type.
+	 * @param qclass Query Class.
+	 * @return a read-only list of Question objects.
+	 * @see #getQuestions(String, int, int)
+	 */
+	public List getQuestionView(String qname, int qtype, int qclass) {
+		ArrayList tmpArr = null;
 		DNSQuestion tmpQst;
-		int tmptype;
-		int tmpclass;
+		boolean anyName = "*".equals(qname);
 
-		if ( !qd_array.isEmpty() ) {
-			for(int i=0; i<qd_array.size(); i++) {
-				tmpQst = (DNSQuestion)qd_array.get(i);
-				if ( (qname.equalsIgnoreCase( tmpQst.getQName() )) || (qname.equalsIgnoreCase("*")) ) {
-					if ( (qtype == tmpQst.getQType()) || (qtype == DNSQType.ALL) ) {
-						if ( (qclass == tmpQst.getQClass()) || (qclass == DNSQClass.ALL) ) {
-							tmpArr.add( (DNSQuestion)tmpQst.clone() );
+		for(int i=0; i<qd_array.size(); i++) {
+			tmpQst = (DNSQuestion)qd_array.get(i);
+			if ( anyName || qname.equalsIgnoreCase( tmpQst.getQName() ) ) {
+				if ( (qtype == tmpQst.getQType()) || (qtype == DNSQType.ALL) ) {
+					if ( (qclass == tmpQst.getQClass()) || (qclass == DNSQClass.ALL) ) {
+						if ( tmpArr == null ) {
+							tmpArr = new ArrayList();
 						}
+						tmpArr.add(tmpQst);
 					}
 				}
 			}
 		}
-		return tmpArr;
+		if ( tmpArr == null ) {
+			return Collections.EMPTY_LIST;
+		}
+		return Collections.unmodifiableList(tmpArr);
 	}
 
 	/**
@@ -574,6 +1670,7 @@ public class DNSMessage {
 	 * @param qtype Query Type.
 	 * @param qclass Query Class.
 	 * @return a list of Record objects.
+	 * @see #getRecordView(String, int, int, int)
 	 * @see com.antiaction.common.net.dns.DNSSectionType
 	 * @see com.antiaction.common.net.dns.DNSType
 	 * @see com.antiaction.common.net.dns.DNSQType
@@ -582,58 +1679,222 @@ public class DNSMessage {
 	 */
 	public ArrayList getRecords(String qname, int stype, int qtype, int qclass) {
 		ArrayList tmpArr = new ArrayList();
-		DNSRecord tmpRec;
-		DNSRecordHeader tmpHeader;
+		List view = getRecordView(qname, stype, qtype, qclass);
+		for(int i=0; i<view.size(); i++) {
+			tmpArr.add( ((DNSRecord)view.get(i)).clone() );
+		}
+		return tmpArr;
+	}
 
-		if ( (stype == DNSSectionType.ANSWER) || (stype == DNSSectionType.ALL) ) {
-			if ( !an_array.isEmpty() ) {
-				for(int i=0; i<an_array.size(); i++) {
-					tmpRec = (DNSRecord)an_array.get(i);
-					tmpHeader = tmpRec.getHeader();
-					if ( (qname.equalsIgnoreCase( tmpHeader.getRName() )) || (qname.equalsIgnoreCase("*")) ) {
-						if ( (qtype == tmpHeader.getRType()) || (qtype == DNSQType.ALL) ) {
-							if ( (qclass == tmpHeader.getRClass()) || (qclass == DNSQClass.ALL) ) {
-								tmpArr.add( (DNSRecord)tmpRec.clone() );
-							}
-						}
-					}
-				}
+	/**
+	 * Get the Record objects that match the given arguments, nothing is copied.
+	 * Lookups go through an RRset index keyed on the lower-cased name, type and class,
+	 * which is built per section on first use and kept until the section is modified.
+	 * Repeated lookups on the same message, ie. when following CNAME chains, are therefore
+	 * constant time. Only the "*" hostname falls back to scanning the sections.
+	 * Records are returned in section order, answers, then authorities, then additionals.
+	 * The record objects are shared with the message and must be treated as read-only.
+	 * @param qname Question hostname. (* equals all hostnames)
+	 * @param stype Section Type
+	 * @param qtype Query Type.
+	 * @param qclass Query Class.
+	 * @return a read-only list of Record objects.
+	 * @see #getRecords(String, int, int, int)
+	 */
+	public List getRecordView(String qname, int stype, int qtype, int qclass) {
+		ArrayList tmpArr;
+		ArrayList rrset;
+		if ( (stype >= DNSSectionType.ANSWER) && (stype <= DNSSectionType.ADDITIONAL) ) {
+			rrset = lookupSection(qname, stype, qtype, qclass);
+			if ( rrset == null ) {
+				return Collections.EMPTY_LIST;
 			}
+			return Collections.unmodifiableList(rrset);
 		}
+		if ( stype != DNSSectionType.ALL ) {
+			return Collections.EMPTY_LIST;
+		}
+		tmpArr = new ArrayList();
+		for(int i=DNSSectionType.ANSWER; i<=DNSSectionType.ADDITIONAL; i++) {
+			rrset = lookupSection(qname, i, qtype, qclass);
+			if ( rrset != null ) {
+				tmpArr.addAll(rrset);
+			}
+		}
+		return Collections.unmodifiableList(tmpArr);
+	}
 
-		if ( (stype == DNSSectionType.AUTHORITY) || (stype == DNSSectionType.ALL) ) {
-			if ( !ns_array.isEmpty() ) {
-				for(int i=0; i<ns_array.size(); i++) {
-					tmpRec = (DNSRecord)ns_array.get(i);
-					tmpHeader = tmpRec.getHeader();
-					if ( (qname.equalsIgnoreCase( tmpHeader.getRName() )) || (qname.equalsIgnoreCase("*")) ) {
-						if ( (qtype == tmpHeader.getRType()) || (qtype == DNSQType.ALL) ) {
-							if ( (qclass == tmpHeader.getRClass()) || (qclass == DNSQClass.ALL) ) {
-								tmpArr.add( (DNSRecord)tmpRec.clone() );
-							}
+	/**
+	 * Lookup the records of one section that match the given arguments.
+	 * @param qname Question hostname. (* equals all hostnames)
+	 * @param stype Section Type, not <CODE>ALL</CODE>.
+	 * @param qtype Query Type.
+	 * @param qclass Query Class.
+	 * @return list of matching records, shared with the index, or null if there are none.
+	 */
+	protected ArrayList lookupSection(String qname, int stype, int qtype, int qclass) {
+		ArrayList arr;
+		ArrayList tmpArr;
+		DNSRecordHeader tmpHeader;
+		disassembleLazy(stype);
+		if ( "*".equals(qname) ) {
+			arr = getSection(stype);
+			tmpArr = null;
+			for(int i=0; i<arr.size(); i++) {
+				tmpHeader = ((DNSRecord)arr.get(i)).dnsrecordheader;
+				if ( (qtype == tmpHeader.getRType()) || (qtype == DNSQType.ALL) ) {
+					if ( (qclass == tmpHeader.getRClass()) || (qclass == DNSQClass.ALL) ) {
+						if ( tmpArr == null ) {
+							tmpArr = new ArrayList();
 						}
+						tmpArr.add(arr.get(i));
 					}
 				}
 			}
+			return tmpArr;
 		}
+		if ( rrsetIndex[stype] == null ) {
+			rrsetIndex[stype] = buildIndex(getSection(stype));
+		}
+		rrsetProbe.set(RRsetKey.lowerName(qname), qtype, qclass);
+		return (ArrayList)rrsetIndex[stype].get(rrsetProbe);
+	}
 
-		if ( (stype == DNSSectionType.ADDITIONAL) || (stype == DNSSectionType.ALL) ) {
-			if ( !ar_array.isEmpty() ) {
-				for(int i=0; i<ar_array.size(); i++) {
-					tmpRec = (DNSRecord)ar_array.get(i);
-					tmpHeader = tmpRec.getHeader();
-					if ( (qname.equalsIgnoreCase( tmpHeader.getRName() )) || (qname.equalsIgnoreCase("*")) ) {
-						if ( (qtype == tmpHeader.getRType()) || (qtype == DNSQType.ALL) ) {
-							if ( (qclass == tmpHeader.getRClass()) || (qclass == DNSQClass.ALL) ) {
-								tmpArr.add( (DNSRecord)tmpRec.clone() );
-							}
-						}
+	/**
+	 * Returns the record list of a section.
+	 * @param stype Section Type, not <CODE>ALL</CODE>.
+	 * @return section list.
+	 */
+	protected ArrayList getSection(int stype) {
+		switch ( stype ) {
+			case DNSSectionType.ANSWER:
+				return an_array;
+			case DNSSectionType.AUTHORITY:
+				return ns_array;
+			default:
+				return ar_array;
+		}
+	}
+
+	/**
+	 * Build the RRset index of a section.
+	 * Each record is added under its own type and class and under the <CODE>ALL</CODE>
+	 * query type and class, so lookups with either wildcard are also a single get.
+	 * @param arr section list.
+	 * @return map from <CODE>RRsetKey</CODE> to a list of records in section order.
+	 */
+	protected HashMap buildIndex(ArrayList arr) {
+		HashMap index = new HashMap();
+		DNSRecord dnsrecord;
+		DNSRecordHeader tmpHeader;
+		String name;
+		for(int i=0; i<arr.size(); i++) {
+			dnsrecord = (DNSRecord)arr.get(i);
+			tmpHeader = dnsrecord.dnsrecordheader;
+			name = RRsetKey.lowerName(tmpHeader.getRName());
+			indexRecord(index, name, tmpHeader.getRType(), tmpHeader.getRClass(), dnsrecord);
+			indexRecord(index, name, DNSQType.ALL, tmpHeader.getRClass(), dnsrecord);
+			indexRecord(index, name, tmpHeader.getRType(), DNSQClass.ALL, dnsrecord);
+			indexRecord(index, name, DNSQType.ALL, DNSQClass.ALL, dnsrecord);
+		}
+		return index;
+	}
+
+	/**
+	 * Add a record to the RRset of a key.
+	 * @param index RRset index.
+	 * @param name lower-cased name.
+	 * @param rtype record type.
+	 * @param rclass record class.
+	 * @param dnsrecord record.
+	 */
+	private static void indexRecord(HashMap index, String name, int rtype, int rclass, DNSRecord dnsrecord) {
+		RRsetKey key = new RRsetKey();
+		ArrayList rrset;
+		key.set(name, rtype, rclass);
+		rrset = (ArrayList)index.get(key);
+		if ( rrset == null ) {
+			rrset = new ArrayList(4);
+			index.put(key, rrset);
+		}
+		// Records of type or class 255 would otherwise be added twice.
+		if ( (rrset.size() == 0) || (rrset.get(rrset.size() - 1) != dnsrecord) ) {
+			rrset.add(dnsrecord);
+		}
+	}
+
+	/**
+	 * Discard the RRset indexes of all sections.
+	 */
+	protected void invalidateIndex() {
+		rrsetIndex[DNSSectionType.ANSWER] = null;
+		rrsetIndex[DNSSectionType.AUTHORITY] = null;
+		rrsetIndex[DNSSectionType.ADDITIONAL] = null;
+	}
+
+	/**
+	 * RRset index key, lower-cased name, type and class.
+	 */
+	protected static class RRsetKey {
+
+		/** Lower-cased name. */
+		protected String name;
+		/** Record type. */
+		protected int rtype;
+		/** Record class. */
+		protected int rclass;
+		/** Cached hash code. */
+		protected int hash;
+
+		/**
+		 * Set the fields of the key.
+		 * @param name lower-cased name.
+		 * @param rtype record type.
+		 * @param rclass record class.
+		 */
+		protected void set(String name, int rtype, int rclass) {
+			this.name = name;
+			this.rtype = rtype;
+			this.rclass = rclass;
+			hash = (name.hashCode() * 31 + rtype) * 31 + rclass;
+		}
+
+		// Javadoc inherited.
+		public int hashCode() {
+			return hash;
+		}
+
+		// Javadoc inherited.
+		public boolean equals(Object obj) {
+			RRsetKey key;
+			if ( !(obj instanceof RRsetKey) ) {
+				return false;
+			}
+			key = (RRsetKey)obj;
+			return (hash == key.hash) && (rtype == key.rtype) && (rclass == key.rclass) && name.equals(key.name);
+		}
+
+		/**
+		 * ASCII lower-case a name, as allowed by rfc1035 and independent of the default locale.
+		 * @param name domain name.
+		 * @return lower-cased name, the same string if it is already lower-case.
+		 */
+		protected static String lowerName(String name) {
+			char[] tmpArr;
+			char c;
+			for(int i=0; i<name.length(); i++) {
+				c = name.charAt(i);
+				if ( (c >= 'A') && (c <= 'Z') ) {
+					tmpArr = name.toCharArray();
+					for(int j=i; j<tmpArr.length; j++) {
+						tmpArr[j] = DNSNameTable.lower(tmpArr[j]);
 					}
+					return new String(tmpArr);
 				}
 			}
+			return name;
 		}
 
-		return tmpArr;
 	}
 
 	/**
@@ -685,6 +1946,8 @@ public class DNSMessage {
 		String tmpStr = "";
 		tmpStr += "Message\n";
 
+		disassembleLazy();
+
 	// Header
 
 		tmpStr += dnsheader.toString();
@@ -703,8 +1966,8 @@ public class DNSMessage {
 		tmpStr += "--------\n";
 		for(int i=0; i<an_array.size(); i++) {
 			dnsrecord = (DNSRecord)an_array.get(i);
-			tmpStr += dnsrecord.getHeader().toString();
-			tmpStr += dnsrecord.getRData().toString();
+			tmpStr += dnsrecord.dnsrecordheader.toString();
+			tmpStr += dnsrecord.dnsrdata.toString();
 		}
 
 	// Authority
@@ -713,8 +1976,8 @@ public class DNSMessage {
 		tmpStr += "--------\n";
 		for(int i=0; i<ns_array.size(); i++) {
 			dnsrecord = (DNSRecord)ns_array.get(i);
-			tmpStr += dnsrecord.getHeader().toString();
-			tmpStr += dnsrecord.getRData().toString();
+			tmpStr += dnsrecord.dnsrecordheader.toString();
+			tmpStr += dnsrecord.dnsrdata.toString();
 		}
 
 	// Additional
@@ -723,8 +1986,8 @@ public class DNSMessage {
 		tmpStr += "--------\n";
 		for(int i=0; i<ar_array.size(); i++) {
 			dnsrecord = (DNSRecord)ar_array.get(i);
-			tmpStr += dnsrecord.getHeader().toString();
-			tmpStr += dnsrecord.getRData().toString();
+			tmpStr += dnsrecord.dnsrecordheader.toString();
+			tmpStr += dnsrecord.dnsrdata.toString();
 		}
 
 		return tmpStr;
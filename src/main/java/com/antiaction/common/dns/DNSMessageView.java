@@ -0,0 +1,685 @@
+/*
+ * DNS Message View, read-only flyweight cursor over the wire bytes of a DNS message.
+ * Copyright (C) 2026  Nicholas Clarke
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+
+/*
+ * History:
+ *
+ * 16-Oct-2026 : First implementation.
+ *             : Reset the name memo when wrapping a new message.
+ *             : Wire format name comparison and hashing without decoding.
+ *             : Name memo scoped explicitly to the wrapped message.
+ *
+ */
+
+package com.antiaction.common.dns;
+
+import java.nio.ByteBuffer;
+
+import com.antiaction.common.dns.record.DNSRData;
+import com.antiaction.common.dns.record.DNSRDataException;
+import com.antiaction.common.dns.record.DNSRDataInterface;
+
+/**
+ * DNS Message View, read-only flyweight cursor over the wire bytes of a DNS message.
+ * Header fields and section counts are read from the wrapped bytes on demand.
+ * Questions and records are visited with a cursor which exposes offsets, type,
+ * class, ttl and rdata location without allocating anything per record.
+ * All offsets are relative to the start of the message, the same way compression pointers are.
+ * Records can still be materialised into the usual <CODE>DNSQuestion</CODE>/<CODE>DNSRecord</CODE>
+ * objects when really needed.
+ * The wrapped bytes must not be modified while the view is in use.
+ *
+ * @version 2.00
+ * @author Nicholas Clarke <nclarke@diku.dk>
+ */
+public class DNSMessageView {
+
+	/** Buffer containing the message. */
+	protected ByteBuffer buf;
+	/** Index in the buffer where the message begins. */
+	protected int base;
+	/** Length of the message. */
+	protected int len;
+
+	/** Last array wrapped, used to reuse the buffer wrapper. */
+	protected byte[] wrappedArr;
+	/** Buffer wrapping the last array wrapped. */
+	protected ByteBuffer wrappedBuf;
+
+	/** Message copied into an array, only used when materialising objects. */
+	protected byte[] pDat;
+
+	/** Number of questions. */
+	protected int qdCount;
+	/** Number of answer records. */
+	protected int anCount;
+	/** Number of authority records. */
+	protected int nsCount;
+	/** Number of additional records. */
+	protected int arCount;
+
+	/** Current cursor index. */
+	protected int pIdx;
+	/** Questions visited so far. */
+	protected int qdIdx;
+	/** Records visited so far. */
+	protected int rrIdx;
+
+	/** Offset of the current question or record. */
+	protected int entryOffset;
+	/** Length of the current question or record. */
+	protected int entryLength;
+	/** Section of the current record. */
+	protected int section;
+	/** Type of the current question or record. */
+	protected int type;
+	/** Class of the current question or record. */
+	protected int clazz;
+	/** TTL of the current record. */
+	protected int ttl;
+	/** Offset of the current records rdata. */
+	protected int rdataOffset;
+	/** Length of the current records rdata. */
+	protected int rdataLength;
+
+	/** Scratch arrays names are flattened into for comparison and hashing. */
+	protected byte[][] nameScratch;
+
+	/** DNS Name object used for materialising names. */
+	protected DNSName dnsname;
+	/** Name memo of the DNS Name object is scoped to the wrapped message. */
+	protected boolean nameScoped;
+	/** DNS RData builder used for materialising records. */
+	protected DNSRData dnsrdatabuilder;
+
+	/**
+	 * Instantiate an empty view, use one of the wrap methods before use.
+	 */
+	public DNSMessageView() {
+	}
+
+	/**
+	 * Wrap a complete message stored in an array.
+	 * @param pDat array containing the complete message.
+	 * @throws DNSException if the message is shorter than a header.
+	 */
+	public void wrap(byte[] pDat) throws DNSException {
+		wrap(pDat, 0, pDat.length);
+	}
+
+	/**
+	 * Wrap a complete message stored in part of an array.
+	 * Repeatedly wrapping the same array, ie. a pooled receive buffer, allocates nothing.
+	 * @param pDat array containing the message.
+	 * @param pIdx index to where in the array the message begins.
+	 * @param pLen length of the message.
+	 * @throws DNSException if the message is shorter than a header.
+	 */
+	public void wrap(byte[] pDat, int pIdx, int pLen) throws DNSException {
+		if ( (wrappedBuf == null) || (wrappedArr != pDat) ) {
+			wrappedArr = pDat;
+			wrappedBuf = ByteBuffer.wrap(pDat);
+		}
+		init(wrappedBuf, pIdx, pLen);
+	}
+
+	/**
+	 * Wrap a complete message stored between the position and limit of a heap or direct buffer.
+	 * The buffers position and limit are not modified.
+	 * @param src buffer containing the message.
+	 * @throws DNSException if the message is shorter than a header.
+	 */
+	public void wrap(ByteBuffer src) throws DNSException {
+		init(src, src.position(), src.remaining());
+	}
+
+	/**
+	 * Initialize internal state for a new message.
+	 * @param src buffer containing the message.
+	 * @param pIdx index to where in the buffer the message begins.
+	 * @param pLen length of the message.
+	 * @throws DNSException if the message is shorter than a header.
+	 */
+	protected void init(ByteBuffer src, int pIdx, int pLen) throws DNSException {
+		if ( (pIdx < 0) || (pLen < DNSHeader.HEADER_SIZE) || (pIdx + pLen > src.limit()) ) {
+			throw new DNSException("IndexOutOfBounds.");
+		}
+		buf = src;
+		base = pIdx;
+		len = pLen;
+		pDat = null;
+		nameScoped = false;
+		qdCount = getUnsignedShort(4);
+		anCount = getUnsignedShort(6);
+		nsCount = getUnsignedShort(8);
+		arCount = getUnsignedShort(10);
+		rewind();
+	}
+
+	/**
+	 * Puts the cursor back in front of the first question.
+	 */
+	public void rewind() {
+		pIdx = DNSHeader.HEADER_SIZE;
+		qdIdx = 0;
+		rrIdx = 0;
+		entryOffset = -1;
+		entryLength = 0;
+	}
+
+	/**
+	 * Returns the length of the wrapped message.
+	 * @return length of the wrapped message.
+	 */
+	public int getLength() {
+		return len;
+	}
+
+	/**
+	 * Returns the unsigned byte at the given message offset.
+	 * @param offset offset from the beginning of the message.
+	 * @return unsigned byte.
+	 */
+	public int getUnsignedByte(int offset) {
+		return buf.get(base + offset) & 255;
+	}
+
+	/**
+	 * Returns the unsigned 16 bit value at the given message offset, in network byte order.
+	 * @param offset offset from the beginning of the message.
+	 * @return unsigned 16 bit value.
+	 */
+	public int getUnsignedShort(int offset) {
+		offset += base;
+		return (buf.get(offset) & 255) << 8 | (buf.get(offset + 1) & 255);
+	}
+
+	/**
+	 * Returns the 32 bit value at the given message offset, in network byte order.
+	 * @param offset offset from the beginning of the message.
+	 * @return 32 bit value.
+	 */
+	public int getInt(int offset) {
+		offset += base;
+		return ((buf.get(offset) & 255) << 24) | ((buf.get(offset + 1) & 255) << 16) | ((buf.get(offset + 2) & 255) << 8) | (buf.get(offset + 3) & 255);
+	}
+
+	/**
+	 * Get the message identification.
+	 * @return message identification.
+	 */
+	public int getID() {
+		return getUnsignedShort(0);
+	}
+
+	/**
+	 * Get the type of message, <CODE>DNSHeader.Query</CODE> or <CODE>DNSHeader.Response</CODE>.
+	 * @return message type.
+	 */
+	public int getQueryResponse() {
+		return (getUnsignedShort(2) >> 15) & 1;
+	}
+
+	/**
+	 * Get message opcode.
+	 * @return message opcode.
+	 */
+	public int getOpcode() {
+		return (getUnsignedShort(2) >> 11) & 15;
+	}
+
+	/**
+	 * Get Authoritative Answer flag.
+	 * @return boolean.
+	 */
+	public boolean getAuthoritativeAnswer() {
+		return ((getUnsignedShort(2) >> 10) & 1) != 0;
+	}
+
+	/**
+	 * Get Truncation flag.
+	 * @return boolean.
+	 */
+	public boolean getTrunCation() {
+		return ((getUnsignedShort(2) >> 9) & 1) != 0;
+	}
+
+	/**
+	 * Get Recursion Desired flag.
+	 * @return boolean.
+	 */
+	public boolean getRecursionDesired() {
+		return ((getUnsignedShort(2) >> 8) & 1) != 0;
+	}
+
+	/**
+	 * Get Recursion Available flag.
+	 * @return boolean.
+	 */
+	public boolean getRecursionAvailable() {
+		return ((getUnsignedShort(2) >> 7) & 1) != 0;
+	}
+
+	/**
+	 * Get Response Code.
+	 * @return Response Code.
+	 */
+	public int getResponseCode() {
+		return getUnsignedShort(2) & 15;
+	}
+
+	/**
+	 * Get Question count.
+	 * @return count.
+	 */
+	public int getQuestionCount() {
+		return qdCount;
+	}
+
+	/**
+	 * Get Answer resource record count.
+	 * @return count.
+	 */
+	public int getAnswerCount() {
+		return anCount;
+	}
+
+	/**
+	 * Get Authority resource record count.
+	 * @return count.
+	 */
+	public int getAuthorityCount() {
+		return nsCount;
+	}
+
+	/**
+	 * Get Additional resource record count.
+	 * @return count.
+	 */
+	public int getAdditionalCount() {
+		return arCount;
+	}
+
+	/**
+	 * Returns the length of the (possibly compressed) name beginning at the given offset.
+	 * Only the bytes of the name itself are counted, pointers are not followed.
+	 * @param offset offset from the beginning of the message.
+	 * @return length of the name in the message.
+	 * @throws DNSException if the name exceeds the message.
+	 * @throws DNSNameException if the name contains an invalid label type.
+	 */
+	public int skipName(int offset) throws DNSException, DNSNameException {
+		int idx;
+		int elen;
+		idx = offset;
+		while ( true ) {
+			if ( idx >= len ) {
+				throw new DNSException("IndexOutOfBounds.");
+			}
+			elen = getUnsignedByte(idx++);
+			if ( elen == 0 ) {
+				return idx - offset;
+			}
+			else if ( ((elen >> 6) & 3) == 0 ) {
+				idx += elen;
+			}
+			else if ( ((elen >> 6) & 3) == 3 ) {
+				if ( idx >= len ) {
+					throw new DNSException("IndexOutOfBounds.");
+				}
+				return idx + 1 - offset;
+			}
+			else {
+				throw new DNSNameException("Invalid encoding.");
+			}
+		}
+	}
+
+	/**
+	 * Advance the cursor to the next question.
+	 * @return true if the cursor was moved to a question, false if there are no more questions.
+	 * @throws DNSException if the message is corrupted.
+	 * @throws DNSNameException if a name contains an invalid label type.
+	 */
+	public boolean nextQuestion() throws DNSException, DNSNameException {
+		int idx;
+		if ( qdIdx >= qdCount ) {
+			return false;
+		}
+		idx = pIdx;
+		idx += skipName(idx);
+		if ( idx + 4 > len ) {
+			throw new DNSException("IndexOutOfBounds.");
+		}
+		entryOffset = pIdx;
+		type = getUnsignedShort(idx);
+		clazz = getUnsignedShort(idx + 2);
+		ttl = 0;
+		rdataOffset = idx + 4;
+		rdataLength = 0;
+		idx += 4;
+		entryLength = idx - pIdx;
+		pIdx = idx;
+		++qdIdx;
+		return true;
+	}
+
+	/**
+	 * Advance the cursor to the next resource record, skipping any remaining questions.
+	 * Records are visited in message order, answers, then authorities, then additionals.
+	 * @return true if the cursor was moved to a record, false if there are no more records.
+	 * @throws DNSException if the message is corrupted.
+	 * @throws DNSNameException if a name contains an invalid label type.
+	 */
+	public boolean nextRecord() throws DNSException, DNSNameException {
+		int idx;
+		while ( qdIdx < qdCount ) {
+			nextQuestion();
+		}
+		if ( rrIdx >= anCount + nsCount + arCount ) {
+			return false;
+		}
+		idx = pIdx;
+		idx += skipName(idx);
+		if ( idx + 10 > len ) {
+			throw new DNSException("IndexOutOfBounds.");
+		}
+		entryOffset = pIdx;
+		type = getUnsignedShort(idx);
+		clazz = getUnsignedShort(idx + 2);
+		ttl = getInt(idx + 4);
+		rdataLength = getUnsignedShort(idx + 8);
+		rdataOffset = idx + 10;
+		idx += 10 + rdataLength;
+		if ( idx > len ) {
+			throw new DNSException("IndexOutOfBounds.");
+		}
+		if ( rrIdx < anCount ) {
+			section = DNSSectionType.ANSWER;
+		}
+		else if ( rrIdx < anCount + nsCount ) {
+			section = DNSSectionType.AUTHORITY;
+		}
+		else {
+			section = DNSSectionType.ADDITIONAL;
+		}
+		entryLength = idx - pIdx;
+		pIdx = idx;
+		++rrIdx;
+		return true;
+	}
+
+	/**
+	 * Get the section of the current record.
+	 * @return section type.
+	 * @see com.antiaction.common.dns.DNSSectionType
+	 */
+	public int getSection() {
+		return section;
+	}
+
+	/**
+	 * Get the offset of the current question or record, which is also the offset of its name.
+	 * @return offset from the beginning of the message.
+	 */
+	public int getOffset() {
+		return entryOffset;
+	}
+
+	/**
+	 * Get the length of the current question or record.
+	 * @return length in bytes.
+	 */
+	public int getEntryLength() {
+		return entryLength;
+	}
+
+	/**
+	 * Get the offset of the name of the current question or record.
+	 * @return offset from the beginning of the message.
+	 */
+	public int getNameOffset() {
+		return entryOffset;
+	}
+
+	/**
+	 * Get the type of the current question or record.
+	 * @return type.
+	 * @see com.antiaction.common.dns.DNSType
+	 */
+	public int getType() {
+		return type;
+	}
+
+	/**
+	 * Get the class of the current question or record.
+	 * @return class.
+	 * @see com.antiaction.common.dns.DNSClass
+	 */
+	public int getRClass() {
+		return clazz;
+	}
+
+	/**
+	 * Get the ttl of the current record.
+	 * @return ttl.
+	 */
+	public int getTTL() {
+		return ttl;
+	}
+
+	/**
+	 * Get the offset of the rdata of the current record.
+	 * @return offset from the beginning of the message.
+	 */
+	public int getRDataOffset() {
+		return rdataOffset;
+	}
+
+	/**
+	 * Get the length of the rdata of the current record.
+	 * @return rdata length.
+	 */
+	public int getRDataLength() {
+		return rdataLength;
+	}
+
+	/**
+	 * Returns the message as an array indexed from the beginning of the message,
+	 * copying it only if the wrapped bytes can not be used directly.
+	 * @return message array.
+	 */
+	protected byte[] getArray() {
+		if ( pDat == null ) {
+			if ( buf.hasArray() && (buf.arrayOffset() + base == 0) ) {
+				pDat = buf.array();
+			}
+			else {
+				pDat = new byte[len];
+				for(int i=0; i<len; i++) {
+					pDat[i] = buf.get(base + i);
+				}
+			}
+		}
+		return pDat;
+	}
+
+	/**
+	 * Decode the domain name beginning at the given offset.
+	 * @param offset offset from the beginning of the message.
+	 * @return domain name in string form.
+	 * @throws DNSException if the message is corrupted.
+	 * @throws DNSNameException if the domain name is invalid.
+	 */
+	public String getName(int offset) throws DNSException, DNSNameException {
+		return getDNSName().disassemblePacket(getArray(), offset, len);
+	}
+
+	/**
+	 * Returns the DNS Name object used for materialising names, with its memo scoped to the wrapped message.
+	 * @return DNS Name object.
+	 */
+	protected DNSName getDNSName() {
+		if ( dnsname == null ) {
+			dnsname = new DNSName();
+		}
+		if ( !nameScoped ) {
+			dnsname.beginMessage(getArray(), len);
+			nameScoped = true;
+		}
+		return dnsname;
+	}
+
+	/**
+	 * Flatten the name beginning at the given offset into one of the scratch arrays.
+	 * @param offset offset from the beginning of the message.
+	 * @param idx scratch array index, 0 or 1.
+	 * @return length of the name in wire format.
+	 * @throws DNSException if the message is corrupted.
+	 * @throws DNSNameException if the domain name is invalid.
+	 */
+	protected int flattenName(int offset, int idx) throws DNSException, DNSNameException {
+		if ( nameScratch == null ) {
+			nameScratch = new byte[2][DNSWireName.MAX_NAME_LEN];
+		}
+		return DNSWireName.flatten(getArray(), offset, len, nameScratch[idx], 0);
+	}
+
+	/**
+	 * Compare the name beginning at the given offset with a name, ignoring case.
+	 * The name in the message is not decoded into a string.
+	 * @param offset offset from the beginning of the message.
+	 * @param name name to compare with.
+	 * @return true if the names are equal.
+	 * @throws DNSException if the message is corrupted.
+	 * @throws DNSNameException if the domain name is invalid.
+	 */
+	public boolean nameEquals(int offset, DNSWireName name) throws DNSException, DNSNameException {
+		int nLen = flattenName(offset, 0);
+		return name.equals(nameScratch[0], 0, nLen);
+	}
+
+	/**
+	 * Compare the names beginning at two offsets, ignoring case.
+	 * @param offset1 offset of the first name from the beginning of the message.
+	 * @param offset2 offset of the second name from the beginning of the message.
+	 * @return true if the names are equal.
+	 * @throws DNSException if the message is corrupted.
+	 * @throws DNSNameException if a domain name is invalid.
+	 */
+	public boolean nameEquals(int offset1, int offset2) throws DNSException, DNSNameException {
+		int nLen1;
+		int nLen2;
+		if ( offset1 == offset2 ) {
+			return true;
+		}
+		nLen1 = flattenName(offset1, 0);
+		nLen2 = flattenName(offset2, 1);
+		return DNSWireName.equals(nameScratch[0], 0, nLen1, nameScratch[1], 0, nLen2);
+	}
+
+	/**
+	 * Returns the case-insensitive hash code of the name beginning at the given offset.
+	 * Equal to the hash code of the corresponding <CODE>DNSWireName</CODE>.
+	 * @param offset offset from the beginning of the message.
+	 * @return hash code.
+	 * @throws DNSException if the message is corrupted.
+	 * @throws DNSNameException if the domain name is invalid.
+	 */
+	public int nameHashCode(int offset) throws DNSException, DNSNameException {
+		int nLen = flattenName(offset, 0);
+		return DNSWireName.hashCode(nameScratch[0], 0, nLen);
+	}
+
+	/**
+	 * Returns the name beginning at the given offset as a wire name, usable as a key.
+	 * @param offset offset from the beginning of the message.
+	 * @return wire name.
+	 * @throws DNSException if the message is corrupted.
+	 * @throws DNSNameException if the domain name is invalid.
+	 */
+	public DNSWireName getWireName(int offset) throws DNSException, DNSNameException {
+		return DNSWireName.fromPacket(getArray(), offset, len);
+	}
+
+	/**
+	 * Materialise the current question.
+	 * @return question object.
+	 * @throws DNSException if the message is corrupted or the cursor is not on a question.
+	 * @throws DNSNameException if the domain name is invalid.
+	 */
+	public DNSQuestion getQuestion() throws DNSException, DNSNameException {
+		DNSQuestion dnsquestion;
+		if ( (entryOffset == -1) || (rrIdx > 0) ) {
+			throw new DNSException("Cursor not on a question.");
+		}
+		dnsquestion = new DNSQuestion();
+		dnsquestion.disassemblePacket(getDNSName(), getArray(), entryOffset, len);
+		return dnsquestion;
+	}
+
+	/**
+	 * Materialise the current record, including its rdata object.
+	 * @return record object.
+	 * @throws DNSException if the message is corrupted or the cursor is not on a record.
+	 * @throws DNSNameException if a domain name is invalid.
+	 * @throws DNSRDataException if the rdata is corrupted.
+	 */
+	public DNSRecord getRecord() throws DNSException, DNSNameException, DNSRDataException {
+		DNSRecordHeader dnsrecordheader;
+		DNSRDataInterface dnsrdata;
+		byte[] packet;
+		if ( (entryOffset == -1) || (rrIdx == 0) ) {
+			throw new DNSException("Cursor not on a record.");
+		}
+		if ( dnsrdatabuilder == null ) {
+			dnsrdatabuilder = new DNSRData();
+		}
+		packet = getArray();
+		getDNSName();
+		dnsrecordheader = new DNSRecordHeader();
+		dnsrecordheader.disassemblePacket(dnsname, packet, entryOffset, len);
+		dnsrdata = dnsrdatabuilder.disassemblePacket(dnsname, packet, entryOffset + dnsrecordheader.getDisassembledLen(), len, dnsrecordheader);
+		return DNSRecord.wrap(dnsrecordheader, dnsrdata);
+	}
+
+	/**
+	 * Returns a string representation of the internal state, mostly for debugging purposes.
+	 * @return debug string.
+	 */
+	public String toString() {
+		String tmpStr = "\n";
+		tmpStr += "Message View\n";
+		tmpStr += "------------\n";
+		if ( buf == null ) {
+			tmpStr += "Nothing wrapped.\n";
+			return tmpStr;
+		}
+		tmpStr += "Id: " + getID() + "\n";
+		tmpStr += "length: " + len + "\n";
+		tmpStr += "questionCount: " + qdCount + "\n";
+		tmpStr += "answerCount: " + anCount + "\n";
+		tmpStr += "authorityCount: " + nsCount + "\n";
+		tmpStr += "additionalCount: " + arCount + "\n";
+		tmpStr += "cursor: " + entryOffset + "\n";
+		return tmpStr;
+	}
+
+}
@@ -37,14 +37,23 @@
  * 25-Aug-2001 : Expanded debug info.
  * 27-Aug-2001 : Expanded debug info.
  * 18-Nov-2001 : Javadoc fix.
+ * 16-Oct-2026 : Added ByteBuffer buildPacket method.
+ *             : Replaced the HashMap label tree with a flat case-insensitive compression table.
+ *             : Allocation free single pass label tokenizer, labels written directly into the buffer.
+ *             : Decoded names are memoized per message by wire offset.
+ *             : Iterative name decoding with explicit bounds, length and pointer limits.
+ *             : Optional cache reusing decoded name strings across messages.
+ *             : Added encodedLength measuring method.
+ *             : Added mark and rollback of the compression table.
+ *             : Codec listener events for decoded names and compression hits and misses.
+ *             : Added compression toggle.
+ *             : Decoded name memo is only used within an explicit message scope.
  *
  */
 
 package com.antiaction.common.dns;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Iterator;
+import java.nio.ByteBuffer;
 
 /**
  * DNS Name, handles domainname dis/assembling (including de/compression).
@@ -61,14 +70,71 @@ public class DNSName {
 	/** Debug on/off. */
 	private boolean debug = false;
 
-	/** Root node from compression tree. */
-	private Node rootNode;
+	/** Codec listener, null if none. */
+	private DNSCodecListener listener = null;
+
+	/** Label suffix table used for compression. */
+	private DNSNameTable table;
+
+	/** Compression on/off. */
+	private boolean compression = true;
+
+	/** Maximum length of an encoded name. */
+	private static final int MAX_ENCODED_LEN = 257;
+
+	/** Maximum length of a decoded name in wire format, as defined in rfc1035. */
+	private static final int MAX_NAME_LEN = 255;
+
+	/** Maximum number of compression pointers followed while decoding a name. */
+	private static final int MAX_POINTER_HOPS = 128;
+
+	/** Start index in the name of each label in the name being built. */
+	private int[] labelStarts;
+	/** Length of each label in the name being built. */
+	private int[] labelLens;
+	/** Packet index of each label in the name being built. */
+	private int[] labelOffsets;
+
+	/** Scratch buffer used by the byte array build method. */
+	private ByteBuffer scratch;
+
+	/** Packet the decoded name memo is scoped to, null outside a message scope. */
+	private byte[] memoDat;
+	/** Length of the packet the decoded name memo is scoped to. */
+	private int memoLen;
+	/** Memo used by the name being decoded. */
+	private boolean memoActive;
+	/** Decoded name or suffix per wire offset. */
+	private String[] memo;
+	/** Generation each memo entry was stored in. */
+	private int[] memoGen;
+	/** Current memo generation. */
+	private int memoCur = 1;
+	/** Pointer targets visited while decoding the current name. */
+	private int[] memoTargets;
+	/** Name length when each pointer target was visited. */
+	private int[] memoMarks;
+
+	/** Number of entries in the decoded name cache, must be a power of two. */
+	private static final int NAME_CACHE_SIZE = 256;
+
+	/** Decoded names kept across messages, indexed by hash, null if disabled. */
+	private String[] nameCache = null;
+
+	/** Name characters used while decoding. */
+	private char[] nameBuf;
 
 	/**
 	 * Construct a name object and initialize internal compression structures.
 	 */
 	public DNSName() {
-		rootNode = new Node(0, ".");
+		table = new DNSNameTable();
+		labelStarts = new int[128];
+		labelLens = new int[128];
+		labelOffsets = new int[128];
+		memoTargets = new int[MAX_POINTER_HOPS];
+		memoMarks = new int[MAX_POINTER_HOPS];
+		nameBuf = new char[MAX_NAME_LEN];
 	}
 
 	/**
@@ -79,11 +145,132 @@ public class DNSName {
 		debug = b;
 	}
 
+	/**
+	 * Install a codec listener which is told about decoded names and compression hits and misses.
+	 * @param l codec listener or null to remove it.
+	 */
+	public void setCodecListener(DNSCodecListener l) {
+		listener = l;
+	}
+
+	/**
+	 * Toggle name compression.
+	 * When disabled all names are written in full and the compression table is neither
+	 * consulted nor updated, regardless of the arguments passed to the build methods.
+	 * @param b boolean.
+	 */
+	public void setCompression(boolean b) {
+		compression = b;
+	}
+
+	/**
+	 * Returns whether name compression is enabled.
+	 * @return boolean.
+	 */
+	public boolean getCompression() {
+		return compression;
+	}
+
+	/**
+	 * Toggle reuse of decoded name strings across messages.
+	 * When enabled decoded names are kept in a small cache and an equal name decoded
+	 * from a later message returns the same string instead of a new one.
+	 * @param b boolean.
+	 */
+	public void setRecycle(boolean b) {
+		if ( b ) {
+			if ( nameCache == null ) {
+				nameCache = new String[NAME_CACHE_SIZE];
+			}
+		}
+		else {
+			nameCache = null;
+		}
+	}
+
 	/**
 	 * Reset internal compression structures.
 	 */
 	public void reset() {
-		rootNode = new Node(0, ".");
+		table.clear();
+		clearMemo();
+		memoDat = null;
+	}
+
+	/**
+	 * Invalidate all decoded names in the memo.
+	 */
+	private void clearMemo() {
+		if ( ++memoCur == 0 ) {
+			if ( memoGen != null ) {
+				for(int i=0; i<memoGen.length; i++) {
+					memoGen[i] = 0;
+				}
+			}
+			memoCur = 1;
+		}
+	}
+
+	/**
+	 * Begin decoding a new message, names decoded from the packet are memoized by wire offset
+	 * until <CODE>reset()</CODE> is called or another message is begun.
+	 * The caller guarantees the packet is not modified while the scope lasts.
+	 * @param pDat array containing the complete packet.
+	 * @param pLen length of the whole packet.
+	 */
+	void beginMessage(byte[] pDat, int pLen) {
+		int size;
+		clearMemo();
+		memoDat = pDat;
+		memoLen = pLen;
+		size = Math.min(pLen, DNSNameTable.MAX_OFFSET + 1);
+		if ( (memo == null) || (memo.length < size) ) {
+			memo = new String[size];
+			memoGen = new int[size];
+		}
+	}
+
+	/**
+	 * Returns the memoized name or suffix decoded from a wire offset.
+	 * @param pIdx wire offset.
+	 * @return decoded name or suffix, or null if not decoded yet.
+	 */
+	private String getMemo(int pIdx) {
+		if ( memoActive && (pIdx < memo.length) && (memoGen[pIdx] == memoCur) ) {
+			return memo[pIdx];
+		}
+		return null;
+	}
+
+	/**
+	 * Memoize the name or suffix decoded from a wire offset.
+	 * @param pIdx wire offset.
+	 * @param s decoded name or suffix.
+	 */
+	private void putMemo(int pIdx, String s) {
+		if ( memoActive && (pIdx < memo.length) ) {
+			memo[pIdx] = s;
+			memoGen[pIdx] = memoCur;
+		}
+	}
+
+	/**
+	 * Returns a mark of the current compression table state, used to undo names built afterwards.
+	 * @return compression table mark.
+	 * @see #rollback(int)
+	 */
+	int mark() {
+		return table.size();
+	}
+
+	/**
+	 * Forget all labels added to the compression table since the mark was taken,
+	 * used when the names built since then are removed from the message again.
+	 * @param mark compression table mark.
+	 * @see #mark()
+	 */
+	void rollback(int mark) {
+		table.truncate(mark);
 	}
 
 	/**
@@ -98,243 +285,193 @@ public class DNSName {
 	public byte[] buildPacket(int globalIdx, String name, boolean useComp, boolean updComp) throws DNSNameException {
 		byte[] packetData;
 		int packetLen;
-		//int packetIdx;
 
-		ArrayList labels;
-		StringBuffer label;
-
-		String tmpStr;
-		//int pidx;
-		int idx;
-		int len;
-		char c;
-		boolean b;
+		if ( scratch == null ) {
+			scratch = ByteBuffer.wrap(new byte[MAX_ENCODED_LEN]);
+		}
+		scratch.clear();
+		packetLen = encode(scratch, globalIdx, name, useComp, updComp);
+		packetData = new byte[packetLen];
+		System.arraycopy(scratch.array(), 0, packetData, 0, packetLen);
 
-		Node tmpNode;
-		ArrayList insertList;
-		int compIdx;
-		int subBuilds;
+		return packetData;
+	}
 
-		if ( debug ) {
-			System.out.println("-> DNSName.buildPacket()");
-			System.out.println("    name: " + name);
-		}
+	/**
+	 * Build the name with no, partial or full compresssion used directly into a buffer.
+	 * @param dst buffer the name is written into, starting at its current position.
+	 * @param base index in the buffer where the message begins.
+	 * @param name domain name.
+	 * @param useComp use compression to build the name.
+	 * @param updComp update the compression tree structure with new labels.
+	 * @return number of bytes written.
+	 * @throws DNSNameException if the domain name is invalid.
+	 * @throws java.nio.BufferOverflowException if the buffer is too small.
+	 */
+	public int buildPacket(ByteBuffer dst, int base, String name, boolean useComp, boolean updComp) throws DNSNameException {
+		return encode(dst, dst.position() - base, name, useComp, updComp);
+	}
 
-		labels = new ArrayList();
-		label = new StringBuffer(64);
+	/**
+	 * Returns the number of bytes the name would be encoded into, without writing anything.
+	 * The compression table is used and updated exactly as by <CODE>buildPacket</CODE>,
+	 * so a measuring pass over a message yields the length of the encoded message.
+	 * @param globalIdx message index where the name would be written.
+	 * @param name domain name.
+	 * @param useComp use compression to build the name.
+	 * @param updComp update the compression tree structure with new labels.
+	 * @return encoded length of the name.
+	 * @throws DNSNameException if the domain name is invalid.
+	 */
+	public int encodedLength(int globalIdx, String name, boolean useComp, boolean updComp) throws DNSNameException {
+		return encode(null, globalIdx, name, useComp, updComp);
+	}
 
-	// Sanity check.
+	/**
+	 * Split a name into labels, recording the start and length of each label.
+	 * The name is scanned once and no objects are created.
+	 * @param name domain name.
+	 * @return number of labels, not including the root label.
+	 * @throws DNSNameException if the domain name is invalid.
+	 */
+	private int tokenize(String name) throws DNSNameException {
+		int nameLen;
+		int labels;
+		int start;
+		int len;
 
 		if ( (name == null) || (name.length() > 255) )	{
 			throw new DNSNameException("Invalid Parameter.");
 		}
-		else {
-			idx = 0;
-			len = 0;
-			b = true;
 
-		// root
+		nameLen = name.length();
 
-			if ( name.equals(".") ) {
-				name = "";
-			}
+	// root
 
-		// Build subdomain ArrayList.
+		if ( (nameLen == 1) && (name.charAt(0) == '.') ) {
+			nameLen = 0;
+		}
 
-			while ( b ) {
-				if ( idx < name.length() ) {
-					c = name.charAt(idx);
-					if ( c == '.' ) {
-						if ( (len == 0) || (len > 63) ) {
-							throw new DNSNameException("Invalid domain name.");
-						}
-						labels.add( label.toString() );
-						label = new StringBuffer(64);
-						len = 0;
-					}
-					else {
-						if ( len > 63 ) {
-							throw new DNSNameException("Invalid domain name.");
-						}
-						label.append(c);
-						len++;
+		labels = 0;
+		start = 0;
+		for(int i=0; i<=nameLen; i++) {
+			if ( (i == nameLen) || (name.charAt(i) == '.') ) {
+				len = i - start;
+				if ( len > 63 ) {
+					throw new DNSNameException("Invalid domain name.");
+				}
+				if ( len == 0 ) {
+					if ( i < nameLen ) {
+						throw new DNSNameException("Invalid domain name.");
 					}
-					idx++;
 				}
 				else {
-					labels.add( label.toString() );
-					if ( label.length() > 0 ) {
-						labels.add("");
-					}
-					b = false;
+					labelStarts[labels] = start;
+					labelLens[labels] = len;
+					labels++;
 				}
+				start = i + 1;
 			}
 		}
 
-		if ( labels.size() == 1 ) {
+		return labels;
+	}
 
-	// .
+	/**
+	 * Encode a name into a buffer with no, partial or full compresssion used.
+	 * Labels are written length-prefixed straight from the name and the compression table
+	 * is updated from the recorded label offsets afterwards.
+	 * Without a buffer the name is only measured, the compression table is updated all the same.
+	 * @param dst buffer the name is written into, starting at its current position, or null to measure.
+	 * @param globalIdx message index corresponding to the current buffer position.
+	 * @param name domain name.
+	 * @param useComp use compression to build the name.
+	 * @param updComp update the compression tree structure with new labels.
+	 * @return number of bytes written.
+	 * @throws DNSNameException if the domain name is invalid.
+	 * @throws java.nio.BufferOverflowException if the buffer is too small.
+	 */
+	private int encode(ByteBuffer dst, int globalIdx, String name, boolean useComp, boolean updComp) throws DNSNameException {
+		int encLen;
+		int labels;
+		int lastIdx;
+		int lastId;
+		int currId;
+		int compIdx;
 
-			packetData = new byte[1];
-			packetData[0] = (byte)0;
+		if ( debug ) {
+			System.out.println("-> DNSName.buildPacket()");
+			System.out.println("    name: " + name);
 		}
-		else {
 
-	// Incl. subDomains.
-
-			int topIdx;
-			int lastIdx;
-			Node lastNode;
-			Node currNode;
-
-			topIdx = labels.size() - 1;
-			lastIdx = topIdx;
-
-			tmpStr = (String)labels.get(lastIdx - 1);
-			//System.out.println("comprLookup: " + tmpStr);
-			currNode = (Node)rootNode.get( tmpStr );
-			lastNode = currNode;
-
-			if ( currNode != null ) {
-				lastNode = currNode;
-				lastIdx -= 1;
-
-				b = true;
-				while ( b ) {
-					if ( lastIdx > 0 ) {
-						tmpStr = (String)labels.get(lastIdx - 1);
-						//System.out.println("comprLookup: " + tmpStr);
-						currNode = (Node)currNode.get( tmpStr );
-						if ( currNode != null ) {
-							lastNode = currNode;
-							lastIdx -= 1;
-						}
-						else {
-							b = false;
-						}
-					}
-					else {
-						b = false;
-					}
-				}
-			}
-
-			//System.out.println("topidx: " + topIdx + " lastIdx: " + lastIdx);
-
-			subBuilds = labels.size();
-			if ( topIdx != lastIdx ) {
-				subBuilds = lastIdx;
-			}
-
-			//System.out.println("subBuilds: " + subBuilds);
-
-		// Validate/Length uncompressed part.
-
-			packetLen = 0;
-			for(int i=0, l; i<subBuilds; i++) {							// labels.size()
-				l = ((String)labels.get(i)).length();
-				packetLen += (1 + l);
-				if ( ( i != ( labels.size() - 1 ) ) && ( l == 0 ) ) {
-					throw new DNSNameException("Invalid domain name.");
-				}
-				else if ( ( i == ( labels.size() - 1 ) ) && ( l != 0 ) ) {
-					throw new DNSNameException("Invalid internal state.");
-				}
-			}
+		labels = tokenize(name);
 
-		// Compress possible trailing part?
-
-			if ( useComp ) {
+		if ( !compression ) {
+			useComp = false;
+			updComp = false;
+		}
 
-		// Compression
+	// Find longest known suffix.
 
-				if ( topIdx != lastIdx ) {
-					packetLen += 2;
-				}
-			}
-			else {
-
-		// No compression
-
-				for(int i=subBuilds, l; i<labels.size(); i++) {			// labels.size()
-					l = ((String)labels.get(i)).length();
-					packetLen += (1 + l);
-					if ( ( i != ( labels.size() - 1 ) ) && ( l == 0 ) ) {
-						throw new DNSNameException("Invalid domain name.");
-					}
-					else if ( ( i == ( labels.size() - 1 ) ) && ( l != 0 ) ) {
-						throw new DNSNameException("Invalid internal state.");
-					}
-				}
+		lastIdx = labels;
+		lastId = DNSNameTable.ROOT;
+		while ( lastIdx > 0 ) {
+			currId = table.lookup(lastId, name, labelStarts[lastIdx - 1], labelLens[lastIdx - 1]);
+			if ( currId == -1 ) {
+				break;
 			}
+			lastId = currId;
+			lastIdx--;
+		}
 
-		// Valid Length?
+	// Uncompressed part.
 
-			if ( packetLen == 0 ) {
-				throw new DNSNameException("Invalid internal state.");
+		encLen = 0;
+		for(int i=0; i<lastIdx; i++) {
+			labelOffsets[i] = globalIdx + encLen;
+			encLen += 1 + labelLens[i];
+			if ( dst != null ) {
+				putLabel(dst, name, labelStarts[i], labelLens[i]);
 			}
+		}
 
-		// Build packet.
-
-			insertList = new ArrayList();
-
-			packetData = new byte[packetLen];
-			idx = 0;
+	// Compress possible trailing part?
 
-			for(int i=0; i<subBuilds; i++) {
-				tmpStr = (String)labels.get(i);
-				if ( i < topIdx ) {
-					tmpNode = new Node(globalIdx, tmpStr);
-					insertList.add(0, tmpNode);
-				}
-				packetData[idx++] = (byte)tmpStr.length();
-				globalIdx++;
-				for(int j=0; j<tmpStr.length(); j++) {
-					packetData[idx++] = (byte)tmpStr.charAt(j);
-					globalIdx++;
+		if ( useComp && (lastIdx < labels) ) {
+			encLen += 2;
+			if ( dst != null ) {
+				compIdx = (3 << 14) | table.getOffset(lastId);
+				dst.putShort((short)compIdx);
+				if ( listener != null ) {
+					listener.compressionHit(globalIdx, name, table.getOffset(lastId));
 				}
 			}
-
-		// Compress possible trailing part?
-
-			if ( useComp ) {
-
-		// Compression
-
-				if ( topIdx != lastIdx ) {
-					compIdx = (3 << 14) | lastNode.getIdx();
-					packetData[idx++] = (byte)(compIdx >> 8);
-					packetData[idx++] = (byte)(compIdx & 255);
+		}
+		else {
+			for(int i=lastIdx; i<labels; i++) {
+				encLen += 1 + labelLens[i];
+				if ( dst != null ) {
+					putLabel(dst, name, labelStarts[i], labelLens[i]);
 				}
 			}
-			else {
-
-		// No compression
-
-				for(int i=subBuilds; i<labels.size(); i++) {
-					tmpStr = (String)labels.get(i);
-					packetData[idx++] = (byte)tmpStr.length();
-					for(int j=0; j<tmpStr.length(); j++) {
-						packetData[idx++] = (byte)tmpStr.charAt(j);
-					}
+			encLen++;
+			if ( dst != null ) {
+				dst.put((byte)0);
+				if ( listener != null ) {
+					listener.compressionMiss(globalIdx, name);
 				}
 			}
+		}
 
-		// Update compression HashMaps?
-
-			if ( updComp ) {
-				currNode = lastNode;
-				if ( currNode == null ) {
-					currNode = rootNode;
-					//System.out.println("currNode = rootNode");
-				}
+	// Update compression table?
 
-				for(int i=0; i<insertList.size(); i++) {
-					tmpNode = (Node)insertList.get(i);
-					//System.out.println("comprUpdate: " + tmpNode.getName() + "(" + tmpNode.getIdx() + ")");
-					currNode.put(tmpNode.getName(), tmpNode);
-					currNode = tmpNode;
+		if ( updComp ) {
+			currId = lastId;
+			for(int i=lastIdx - 1; i>=0; i--) {
+				if ( labelOffsets[i] > DNSNameTable.MAX_OFFSET ) {
+					break;
 				}
+				currId = table.insert(currId, name, labelStarts[i], labelLens[i], labelOffsets[i]);
 			}
 		}
 
@@ -342,7 +479,21 @@ public class DNSName {
 			System.out.println("<- DNSName.buildPacket()");
 		}
 
-		return packetData;
+		return encLen;
+	}
+
+	/**
+	 * Write a length-prefixed label.
+	 * @param dst buffer the label is written into.
+	 * @param name domain name.
+	 * @param start label start index.
+	 * @param len label length.
+	 */
+	private static void putLabel(ByteBuffer dst, String name, int start, int len) {
+		dst.put((byte)len);
+		for(int j=0; j<len; j++) {
+			dst.put((byte)name.charAt(start + j));
+		}
 	}
 
 	/**
@@ -356,6 +507,11 @@ public class DNSName {
 
 	/**
 	 * Parses the name part of a packet and returns a string.
+	 * Within a message scope, begun by the message decoders, names and suffixes reached through
+	 * compression pointers are memoized by wire offset, so each is only decoded once per message.
+	 * Names decoded outside a message scope are always decoded in full.
+	 * The name is decoded iteratively, every index is checked against the packet length,
+	 * the expanded name may not exceed 255 bytes and at most 128 pointers are followed.
 	 * @param pDat array containing the complete packet.
 	 * @param pIdx index to where in the array the name begins.
 	 * @param pLen length of the whole packet.
@@ -365,191 +521,186 @@ public class DNSName {
 	 * @see #getDisassembledLen()
 	 */
 	public String disassemblePacket(byte[] pDat, int pIdx, int pLen) throws DNSException, DNSNameException {
-		StringBuffer name = new StringBuffer(256);
-		disLen = 0;
+		String tmpStr;
+		String suffix;
+		int sIdx;
+		int fIdx;
+		int elen;
+		int ptrIdx;
+		int wireLen;
+		int hops;
+		int targets;
+		int nLen;
+		boolean b;
 
 		if ( debug ) {
 			System.out.println("-> DNSName.disassemblePacket() - idx=" + pIdx);
 		}
 
-		disassemblePointer(name, pDat, pIdx, pLen, 0);
-
-		if ( debug ) {
-			System.out.println("    name: " + name.toString());
-			System.out.println("<- DNSName.disassemblePacket() - Len=" + disLen);
+		if ( (pIdx < 0) || (pIdx >= pLen) || (pLen > pDat.length) ) {
+			throw new DNSException("IndexOutOfBounds.");
 		}
 
-		return name.toString();
-	}
+		memoActive = (memoDat == pDat) && (memoLen == pLen);
+
+		sIdx = pIdx;
+		fIdx = pIdx;
+		wireLen = 0;
+		hops = 0;
+		targets = 0;
+		nLen = 0;
+		disLen = -1;
+		b = true;
+		while ( b ) {
+			if ( pIdx >= pLen ) {
+				throw new DNSException("IndexOutOfBounds.");
+			}
+			elen = pDat[pIdx++] & 255;
+			if ( elen == 0 ) {
 
-	/**
-	 * Recursively disassembles part of a name from a pointer.
-	 * @param name domain name buffer passed as reference.
-	 * @param pDat array containing the complete packet.
-	 * @param pIdx index to where in the array the name begins.
-	 * @param pLen length of the whole packet.
-	 * @param level used internally to calculate the lenght of the current subdomain not including pointers.
-	 * @return domain name in string form.
-	 * @throws DNSException if the packet is corrupted.
-	 * @throws DNSNameException if the domain name is invalid.
-	 * @see #disassembleName(byte[], int, int)
-	 */
-	private void disassemblePointer(StringBuffer name, byte[] pDat, int pIdx, int pLen, int level) throws DNSException, DNSNameException {
-		if ( pIdx > pLen ) {
-			throw new DNSException("IndexOutOfBounds.");
-		}
+			// Root
 
-		try {
-			int fIdx;
-			int elems;
-			int elen;
-			int ptrIdx;
-			char c;
-			boolean b;
-
-			fIdx = pIdx;
-			elems = 0;
-			b = true;
-			while ( b ) {
-				elen = (int)(pDat[pIdx++]&255);
-				if ( level == 0 ) {
-					disLen++;
+				if ( nLen == 0 ) {
+					nameBuf[nLen++] = '.';
 				}
-				if ( elen == 0 ) {
-					name.append(".");
-					b = false;
+				b = false;
+			}
+			else if ( (elen & 0xC0) == 0 ) {
+
+			// Label
+
+				wireLen += 1 + elen;
+				if ( wireLen + 1 > MAX_NAME_LEN ) {
+					throw new DNSNameException("Name too long.");
 				}
-				else if ( ((elen >> 6) & 3) == 0 ) {
-					if ( elems != 0) {
-						name.append(".");
-					}
-					for(int i=0; i<elen; i++) {
-						c = (char)(pDat[pIdx++]&255);
-						if ( level == 0 ) {
-							disLen++;
-						}
-						name.append(c);
-					}
-					elems++;
+				if ( pIdx + elen > pLen ) {
+					throw new DNSException("IndexOutOfBounds.");
 				}
-				else if ( ((elen >> 6) & 3) == 3 ) {
-					ptrIdx = ( (elen & 63) << 8) | (pDat[pIdx++]&255);
-					if ( level == 0 ) {
-						disLen++;
-					}
-					if ( ptrIdx < fIdx ) {
-						if ( elems != 0) {
-							name.append(".");
+				for(int i=0; i<elen; i++) {
+					nameBuf[nLen++] = (char)(pDat[pIdx++] & 255);
+				}
+				nameBuf[nLen++] = '.';
+			}
+			else if ( (elen & 0xC0) == 0xC0 ) {
+
+			// Pointer
+
+				if ( pIdx >= pLen ) {
+					throw new DNSException("IndexOutOfBounds.");
+				}
+				ptrIdx = ((elen & 63) << 8) | (pDat[pIdx++] & 255);
+				if ( disLen == -1 ) {
+					disLen = pIdx - sIdx;
+				}
+				if ( ptrIdx >= fIdx ) {
+					throw new DNSException("IndexOutOfBounds.");
+				}
+				if ( ++hops > MAX_POINTER_HOPS ) {
+					throw new DNSNameException("Too many compression pointers.");
+				}
+				suffix = getMemo(ptrIdx);
+				if ( suffix != null ) {
+					if ( suffix.length() > 1 ) {
+						if ( wireLen + suffix.length() + 1 > MAX_NAME_LEN ) {
+							throw new DNSNameException("Name too long.");
 						}
-						disassemblePointer(name, pDat, ptrIdx, pLen, ++level);
+						suffix.getChars(0, suffix.length(), nameBuf, nLen);
+						nLen += suffix.length();
 					}
-					else {
-						throw new DNSException("IndexOutOfBounds.");
+					else if ( nLen == 0 ) {
+						nameBuf[nLen++] = '.';
 					}
 					b = false;
 				}
 				else {
-					throw new DNSNameException("Invalid encoding.");
+					memoTargets[targets] = ptrIdx;
+					memoMarks[targets++] = nLen;
+					pIdx = ptrIdx;
+					fIdx = ptrIdx;
 				}
 			}
+			else {
+				throw new DNSNameException("Invalid encoding.");
+			}
 		}
-		catch(IndexOutOfBoundsException e) {
-			throw new DNSException("IndexOutOfBoundsException.");
-		}
-	}
 
-	/**
-	 * Display the hashmap tree structure used for name compression, for debugging purposes only.
-	 */
-	public void printTree() {
-		Iterator iter = rootNode.iterator();
-		Node tmpNode;
-		while ( iter.hasNext() ) {
-			tmpNode = (Node)iter.next();
-			System.out.println( tmpNode.getName() );
-			printLevel(tmpNode, " ");
+		if ( disLen == -1 ) {
+			disLen = pIdx - sIdx;
 		}
-	}
 
-	/**
-	 * Displays one tree level.
-	 * @param node tree node to process.
-	 * @param post indentation string.
-	 * @see #printTree()
-	 */
-	private void printLevel(Node node, String post) {
-		Iterator iter = node.iterator();
-		Node tmpNode;
-		while ( iter.hasNext() ) {
-			tmpNode = (Node)iter.next();
-			System.out.println( post + tmpNode.getName() );
-			printLevel(tmpNode, post + " ");
+	// Memoize pointer targets.
+
+		for(int i=0; i<targets; i++) {
+			if ( memoMarks[i] < nLen ) {
+				putMemo(memoTargets[i], cachedName(memoMarks[i], nLen - memoMarks[i]));
+			}
+			else {
+				putMemo(memoTargets[i], ".");
+			}
 		}
-	}
 
-	/**
-	 * Inner class to contain the domainname label tree, used for name compression.
-	 */
-	class Node {
+		tmpStr = cachedName(0, nLen);
+		putMemo(sIdx, tmpStr);
 
-		/** Packet index. */
-		int idx;
-		/** Labels. */
-		String name;
-		/** Sub labels. */
-		HashMap subMap;
-
-		/**
-		 * Construct a Node object.
-		 * @param idx packet index.
-		 * @param name labels.
-		 */
-		Node(int idx, String name) {
-			this.idx = idx;
-			this.name = name;
-			subMap = new HashMap();
+		if ( listener != null ) {
+			listener.nameDecoded(sIdx, tmpStr);
 		}
 
-		/**
-		 * Returns the sub labels via an iterator.
-		 * @return collection iterator.
-		 */
-		Iterator iterator() {
-			return subMap.values().iterator();
+		if ( debug ) {
+			System.out.println("    name: " + tmpStr);
+			System.out.println("<- DNSName.disassemblePacket() - Len=" + disLen);
 		}
 
-		/**
-		 * Update (key, item) pair.
-		 * @param key hashmap key.
-		 * @param item hashmap item.
-		 */
-		void put(Object key, Object item) {
-			subMap.put(key, item);
-		}
+		return tmpStr;
+	}
 
-		/**
-		 * Returns the item associated with the supplied key.
-		 * @param key hashmap key.
-		 * @return associated item.
-		 */
-		Object get(Object key) {
-			return subMap.get(key);
+	/**
+	 * Returns a string of decoded name characters, reusing an equal string decoded earlier if enabled.
+	 * Names repeat heavily between messages, so this avoids most string allocation in steady state.
+	 * @param off start index in the name buffer.
+	 * @param len number of characters.
+	 * @return name string.
+	 */
+	private String cachedName(int off, int len) {
+		String tmpStr;
+		int h = len;
+		int idx;
+		if ( nameCache == null ) {
+			return new String(nameBuf, off, len);
 		}
-
-		/**
-		 * Returns packet index.
-		 * @return packet index.
-		 */
-		int getIdx() {
-			return idx;
+		for(int i=0; i<len; i++) {
+			h = 31 * h + nameBuf[off + i];
 		}
+		idx = (h ^ (h >>> 16)) & (NAME_CACHE_SIZE - 1);
+		tmpStr = nameCache[idx];
+		if ( (tmpStr != null) && (tmpStr.length() == len) ) {
+			int i = 0;
+			while ( (i < len) && (tmpStr.charAt(i) == nameBuf[off + i]) ) {
+				i++;
+			}
+			if ( i == len ) {
+				return tmpStr;
+			}
+		}
+		tmpStr = new String(nameBuf, off, len);
+		nameCache[idx] = tmpStr;
+		return tmpStr;
+	}
 
-		/**
-		 * Returns the label.
-		 * @return label.
-		 */
-		String getName() {
-			return name;
+	/**
+	 * Display the suffix table used for name compression, for debugging purposes only.
+	 */
+	public void printTree() {
+		String post;
+		int id;
+		for(int i=0; i<table.size(); i++) {
+			post = "";
+			id = i;
+			while ( id != DNSNameTable.ROOT ) {
+				post += table.getLabel(id) + ".";
+				id = table.getParent(id);
+			}
+			System.out.println( table.getOffset(i) + ": " + post );
 		}
 	}
 
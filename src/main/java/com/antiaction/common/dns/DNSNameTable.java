@@ -0,0 +1,320 @@
+/*
+ * DNS Name compression table, flat label suffix dictionary used for name compression.
+ * Copyright (C) 2026  Nicholas Clarke
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+
+/*
+ * History:
+ *
+ * 16-Oct-2026 : First implementation, replaces the HashMap label tree.
+ *             : Added truncate, entries can be removed in reverse order of insertion.
+ *
+ */
+
+package com.antiaction.common.dns;
+
+/**
+ * DNS Name compression table, flat label suffix dictionary used for name compression.
+ * Each entry represents a name suffix, identified by its leftmost label and the
+ * entry of the suffix following it, and maps it to the packet index where it was written.
+ * Entries are kept in primitive arrays and looked up through an open addressing hash table.
+ * Labels are compared case-insensitively as allowed by rfc1035.
+ * Clearing the table is O(1), a generation counter invalidates all hash slots at once.
+ *
+ * @version 2.00
+ * @author Nicholas Clarke <nclarke@diku.dk>
+ */
+class DNSNameTable {
+
+	/** Parent id used for suffixes without a parent, ie. top level labels. */
+	static final int ROOT = -1;
+
+	/** Largest packet index a compression pointer can address. */
+	static final int MAX_OFFSET = 0x3FFF;
+
+	/** Initial number of hash slots, must be a power of two. */
+	private static final int INITIAL_SLOTS = 64;
+
+	/** Hash slots containing entry id + 1. */
+	private int[] slots;
+	/** Generation each hash slot was last written in. */
+	private int[] slotGen;
+	/** Hash slot mask. */
+	private int mask;
+	/** Current generation. */
+	private int gen;
+
+	/** Number of entries. */
+	private int count;
+	/** Parent entry id per entry. */
+	private int[] parent;
+	/** Packet index per entry. */
+	private int[] offset;
+	/** Hash value per entry. */
+	private int[] hash;
+	/** Label start in the label pool per entry. */
+	private int[] labelIdx;
+	/** Label length per entry. */
+	private int[] labelLen;
+	/** Hash slot per entry. */
+	private int[] slotOf;
+
+	/** Lower-cased label characters of all entries. */
+	private char[] pool;
+	/** Used part of the label pool. */
+	private int poolLen;
+
+	/**
+	 * Construct an empty table.
+	 */
+	DNSNameTable() {
+		slots = new int[INITIAL_SLOTS];
+		slotGen = new int[INITIAL_SLOTS];
+		mask = INITIAL_SLOTS - 1;
+		gen = 1;
+		count = 0;
+		parent = new int[INITIAL_SLOTS / 2];
+		offset = new int[INITIAL_SLOTS / 2];
+		hash = new int[INITIAL_SLOTS / 2];
+		labelIdx = new int[INITIAL_SLOTS / 2];
+		labelLen = new int[INITIAL_SLOTS / 2];
+		slotOf = new int[INITIAL_SLOTS / 2];
+		pool = new char[256];
+		poolLen = 0;
+	}
+
+	/**
+	 * Remove all entries.
+	 */
+	void clear() {
+		count = 0;
+		poolLen = 0;
+		if ( ++gen == 0 ) {
+			for(int i=0; i<slotGen.length; i++) {
+				slotGen[i] = 0;
+			}
+			gen = 1;
+		}
+	}
+
+	/**
+	 * Remove the most recently inserted entries, keeping the first <CODE>n</CODE>.
+	 * An entry only ever probes past slots of entries inserted before it, so freeing
+	 * the slots of the newest entries first never breaks the probe sequence of another entry.
+	 * @param n number of entries to keep.
+	 */
+	void truncate(int n) {
+		if ( (n < 0) || (n >= count) ) {
+			return;
+		}
+		for(int id=count - 1; id>=n; id--) {
+			slotGen[slotOf[id]] = 0;
+		}
+		poolLen = labelIdx[n];
+		count = n;
+	}
+
+	/**
+	 * Returns the number of entries.
+	 * @return number of entries.
+	 */
+	int size() {
+		return count;
+	}
+
+	/**
+	 * ASCII lower-case a character.
+	 * @param c character.
+	 * @return lower-cased character.
+	 */
+	static char lower(char c) {
+		if ( (c >= 'A') && (c <= 'Z') ) {
+			return (char)(c + ('a' - 'A'));
+		}
+		return c;
+	}
+
+	/**
+	 * Compute the hash of a suffix.
+	 * @param parentId parent entry id.
+	 * @param src string containing the label.
+	 * @param start label start index.
+	 * @param len label length.
+	 * @return hash value.
+	 */
+	static int hash(int parentId, String src, int start, int len) {
+		int h = (parentId + 1) * 0x9E3779B1;
+		for(int i=0; i<len; i++) {
+			h = 31 * h + lower(src.charAt(start + i));
+		}
+		return h ^ (h >>> 16);
+	}
+
+	/**
+	 * Lookup the suffix consisting of a label followed by the parent suffix.
+	 * @param parentId parent entry id or <CODE>ROOT</CODE>.
+	 * @param src string containing the label.
+	 * @param start label start index.
+	 * @param len label length.
+	 * @return entry id or -1 if not found.
+	 */
+	int lookup(int parentId, String src, int start, int len) {
+		int h = hash(parentId, src, start, len);
+		int i = h & mask;
+		int id;
+		while ( slotGen[i] == gen ) {
+			id = slots[i] - 1;
+			if ( (hash[id] == h) && (parent[id] == parentId) && labelEquals(id, src, start, len) ) {
+				return id;
+			}
+			i = (i + 1) & mask;
+		}
+		return -1;
+	}
+
+	/**
+	 * Compare the label of an entry with a label, ignoring case.
+	 * @param id entry id.
+	 * @param src string containing the label.
+	 * @param start label start index.
+	 * @param len label length.
+	 * @return true if the labels are equal.
+	 */
+	private boolean labelEquals(int id, String src, int start, int len) {
+		int idx;
+		if ( labelLen[id] != len ) {
+			return false;
+		}
+		idx = labelIdx[id];
+		for(int i=0; i<len; i++) {
+			if ( pool[idx + i] != lower(src.charAt(start + i)) ) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Insert the suffix consisting of a label followed by the parent suffix.
+	 * The suffix must not already be present.
+	 * @param parentId parent entry id or <CODE>ROOT</CODE>.
+	 * @param src string containing the label.
+	 * @param start label start index.
+	 * @param len label length.
+	 * @param idx packet index where the suffix begins.
+	 * @return entry id.
+	 */
+	int insert(int parentId, String src, int start, int len, int idx) {
+		int h;
+		int id;
+		if ( (count + 1) * 2 > slots.length ) {
+			grow();
+		}
+		if ( poolLen + len > pool.length ) {
+			char[] tmpPool = new char[Math.max(pool.length * 2, poolLen + len)];
+			System.arraycopy(pool, 0, tmpPool, 0, poolLen);
+			pool = tmpPool;
+		}
+		h = hash(parentId, src, start, len);
+		id = count++;
+		parent[id] = parentId;
+		offset[id] = idx;
+		hash[id] = h;
+		labelIdx[id] = poolLen;
+		labelLen[id] = len;
+		for(int i=0; i<len; i++) {
+			pool[poolLen++] = lower(src.charAt(start + i));
+		}
+		place(id);
+		return id;
+	}
+
+	/**
+	 * Place an entry in the first free hash slot.
+	 * @param id entry id.
+	 */
+	private void place(int id) {
+		int i = hash[id] & mask;
+		while ( slotGen[i] == gen ) {
+			i = (i + 1) & mask;
+		}
+		slots[i] = id + 1;
+		slotGen[i] = gen;
+		slotOf[id] = i;
+	}
+
+	/**
+	 * Double the number of hash slots and entries and rehash all entries.
+	 */
+	private void grow() {
+		int n = slots.length * 2;
+		slots = new int[n];
+		slotGen = new int[n];
+		mask = n - 1;
+		gen = 1;
+		parent = copyOf(parent, n / 2);
+		offset = copyOf(offset, n / 2);
+		hash = copyOf(hash, n / 2);
+		labelIdx = copyOf(labelIdx, n / 2);
+		labelLen = copyOf(labelLen, n / 2);
+		slotOf = copyOf(slotOf, n / 2);
+		for(int id=0; id<count; id++) {
+			place(id);
+		}
+	}
+
+	/**
+	 * Copy an array into a new larger array.
+	 * @param arr array.
+	 * @param n new length.
+	 * @return new array.
+	 */
+	private static int[] copyOf(int[] arr, int n) {
+		int[] tmpArr = new int[n];
+		System.arraycopy(arr, 0, tmpArr, 0, arr.length);
+		return tmpArr;
+	}
+
+	/**
+	 * Returns the packet index of an entry.
+	 * @param id entry id.
+	 * @return packet index.
+	 */
+	int getOffset(int id) {
+		return offset[id];
+	}
+
+	/**
+	 * Returns the parent entry id of an entry.
+	 * @param id entry id.
+	 * @return parent entry id or <CODE>ROOT</CODE>.
+	 */
+	int getParent(int id) {
+		return parent[id];
+	}
+
+	/**
+	 * Returns the lower-cased label of an entry.
+	 * @param id entry id.
+	 * @return label.
+	 */
+	String getLabel(int id) {
+		return new String(pool, labelIdx[id], labelLen[id]);
+	}
+
+}
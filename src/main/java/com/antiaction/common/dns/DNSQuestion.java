@@ -33,11 +33,16 @@
  *             : Expanded debug info.
  * 08-Oct-2001 : Cloneable.
  * 18-Nov-2001 : Javadoc fix.
+ * 16-Oct-2026 : Added ByteBuffer buildPacket method.
+ *             : Added encodedLength method.
+ *             : Debug flag is no longer pushed to the shared name object.
  *
  */
 
 package com.antiaction.common.dns;
 
+import java.nio.ByteBuffer;
+
 /**
  * DNS Question, dis/assembles question portions of a DNS packet.
  * As defined in rfc1035.
@@ -112,7 +117,6 @@ public class DNSQuestion implements Cloneable {
 
 	// QName
 
-		dnsname.setDebug(debug);
 		dnsnamepkt = dnsname.buildPacket(globalIdx, qname, true, true);
 
 		packetLen = dnsnamepkt.length;
@@ -137,6 +141,57 @@ public class DNSQuestion implements Cloneable {
 		return packetData;
 	}
 
+	/**
+	 * Build the question based on the internal state directly into a buffer.
+	 * @param dnsname used for domain name compression in the same message.
+	 * @param dst buffer the question is written into, starting at its current position.
+	 * @param base index in the buffer where the message begins. (Domain name compression)
+	 * @return number of bytes written.
+	 * @throws DNSNameException if the domain name is invalid.
+	 * @throws java.nio.BufferOverflowException if the buffer is too small.
+	 */
+	public int buildPacket(DNSName dnsname, ByteBuffer dst, int base) throws DNSNameException {
+		int sIdx;
+
+		if ( debug ) {
+			System.out.println("-> DNSQuestion.buildPacket(ByteBuffer)");
+			System.out.println("    qname: " + qname);
+			System.out.println("    qtype: " + DNSQType.toString(qtype));
+			System.out.println("    qclass: " + DNSQClass.toString(qclass));
+		}
+
+		sIdx = dst.position();
+
+	// QName
+
+		dnsname.buildPacket(dst, base, qname, true, true);
+
+	// QType
+
+		dst.putShort((short)qtype);
+
+	// QClass
+
+		dst.putShort((short)qclass);
+
+		if ( debug ) {
+			System.out.println("<- DNSQuestion.buildPacket(ByteBuffer)");
+		}
+
+		return dst.position() - sIdx;
+	}
+
+	/**
+	 * Returns the number of bytes the question would be encoded into, without writing anything.
+	 * @param dnsname used for domain name compression in the same message.
+	 * @param globalIdx index in the message where the question would be written. (Domain name compression)
+	 * @return encoded length of the question.
+	 * @throws DNSNameException if the domain name is invalid.
+	 */
+	public int encodedLength(DNSName dnsname, int globalIdx) throws DNSNameException {
+		return dnsname.encodedLength(globalIdx, qname, true, true) + 4;
+	}
+
 	/**
 	 * Returns the length of the previously disassembled question.
 	 * @return length of previously disassembled question.
@@ -164,7 +219,6 @@ public class DNSQuestion implements Cloneable {
 
 	// QName
 
-		dnsname.setDebug(debug);
 		qname = dnsname.disassemblePacket(pDat, pIdx, pLen);
 		disLen = dnsname.getDisassembledLen();
 		pIdx += disLen;
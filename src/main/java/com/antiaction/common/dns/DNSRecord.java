@@ -26,6 +26,9 @@
  *             : Javadoc.
  * 09-Oct-2001 : Cloneable.
  * 04-Mar-2005 : Fixed javadoc.
+ * 16-Oct-2026 : Clone-free read-only accessors.
+ *             : Decoders wrap their objects without copying.
+ *             : setDebug tolerates a record without rdata.
  *
  */
 
@@ -50,12 +53,33 @@ public class DNSRecord implements Cloneable {
 
 	/**
 	 * Instantiate and initialize a dns record.
+	 * The record holds copies of the supplied header and data objects.
 	 */
 	public DNSRecord(DNSRecordHeader header, DNSRDataInterface rdata) {
 		dnsrecordheader = (DNSRecordHeader)header.clone();
 		dnsrdata = (DNSRDataInterface)rdata.clone();
 	}
 
+	/**
+	 * Instantiate an empty dns record, the objects are set by <CODE>wrap</CODE>.
+	 */
+	private DNSRecord() {
+	}
+
+	/**
+	 * Returns a dns record which takes ownership of the supplied header and data objects.
+	 * Used by the decoders where the objects are freshly created and need not be copied.
+	 * @param header record header object.
+	 * @param rdata record data object.
+	 * @return dns record holding the objects themselves.
+	 */
+	static DNSRecord wrap(DNSRecordHeader header, DNSRDataInterface rdata) {
+		DNSRecord obj = new DNSRecord();
+		obj.dnsrecordheader = header;
+		obj.dnsrdata = rdata;
+		return obj;
+	}
+
 	/**
 	 * Overrides Cloneable.
 	 * @return a clone of this instance.
@@ -73,7 +97,9 @@ public class DNSRecord implements Cloneable {
 	 */
 	public void setDebug(boolean debug) {
 		dnsrecordheader.setDebug(debug);
-		dnsrdata.setDebug(debug);
+		if ( dnsrdata != null ) {
+			dnsrdata.setDebug(debug);
+		}
 	}
 
 	/**
@@ -92,6 +118,58 @@ public class DNSRecord implements Cloneable {
 		return (DNSRDataInterface)dnsrdata.clone();
 	}
 
+	/**
+	 * Get the record header object without copying it.
+	 * The object is shared with this record and must be treated as read-only.
+	 * @return shared record header object.
+	 */
+	public DNSRecordHeader getHeaderView() {
+		return dnsrecordheader;
+	}
+
+	/**
+	 * Get the rdata object without copying it.
+	 * The object is shared with this record and must be treated as read-only.
+	 * @return shared rdata object.
+	 */
+	public DNSRDataInterface getRDataView() {
+		return dnsrdata;
+	}
+
+	/**
+	 * Get the record name.
+	 * @return domain name.
+	 */
+	public String getRName() {
+		return dnsrecordheader.getRName();
+	}
+
+	/**
+	 * Get the record type.
+	 * @return record type.
+	 * @see com.antiaction.common.dns.DNSType
+	 */
+	public int getRType() {
+		return dnsrecordheader.getRType();
+	}
+
+	/**
+	 * Get the record class.
+	 * @return record class.
+	 * @see com.antiaction.common.dns.DNSClass
+	 */
+	public int getRClass() {
+		return dnsrecordheader.getRClass();
+	}
+
+	/**
+	 * Get the record ttl.
+	 * @return record ttl.
+	 */
+	public int getRTTL() {
+		return dnsrecordheader.getRTTL();
+	}
+
 	/**
 	 * Returns a string representation of the internal state, mostly for debugging purposes.
 	 * @return debug string.
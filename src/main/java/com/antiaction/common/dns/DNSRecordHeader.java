@@ -35,11 +35,15 @@
  *             : Expanded debug info.
  * 09-Oct-2001 : Cloneable.
  * 18-Nov-2001 : Javadoc fix.
+ * 16-Oct-2026 : Added ByteBuffer buildPacket method.
+ *             : Added encodedLength method.
+ *             : Debug flag is no longer pushed to the shared name object.
  *
  */
 
 package com.antiaction.common.dns;
 
+import java.nio.ByteBuffer;
 
 /**
  * DNS Record Header, contains the header portion of a resource record.
@@ -120,7 +124,6 @@ public class DNSRecordHeader implements Cloneable {
 
 	// RName
 
-		dnsname.setDebug(debug);
 		dnsnamepkt = dnsname.buildPacket(globalIdx, rname, true, true);
 
 		packetLen = dnsnamepkt.length;
@@ -152,6 +155,62 @@ public class DNSRecordHeader implements Cloneable {
 		return packetData;
 	}
 
+	/**
+	 * Build the record header based on the internal state directly into a buffer.
+	 * @param dnsname used for domain name compression in the same message.
+	 * @param dst buffer the record header is written into, starting at its current position.
+	 * @param base index in the buffer where the message begins. (Domain name compression)
+	 * @return number of bytes written.
+	 * @throws DNSNameException if the domain name is invalid.
+	 * @throws java.nio.BufferOverflowException if the buffer is too small.
+	 */
+	public int buildPacket(DNSName dnsname, ByteBuffer dst, int base) throws DNSNameException {
+		int sIdx;
+
+		if ( debug ) {
+			System.out.println("-> DNSRecordHeader.buildPacket(ByteBuffer)");
+			System.out.println("    rname: " + rname);
+			System.out.println("    rtype: " + DNSType.toString(rtype));
+			System.out.println("    rclass: " + DNSClass.toString(rclass));
+			System.out.println("    rttl: " + rttl);
+		}
+
+		sIdx = dst.position();
+
+	// RName
+
+		dnsname.buildPacket(dst, base, rname, true, true);
+
+	// RType
+
+		dst.putShort((short)rtype);
+
+	// RClass
+
+		dst.putShort((short)rclass);
+
+	// RTTL
+
+		dst.putInt(rttl);
+
+		if ( debug ) {
+			System.out.println("<- DNSRecordHeader.buildPacket(ByteBuffer)");
+		}
+
+		return dst.position() - sIdx;
+	}
+
+	/**
+	 * Returns the number of bytes the record header would be encoded into, without writing anything.
+	 * @param dnsname used for domain name compression in the same message.
+	 * @param globalIdx index in the message where the record header would be written. (Domain name compression)
+	 * @return encoded length of the record header.
+	 * @throws DNSNameException if the domain name is invalid.
+	 */
+	public int encodedLength(DNSName dnsname, int globalIdx) throws DNSNameException {
+		return dnsname.encodedLength(globalIdx, rname, true, true) + 8;
+	}
+
 	/**
 	 * Returns the length of the previously disassembled record header.
 	 * @return length of previously disassembled record header.
@@ -179,7 +238,6 @@ public class DNSRecordHeader implements Cloneable {
 
 	// RName
 
-		dnsname.setDebug(debug);
 		rname = dnsname.disassemblePacket(pDat, pIdx, pLen);
 		disLen = dnsname.getDisassembledLen();
 		pIdx += disLen;
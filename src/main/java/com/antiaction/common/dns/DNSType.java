@@ -26,11 +26,16 @@
  *             : Renamed.
  * 11-Aug-2001 : Added generic type.
  * 08-Oct-2001 : Moved QType constants to separate class.
+ * 16-Oct-2026 : Validity and descriptions are looked up in DNSRDataRegistry.
+ *             : Added OPT pseudo record type.
+ *             : Added AAAA record type.
  *
  */
 
 package com.antiaction.common.dns;
 
+import com.antiaction.common.dns.record.DNSRDataRegistry;
+
 /**
  * DNS Type, defines the various record type constants.
  * As defined in rfc1035.
@@ -72,6 +77,10 @@ public class DNSType {
 	public static final int MX = 15;		// MX    Mail Exchange
 	/** Text Strings. */
 	public static final int TXT = 16;		// TXT   Text Strings
+	/** IPv6 HostAddress, rfc3596. */
+	public static final int AAAA = 28;		// AAAA  IPv6 HostAddress
+	/** EDNS option pseudo record, rfc6891. */
+	public static final int OPT = 41;		// OPT   EDNS option pseudo record
 
 	/** Used internally to represent unsupported record types. */
 	public static final int GENERIC = 65535;// Internal
@@ -84,32 +93,13 @@ public class DNSType {
 
 	/**
 	 * Given a record type returns a boolean indicating validity.
+	 * A record type is valid if it is registered with <CODE>DNSRDataRegistry</CODE>.
 	 * @param i record type.
 	 * @return record type validity.
 	 * @see #toString(int)
 	 */
 	public static boolean validType(int i) {
-		switch ( i ) {
-			case A:
-			case NS:
-			case MD:
-			case MF:
-			case CNAME:
-			case SOA:
-			case MB:
-			case MG:
-			case MR:
-			case NULL:
-			case WKS:
-			case PTR:
-			case HINFO:
-			case MINFO:
-			case MX:
-			case TXT:
-				return true;
-			default:
-				return false;
-		}
+		return DNSRDataRegistry.isRegistered(i);
 	}
 
 	/**
@@ -119,59 +109,9 @@ public class DNSType {
 	 * @see #validType(int)
 	 */
 	public static String toString(int i) {
-		String tmpstr = null;
-		switch ( i ) {
-			case A:
-				tmpstr = "A - HostAddress";
-				break;
-			case NS:
-				tmpstr = "NS - Authoritative name server";
-				break;
-			case MD:
-				tmpstr = "MD - MailDestination, obsolete, use Mail Exchange";
-				break;
-			case MF:
-				tmpstr = "MF - MailForwarder, obsolete, use Mail Exchange";
-				break;
-			case CNAME:
-				tmpstr = "CNAME - CanonicalName";
-				break;
-			case SOA:
-				tmpstr = "SOA - Start of a Zone of Authority";
-				break;
-			case MB:
-				tmpstr = "MB - MailBox, experimental";
-				break;
-			case MG:
-				tmpstr = "MG - MailGroup, experimental";
-				break;
-			case MR:
-				tmpstr = "MR - MailRename, experimental";
-				break;
-			case NULL:
-				tmpstr = "NULL - Experimental";
-				break;
-			case WKS:
-				tmpstr = "WKS - Well Known Service Description";
-				break;
-			case PTR:
-				tmpstr = "PTR - Domain Name Pointer";
-				break;
-			case HINFO:
-				tmpstr = "HINFO - Host Information";
-				break;
-			case MINFO:
-				tmpstr = "MINFO - Mailbox information";
-				break;
-			case MX:
-				tmpstr = "MX - Mail Exchange";
-				break;
-			case TXT:
-				tmpstr = "TXT - Text Strings";
-				break;
-			default:
-				tmpstr = "Unknown";
-				break;
+		String tmpstr = DNSRDataRegistry.getDescription(i);
+		if ( tmpstr == null ) {
+			tmpstr = "Unknown";
 		}
 		return tmpstr;
 	}
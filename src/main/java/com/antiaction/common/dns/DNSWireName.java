@@ -0,0 +1,383 @@
+/*
+ * DNS Wire name, case-insensitive comparison and hashing of names in wire format.
+ * Copyright (C) 2026  Nicholas Clarke
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+
+/*
+ * History:
+ *
+ * 16-Oct-2026 : First implementation.
+ *
+ */
+
+package com.antiaction.common.dns;
+
+/**
+ * DNS Wire name, case-insensitive comparison and hashing of names in wire format.
+ * A name is held as its uncompressed sequence of length-prefixed labels, including
+ * the terminating root label. Comparison and hashing work on 8 bytes at a time,
+ * folding ASCII upper-case letters with long masks (SWAR) instead of per character.
+ * Length bytes are at most 63 and are never changed by the case folding, so the
+ * length-prefixed form can be folded as a whole.
+ * Instances are immutable and usable as keys in hash based collections, the static
+ * methods can be used directly on packet arrays without creating any objects.
+ *
+ * @version 2.00
+ * @author Nicholas Clarke <nclarke@diku.dk>
+ */
+public final class DNSWireName {
+
+	/** Maximum length of a name in wire format, as defined in rfc1035. */
+	public static final int MAX_NAME_LEN = 255;
+
+	/** Maximum number of compression pointers followed while flattening a name. */
+	private static final int MAX_POINTER_HOPS = 128;
+
+	/** 0x01 in every byte. */
+	private static final long ONES = 0x0101010101010101L;
+	/** Low 7 bits of every byte. */
+	private static final long LOW7 = 0x7F7F7F7F7F7F7F7FL;
+	/** High bit of every byte. */
+	private static final long HIGH = 0x8080808080808080L;
+	/** Added to the low 7 bits, sets the high bit of bytes greater than or equal to 'A'. */
+	private static final long GE_A = (0x80 - 'A') * ONES;
+	/** Added to the low 7 bits, sets the high bit of bytes greater than 'Z'. */
+	private static final long GT_Z = (0x80 - 'Z' - 1) * ONES;
+
+	/** Hash multiplier. */
+	private static final long HASH_MUL = 0x9E3779B97F4A7C15L;
+
+	/** Name in wire format. */
+	private final byte[] wire;
+	/** Cached hash code. */
+	private final int hash;
+
+	/**
+	 * Wrap a name in uncompressed wire format, the array is not copied.
+	 * @param wire name in wire format.
+	 */
+	private DNSWireName(byte[] wire) {
+		this.wire = wire;
+		this.hash = hashCode(wire, 0, wire.length);
+	}
+
+	/**
+	 * Create a wire name from a textual name, ie. "www.example.com." or "www.example.com".
+	 * @param name domain name.
+	 * @return wire name.
+	 * @throws DNSNameException if the domain name is invalid.
+	 */
+	public static DNSWireName fromString(String name) throws DNSNameException {
+		byte[] tmpArr = new byte[MAX_NAME_LEN];
+		int len = encode(name, tmpArr, 0);
+		byte[] wire = new byte[len];
+		System.arraycopy(tmpArr, 0, wire, 0, len);
+		return new DNSWireName(wire);
+	}
+
+	/**
+	 * Create a wire name from a possibly compressed name in a packet.
+	 * @param pDat array containing the complete packet.
+	 * @param pIdx index to where in the array the name begins.
+	 * @param pLen length of the whole packet.
+	 * @return wire name.
+	 * @throws DNSException if the packet is corrupted.
+	 * @throws DNSNameException if the domain name is invalid.
+	 */
+	public static DNSWireName fromPacket(byte[] pDat, int pIdx, int pLen) throws DNSException, DNSNameException {
+		byte[] tmpArr = new byte[MAX_NAME_LEN];
+		int len = flatten(pDat, pIdx, pLen, tmpArr, 0);
+		byte[] wire = new byte[len];
+		System.arraycopy(tmpArr, 0, wire, 0, len);
+		return new DNSWireName(wire);
+	}
+
+	/**
+	 * Encode a textual name into uncompressed wire format.
+	 * The same names are accepted as when assembling a message, the trailing dot is optional.
+	 * Characters are stored as their low 8 bits.
+	 * @param name domain name.
+	 * @param dst array the name is written into, must have room for 255 bytes.
+	 * @param dIdx index in the array where the name is written.
+	 * @return length of the name in wire format.
+	 * @throws DNSNameException if the domain name is invalid.
+	 */
+	public static int encode(String name, byte[] dst, int dIdx) throws DNSNameException {
+		int nameLen;
+		int start;
+		int len;
+		int idx;
+
+		if ( (name == null) || (name.length() > 255) )	{
+			throw new DNSNameException("Invalid Parameter.");
+		}
+
+		nameLen = name.length();
+		if ( (nameLen == 1) && (name.charAt(0) == '.') ) {
+			nameLen = 0;
+		}
+
+		idx = dIdx;
+		start = 0;
+		for(int i=0; i<=nameLen; i++) {
+			if ( (i == nameLen) || (name.charAt(i) == '.') ) {
+				len = i - start;
+				if ( len > 63 ) {
+					throw new DNSNameException("Invalid domain name.");
+				}
+				if ( len == 0 ) {
+					if ( i < nameLen ) {
+						throw new DNSNameException("Invalid domain name.");
+					}
+				}
+				else {
+					if ( idx - dIdx + 1 + len + 1 > MAX_NAME_LEN ) {
+						throw new DNSNameException("Name too long.");
+					}
+					dst[idx++] = (byte)len;
+					for(int j=start; j<i; j++) {
+						dst[idx++] = (byte)name.charAt(j);
+					}
+				}
+				start = i + 1;
+			}
+		}
+		dst[idx++] = 0;
+		return idx - dIdx;
+	}
+
+	/**
+	 * Copy a possibly compressed name in a packet into uncompressed wire format.
+	 * Pointers must point backwards, the name may not exceed 255 bytes and at most
+	 * 128 pointers are followed, the same limits as when decoding names.
+	 * @param pDat array containing the complete packet.
+	 * @param pIdx index to where in the array the name begins.
+	 * @param pLen length of the whole packet.
+	 * @param dst array the name is written into, must have room for 255 bytes.
+	 * @param dIdx index in the array where the name is written.
+	 * @return length of the name in wire format.
+	 * @throws DNSException if the packet is corrupted.
+	 * @throws DNSNameException if the domain name is invalid.
+	 */
+	public static int flatten(byte[] pDat, int pIdx, int pLen, byte[] dst, int dIdx) throws DNSException, DNSNameException {
+		int idx = dIdx;
+		int fIdx = pIdx;
+		int hops = 0;
+		int elen;
+
+		if ( (pIdx < 0) || (pLen > pDat.length) ) {
+			throw new DNSException("IndexOutOfBounds.");
+		}
+		while ( true ) {
+			if ( pIdx >= pLen ) {
+				throw new DNSException("IndexOutOfBounds.");
+			}
+			elen = pDat[pIdx++] & 255;
+			if ( elen == 0 ) {
+				dst[idx++] = 0;
+				return idx - dIdx;
+			}
+			else if ( (elen & 0xC0) == 0 ) {
+				if ( idx - dIdx + 1 + elen + 1 > MAX_NAME_LEN ) {
+					throw new DNSNameException("Name too long.");
+				}
+				if ( pIdx + elen > pLen ) {
+					throw new DNSException("IndexOutOfBounds.");
+				}
+				dst[idx++] = (byte)elen;
+				System.arraycopy(pDat, pIdx, dst, idx, elen);
+				idx += elen;
+				pIdx += elen;
+			}
+			else if ( (elen & 0xC0) == 0xC0 ) {
+				if ( pIdx >= pLen ) {
+					throw new DNSException("IndexOutOfBounds.");
+				}
+				pIdx = ((elen & 63) << 8) | (pDat[pIdx] & 255);
+				if ( pIdx >= fIdx ) {
+					throw new DNSException("IndexOutOfBounds.");
+				}
+				if ( ++hops > MAX_POINTER_HOPS ) {
+					throw new DNSNameException("Too many compression pointers.");
+				}
+				fIdx = pIdx;
+			}
+			else {
+				throw new DNSNameException("Invalid encoding.");
+			}
+		}
+	}
+
+	/**
+	 * Fold the ASCII upper-case letters in 8 packed bytes to lower-case.
+	 * Bytes with the high bit set and all other bytes are left unchanged.
+	 * @param w 8 packed bytes.
+	 * @return 8 packed bytes with upper-case letters folded.
+	 */
+	public static long foldCase(long w) {
+		long heptets = w & LOW7;
+		long upper = (heptets + GE_A) & ~(heptets + GT_Z) & ~w & HIGH;
+		return w | (upper >>> 2);
+	}
+
+	/**
+	 * Read 8 bytes in big-endian order.
+	 * @param arr array.
+	 * @param idx index of the first byte.
+	 * @return 8 packed bytes.
+	 */
+	private static long getLong(byte[] arr, int idx) {
+		return ((long)(arr[idx] & 255) << 56)
+			| ((long)(arr[idx + 1] & 255) << 48)
+			| ((long)(arr[idx + 2] & 255) << 40)
+			| ((long)(arr[idx + 3] & 255) << 32)
+			| ((long)(arr[idx + 4] & 255) << 24)
+			| ((arr[idx + 5] & 255) << 16)
+			| ((arr[idx + 6] & 255) << 8)
+			| (arr[idx + 7] & 255);
+	}
+
+	/**
+	 * Read up to 7 trailing bytes in big-endian order, zero padded.
+	 * @param arr array.
+	 * @param idx index of the first byte.
+	 * @param len number of bytes, less than 8.
+	 * @return packed bytes.
+	 */
+	private static long getTail(byte[] arr, int idx, int len) {
+		long w = 0;
+		for(int i=0; i<len; i++) {
+			w = (w << 8) | (arr[idx + i] & 255);
+		}
+		return w;
+	}
+
+	/**
+	 * Compare two names in uncompressed wire format, ignoring ASCII case.
+	 * @param a array containing the first name.
+	 * @param aIdx index of the first name.
+	 * @param aLen length of the first name.
+	 * @param b array containing the second name.
+	 * @param bIdx index of the second name.
+	 * @param bLen length of the second name.
+	 * @return true if the names are equal.
+	 */
+	public static boolean equals(byte[] a, int aIdx, int aLen, byte[] b, int bIdx, int bLen) {
+		int i;
+		if ( aLen != bLen ) {
+			return false;
+		}
+		for(i=0; i + 8 <= aLen; i+=8) {
+			if ( foldCase(getLong(a, aIdx + i)) != foldCase(getLong(b, bIdx + i)) ) {
+				return false;
+			}
+		}
+		if ( i < aLen ) {
+			return foldCase(getTail(a, aIdx + i, aLen - i)) == foldCase(getTail(b, bIdx + i, aLen - i));
+		}
+		return true;
+	}
+
+	/**
+	 * Hash a name in uncompressed wire format, ignoring ASCII case.
+	 * Names which are equal ignoring case have the same hash code.
+	 * @param arr array containing the name.
+	 * @param idx index of the name.
+	 * @param len length of the name.
+	 * @return hash code.
+	 */
+	public static int hashCode(byte[] arr, int idx, int len) {
+		long h = len;
+		int i;
+		for(i=0; i + 8 <= len; i+=8) {
+			h = (h ^ foldCase(getLong(arr, idx + i))) * HASH_MUL;
+			h ^= h >>> 29;
+		}
+		if ( i < len ) {
+			h = (h ^ foldCase(getTail(arr, idx + i, len - i))) * HASH_MUL;
+			h ^= h >>> 29;
+		}
+		return (int)(h ^ (h >>> 32));
+	}
+
+	/**
+	 * Returns the length of the name in wire format.
+	 * @return length in bytes.
+	 */
+	public int length() {
+		return wire.length;
+	}
+
+	/**
+	 * Returns a copy of the name in wire format.
+	 * @return name in wire format.
+	 */
+	public byte[] getBytes() {
+		return (byte[])wire.clone();
+	}
+
+	/**
+	 * Compare with a name in uncompressed wire format, ignoring ASCII case.
+	 * @param arr array containing the name.
+	 * @param idx index of the name.
+	 * @param len length of the name.
+	 * @return true if the names are equal.
+	 */
+	public boolean equals(byte[] arr, int idx, int len) {
+		return equals(wire, 0, wire.length, arr, idx, len);
+	}
+
+	// Javadoc inherited.
+	public int hashCode() {
+		return hash;
+	}
+
+	// Javadoc inherited.
+	public boolean equals(Object obj) {
+		DNSWireName other;
+		if ( this == obj ) {
+			return true;
+		}
+		if ( !(obj instanceof DNSWireName) ) {
+			return false;
+		}
+		other = (DNSWireName)obj;
+		return (hash == other.hash) && equals(wire, 0, wire.length, other.wire, 0, other.wire.length);
+	}
+
+	/**
+	 * Returns the name in textual form, the same way names are decoded.
+	 * @return domain name.
+	 */
+	public String toString() {
+		StringBuilder sb = new StringBuilder(wire.length);
+		int idx = 0;
+		int len;
+		while ( (len = wire[idx++] & 255) != 0 ) {
+			for(int i=0; i<len; i++) {
+				sb.append((char)(wire[idx++] & 255));
+			}
+			sb.append('.');
+		}
+		if ( sb.length() == 0 ) {
+			sb.append('.');
+		}
+		return sb.toString();
+	}
+
+}
@@ -1,5 +1,6 @@
 /*
  * DNS RData, main entry point for disassembling record data according to type.
+ * Record types are mapped to rdata implementations by <CODE>DNSRDataRegistry</CODE>.
  * Copyright (C) 2000, 2001  Nicholas Clarke
  *
  * This program is free software; you can redistribute it and/or
@@ -27,11 +28,16 @@
  * 27-Aug-2001 : Added debug method.
  * 27-Aug-2001 : Removed ALL case.
  * 18-Nov-2001 : Javadoc fix.
+ * 16-Oct-2026 : Per type pools of recycled rdata objects.
+ *             : Replaced the type switch with a lookup in DNSRDataRegistry.
+ *             : Debug flag only pushed to decoded rdata while debugging is on.
  *
  */
 
 package com.antiaction.common.dns.record;
 
+import java.util.ArrayList;
+
 import com.antiaction.common.dns.DNSName;
 import com.antiaction.common.dns.DNSNameException;
 import com.antiaction.common.dns.DNSRecordHeader;
@@ -39,6 +45,7 @@ import com.antiaction.common.dns.DNSType;
 
 /**
  * DNS RData, main entry point for disassembling record data according to type.
+ * Record types are mapped to rdata implementations by <CODE>DNSRDataRegistry</CODE>.
  *
  * @version 2.00
  * @author Nicholas Clarke <nclarke@diku.dk>
@@ -48,6 +55,12 @@ public class DNSRData {
 	/** Debug on/off. */
 	private boolean debug = false;
 
+	/** Number of record types with a pool, generic rdata objects share pool 0. */
+	private static final int POOL_TYPES = 256;
+
+	/** Recycled rdata objects per record type, null if recycling is off. */
+	private ArrayList[] pools = null;
+
 	/**
 	 * Instantiate and initialize an empty RData object.
 	 */
@@ -62,6 +75,79 @@ public class DNSRData {
 		debug = b;
 	}
 
+	/**
+	 * Toggle recycling of rdata objects.
+	 * When enabled rdata objects handed back through <CODE>recycle</CODE> are reused
+	 * by <CODE>disassemblePacket</CODE> for records of the same type.
+	 * @param b boolean.
+	 */
+	public void setRecycle(boolean b) {
+		if ( b ) {
+			if ( pools == null ) {
+				pools = new ArrayList[POOL_TYPES];
+			}
+		}
+		else {
+			pools = null;
+		}
+	}
+
+	/**
+	 * Hand an rdata object back for reuse, ignored if recycling is off.
+	 * The object must no longer be referenced elsewhere.
+	 * @param rdata rdata object.
+	 */
+	public void recycle(DNSRDataInterface rdata) {
+		int idx;
+		if ( (pools == null) || (rdata == null) ) {
+			return;
+		}
+		idx = poolIndex(rdata.getRType());
+		if ( idx != -1 ) {
+			if ( pools[idx] == null ) {
+				pools[idx] = new ArrayList();
+			}
+			pools[idx].add(rdata);
+		}
+	}
+
+	/**
+	 * Returns the pool index of a record type.
+	 * @param rtype record type.
+	 * @return pool index or -1 if the type is not pooled.
+	 */
+	private static int poolIndex(int rtype) {
+		if ( rtype == DNSType.GENERIC ) {
+			return 0;
+		}
+		if ( (rtype > 0) && (rtype < POOL_TYPES) ) {
+			return rtype;
+		}
+		return -1;
+	}
+
+	/**
+	 * Returns a recycled rdata object of a record type.
+	 * @param rtype record type.
+	 * @return recycled rdata object or null if none is available.
+	 */
+	private DNSRDataInterface obtain(int rtype) {
+		ArrayList pool;
+		int idx;
+		if ( pools == null ) {
+			return null;
+		}
+		idx = poolIndex(rtype);
+		if ( idx == -1 ) {
+			return null;
+		}
+		pool = pools[idx];
+		if ( (pool == null) || (pool.size() == 0) ) {
+			return null;
+		}
+		return (DNSRDataInterface)pool.remove(pool.size() - 1);
+	}
+
 	/*
 	 * Parses the rdata part of a record.
 	 * @param dnsname used for domain name compression in the same message.
@@ -74,66 +160,35 @@ public class DNSRData {
 	 */
 	public DNSRDataInterface disassemblePacket(DNSName dnsname, byte[] pDat, int pIdx, int pLen, DNSRecordHeader rheader) throws DNSNameException, DNSRDataException {
 		DNSRDataInterface rdata = null;
+		DNSRDataFactory factory;
 		int rtype;
 
 		rtype = rheader.getRType();
 
-		switch ( rtype ) {
-			case DNSType.A:
-				rdata = new DNSRDataA();
-				break;
-			case DNSType.NS:
-				rdata = new DNSRDataNS();
-				break;
-			case DNSType.MD:
-				rdata = new DNSRDataMD();
-				break;
-			case DNSType.MF:
-				rdata = new DNSRDataMF();
-				break;
-			case DNSType.CNAME:
-				rdata = new DNSRDataCName();
-				break;
-			case DNSType.SOA:
-				rdata = new DNSRDataSOA();
-				break;
-			case DNSType.MB:
-				rdata = new DNSRDataMB();
-				break;
-			case DNSType.MG:
-				rdata = new DNSRDataMG();
-				break;
-			case DNSType.MR:
-				rdata = new DNSRDataMR();
-				break;
-			case DNSType.NULL:
-				rdata = new DNSRDataNULL();
-				break;
-			case DNSType.WKS:
-				rdata = new DNSRDataWKS();
-				break;
-			case DNSType.PTR:
-				rdata = new DNSRDataPTR();
-				break;
-			case DNSType.HINFO:
-				rdata = new DNSRDataHINFO();
-				break;
-			case DNSType.MINFO:
-				rdata = new DNSRDataMINFO();
-				break;
-			case DNSType.MX:
-				rdata = new DNSRDataMX();
-				break;
-			case DNSType.TXT:
-				rdata = new DNSRDataTXT();
-				break;
-			default:
-				rdata = new DNSRDataGeneric(rtype);
-				break;
+		if ( rtype != DNSType.GENERIC ) {
+			rdata = obtain(rtype);
+		}
+
+		if ( rdata == null ) {
+			factory = DNSRDataRegistry.getFactory(rtype);
+			if ( factory != null ) {
+				rdata = factory.newInstance(rtype);
+			}
+			else {
+				rdata = obtain(DNSType.GENERIC);
+				if ( rdata != null ) {
+					((DNSRDataGeneric)rdata).setWrappedType(rtype);
+				}
+				else {
+					rdata = new DNSRDataGeneric(rtype);
+				}
+			}
 		}
 
 		if ( rdata != null ) {
-			rdata.setDebug(debug);
+			if ( debug ) {
+				rdata.setDebug(true);
+			}
 			rdata.disassemblePacket(dnsname, pDat, pIdx, pLen);
 		}
 
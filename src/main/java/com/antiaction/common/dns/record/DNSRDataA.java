@@ -32,11 +32,17 @@
  * 27-Aug-2001 : Expanded debug info.
  * 09-Oct-2001 : Cloneable.
  * 18-Nov-2001 : Javadoc fix.
+ * 16-Oct-2026 : Added ByteBuffer buildPacket method.
+ *             : Added encodedLength method.
+ *             : Address stored as an int, string and InetAddress produced on demand.
  *
  */
 
 package com.antiaction.common.dns.record;
 
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 
 import com.antiaction.common.dns.DNSName;
@@ -60,17 +66,14 @@ public class DNSRDataA implements DNSRDataInterface {
 
 	/** Record of type A. */
 	protected static int rtype = DNSType.A;
-	/** IP record. */
-	protected byte[] ipAddrArr;
-	/** IP address. */
-	protected String ipAddr;
+	/** IP address, in network byte order with the first octet in the most significant byte. */
+	protected int ipAddr;
 
 	/**
 	 * Instantiate and initialize a default A record object.
 	 */
 	public DNSRDataA() {
-		ipAddrArr = new byte[4];
-		ipAddr = "0.0.0.0";
+		ipAddr = 0;
 	}
 
  	/**
@@ -81,7 +84,6 @@ public class DNSRDataA implements DNSRDataInterface {
  	 */
  	public Object clone() {
  		DNSRDataA obj = new DNSRDataA();
-		obj.ipAddrArr = (byte[])ipAddrArr.clone();
 		obj.ipAddr = ipAddr;
  		return obj;
  	}
@@ -108,11 +110,11 @@ public class DNSRDataA implements DNSRDataInterface {
 
 		if ( debug ) {
 			System.out.println("-> DNSRDataA.buildPacket()");
-			System.out.println("    ipAddr: " + ipAddr);
+			System.out.println("    ipAddr: " + getIPAddr());
 		}
 
 		packetLen = 0;
-		RDLen = ipAddrArr.length;
+		RDLen = 4;
 
 		packetData = new byte[2 + RDLen];
 
@@ -123,7 +125,10 @@ public class DNSRDataA implements DNSRDataInterface {
 
 	// RData(A)
 
-		System.arraycopy(ipAddrArr, 0, packetData, packetLen, ipAddrArr.length);
+		packetData[packetLen++] = (byte)(ipAddr >> 24);
+		packetData[packetLen++] = (byte)(ipAddr >> 16);
+		packetData[packetLen++] = (byte)(ipAddr >> 8);
+		packetData[packetLen++] = (byte)ipAddr;
 
 		if ( debug ) {
 			System.out.println("<- DNSRDataA.buildPacket()");
@@ -132,6 +137,51 @@ public class DNSRDataA implements DNSRDataInterface {
 		return packetData;
 	}
 
+	/**
+	 * Build the rdata packet on the internal state directly into a buffer.
+	 * @param dnsname used for domain name compression in the same message.
+	 * @param dst buffer the rdata part is written into, starting at its current position.
+	 * @param base index in the buffer where the message begins. (Domain name compression)
+	 * @return number of bytes written.
+	 * @throws DNSNameException if the domain name is invalid.
+	 * @throws java.nio.BufferOverflowException if the buffer is too small.
+	 */
+	public int buildPacket(DNSName dnsname, ByteBuffer dst, int base) throws DNSNameException {
+		int RDLen;
+
+		if ( debug ) {
+			System.out.println("-> DNSRDataA.buildPacket(ByteBuffer)");
+			System.out.println("    ipAddr: " + getIPAddr());
+		}
+
+		RDLen = 4;
+
+	// RDLen
+
+		dst.putShort((short)RDLen);
+
+	// RData(A)
+
+		dst.putInt(ipAddr);
+
+		if ( debug ) {
+			System.out.println("<- DNSRDataA.buildPacket(ByteBuffer)");
+		}
+
+		return 2 + RDLen;
+	}
+
+	/**
+	 * Returns the number of bytes the rdata part would be encoded into, including the rdata length.
+	 * @param dnsname used for domain name compression in the same message.
+	 * @param globalIdx index in the message where the rdata part would be written. (Domain name compression)
+	 * @return encoded length of the rdata part.
+	 * @throws DNSNameException if the domain name is invalid.
+	 */
+	public int encodedLength(DNSName dnsname, int globalIdx) throws DNSNameException {
+		return 2 + 4;
+	}
+
 	/**
 	 * Returns the length of the previously disassembled rdata part.
 	 * @return length of previously disassembled record data.
@@ -177,17 +227,10 @@ public class DNSRDataA implements DNSRDataInterface {
 
 	// RData(A)
 
-		ipAddr = "";
-		for(int i=0; i<RDLen; i++) {
-			ipAddrArr[i] = pDat[pIdx++];
-			if ( ipAddr.length() > 0 ) {
-				ipAddr += ".";
-			}
-			ipAddr += ipAddrArr[i]&255;
-		}
+		ipAddr = (pDat[pIdx] & 255) << 24 | (pDat[pIdx + 1] & 255) << 16 | (pDat[pIdx + 2] & 255) << 8 | (pDat[pIdx + 3] & 255);
 
 		if ( debug ) {
-			System.out.println("    ipAddr: " + ipAddr);
+			System.out.println("    ipAddr: " + getIPAddr());
 			System.out.println("<- DNSRDataA.disassemblePacket() - Len=" + disLen);
 		}
 	}
@@ -208,39 +251,99 @@ public class DNSRDataA implements DNSRDataInterface {
 	 */
 	public void setIPAddr(String ip) throws DNSRDataException {
 		ArrayList strArr;
+		int tmpAddr;
 		strArr = Split(ip, ".");
 
 		if ( (strArr == null) || (strArr.size() != 4) ) {
 			throw new DNSRDataException("Invalid IP Address.");
 		}
 
+		tmpAddr = 0;
 		for(int i=0; i<strArr.size(); i++) {
 			try {
-				ipAddrArr[i] = (byte)(Integer.parseInt((String)strArr.get(i)) & 255);
+				tmpAddr = (tmpAddr << 8) | (Integer.parseInt((String)strArr.get(i)) & 255);
 			}
 			catch(NumberFormatException e) {
 				throw new DNSRDataException("Invalid IP Address.");
 			}
 		}
 
-		ipAddr = ip;
+		ipAddr = tmpAddr;
 	}
 
 	/**
-	 * Get the IP address of this record.
+	 * Get the IP address of this record in dotted-quad form.
+	 * The string is built on each call, it is not kept by the record.
 	 * @return the IP address.
 	 */
 	public String getIPAddr() {
+		StringBuilder sb = new StringBuilder(15);
+		sb.append((ipAddr >>> 24) & 255);
+		sb.append('.');
+		sb.append((ipAddr >>> 16) & 255);
+		sb.append('.');
+		sb.append((ipAddr >>> 8) & 255);
+		sb.append('.');
+		sb.append(ipAddr & 255);
+		return sb.toString();
+	}
+
+	/**
+	 * Set the IP address of this record.
+	 * @param ip IP address, in network byte order with the first octet in the most significant byte.
+	 */
+	public void setAddress(int ip) {
+		ipAddr = ip;
+	}
+
+	/**
+	 * Get the IP address of this record.
+	 * @return IP address, in network byte order with the first octet in the most significant byte.
+	 */
+	public int getAddress() {
 		return ipAddr;
 	}
 
+	/**
+	 * Set the IP address of this record.
+	 * @param addr IPv4 address.
+	 * @throws DNSRDataException if the address is not an IPv4 address.
+	 */
+	public void setInetAddress(InetAddress addr) throws DNSRDataException {
+		byte[] addrArr = addr.getAddress();
+		if ( addrArr.length != 4 ) {
+			throw new DNSRDataException("Invalid IP Address.");
+		}
+		ipAddr = (addrArr[0] & 255) << 24 | (addrArr[1] & 255) << 16 | (addrArr[2] & 255) << 8 | (addrArr[3] & 255);
+	}
+
+	/**
+	 * Get the IP address of this record as an <CODE>InetAddress</CODE>, no reverse lookup is performed.
+	 * The object is created on each call, it is not kept by the record.
+	 * @return IPv4 address.
+	 */
+	public InetAddress getInetAddress() {
+		byte[] addrArr = new byte[4];
+		addrArr[0] = (byte)(ipAddr >> 24);
+		addrArr[1] = (byte)(ipAddr >> 16);
+		addrArr[2] = (byte)(ipAddr >> 8);
+		addrArr[3] = (byte)ipAddr;
+		try {
+			return InetAddress.getByAddress(addrArr);
+		}
+		catch(UnknownHostException e) {
+			// Only thrown for illegal address lengths.
+			throw new IllegalStateException(e.toString());
+		}
+	}
+
 	/**
 	 * Returns a string representation of the internal state, mostly for debugging purposes.
 	 * @return debug string.
 	 */
 	public String toString() {
 		String tmpStr = "A record.\n";
-		tmpStr += ipAddr + "\n";
+		tmpStr += getIPAddr() + "\n";
 		return tmpStr;
 	}
 
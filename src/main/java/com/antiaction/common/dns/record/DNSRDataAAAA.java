@@ -0,0 +1,552 @@
+/*
+ * DNS AAAA Record container.
+ * Copyright (C) 2026  Nicholas Clarke
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+
+/*
+ * History:
+ *
+ * 16-Oct-2026 : First implementation.
+ *
+ */
+
+package com.antiaction.common.dns.record;
+
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+
+import com.antiaction.common.dns.DNSName;
+import com.antiaction.common.dns.DNSNameException;
+import com.antiaction.common.dns.DNSType;
+
+/**
+ * DNS AAAA Record container.
+ * As defined in rfc3596.
+ * The 128 bit address is kept as two longs, the text form and <CODE>Inet6Address</CODE>
+ * are only produced when asked for. The text form is the canonical one from rfc5952.
+ *
+ * @version 2.00
+ * @author Nicholas Clarke <nclarke@diku.dk>
+ */
+public class DNSRDataAAAA implements DNSRDataInterface {
+
+	/** Return packet length. */
+	private int disLen = 0;
+
+	/** Debug on/off. */
+	private boolean debug = false;
+
+	/** Record of type AAAA. */
+	protected static int rtype = DNSType.AAAA;
+	/** Most significant 64 bits of the IP address. */
+	protected long ipAddrHigh;
+	/** Least significant 64 bits of the IP address. */
+	protected long ipAddrLow;
+
+	/** Hexadecimal digits used in the text form. */
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+	/**
+	 * Instantiate and initialize a default AAAA record object.
+	 */
+	public DNSRDataAAAA() {
+		ipAddrHigh = 0;
+		ipAddrLow = 0;
+	}
+
+ 	/**
+ 	 * Overrides Cloneable.
+ 	 * @return a clone of this instance.
+ 	 * @exception OutOfMemoryError if there is not enough memory.
+ 	 * @see java.lang.Cloneable
+ 	 */
+ 	public Object clone() {
+ 		DNSRDataAAAA obj = new DNSRDataAAAA();
+		obj.ipAddrHigh = ipAddrHigh;
+		obj.ipAddrLow = ipAddrLow;
+ 		return obj;
+ 	}
+
+	/**
+	 * Toggle debug status.
+	 * @param b boolean.
+	 */
+	public void setDebug(boolean b) {
+		debug = b;
+	}
+
+	/**
+	 * Build and return the rdata packet on the internal state.
+	 * @param dnsname used for domain name compression in the same message.
+	 * @param globalIdx current index of the message being assembled. (Domain name compression)
+	 * @return the rdata part of the message as a byte array.
+	 * @throws DNSNameException if the domain name is invalid.
+	 */
+	public byte[] buildPacket(DNSName dnsname, int globalIdx) throws DNSNameException {
+		byte[] packetData;
+		int packetLen;
+		int RDLen;
+
+		if ( debug ) {
+			System.out.println("-> DNSRDataAAAA.buildPacket()");
+			System.out.println("    ipAddr: " + getIPAddr());
+		}
+
+		packetLen = 0;
+		RDLen = 16;
+
+		packetData = new byte[2 + RDLen];
+
+	// RDLen
+
+		packetData[packetLen++] = (byte)(RDLen >> 8);
+		packetData[packetLen++] = (byte)(RDLen & 255);
+
+	// RData(AAAA)
+
+		for(int i=56; i>=0; i-=8) {
+			packetData[packetLen++] = (byte)(ipAddrHigh >> i);
+		}
+		for(int i=56; i>=0; i-=8) {
+			packetData[packetLen++] = (byte)(ipAddrLow >> i);
+		}
+
+		if ( debug ) {
+			System.out.println("<- DNSRDataAAAA.buildPacket()");
+		}
+
+		return packetData;
+	}
+
+	/**
+	 * Build the rdata packet on the internal state directly into a buffer.
+	 * @param dnsname used for domain name compression in the same message.
+	 * @param dst buffer the rdata part is written into, starting at its current position.
+	 * @param base index in the buffer where the message begins. (Domain name compression)
+	 * @return number of bytes written.
+	 * @throws DNSNameException if the domain name is invalid.
+	 * @throws java.nio.BufferOverflowException if the buffer is too small.
+	 */
+	public int buildPacket(DNSName dnsname, ByteBuffer dst, int base) throws DNSNameException {
+		if ( debug ) {
+			System.out.println("-> DNSRDataAAAA.buildPacket(ByteBuffer)");
+			System.out.println("    ipAddr: " + getIPAddr());
+		}
+
+	// RDLen
+
+		dst.putShort((short)16);
+
+	// RData(AAAA)
+
+		dst.putLong(ipAddrHigh);
+		dst.putLong(ipAddrLow);
+
+		if ( debug ) {
+			System.out.println("<- DNSRDataAAAA.buildPacket(ByteBuffer)");
+		}
+
+		return 2 + 16;
+	}
+
+	/**
+	 * Returns the number of bytes the rdata part would be encoded into, including the rdata length.
+	 * @param dnsname used for domain name compression in the same message.
+	 * @param globalIdx index in the message where the rdata part would be written. (Domain name compression)
+	 * @return encoded length of the rdata part.
+	 * @throws DNSNameException if the domain name is invalid.
+	 */
+	public int encodedLength(DNSName dnsname, int globalIdx) throws DNSNameException {
+		return 2 + 16;
+	}
+
+	/**
+	 * Returns the length of the previously disassembled rdata part.
+	 * @return length of previously disassembled record data.
+	 * @see #disassemblePacket(DNSName, byte[], int, int)
+	 */
+	public int getDisassembledLen() {
+		return disLen;
+	}
+
+	/**
+	 * Parses the rdata part of a record.
+	 * @param dnsname used for domain name compression in the same message.
+	 * @param pDat array containing the complete packet.
+	 * @param pIdx index to where in the array the rdata part begins.
+	 * @param pLen length of the whole packet.
+	 * @throws DNSRDataException if the packet is corrupted.
+	 * @throws DNSNameException if the domain name is invalid.
+	 * @see #getDisassembledLen()
+	 */
+	public void disassemblePacket(DNSName dnsname, byte[] pDat, int pIdx, int pLen) throws DNSNameException, DNSRDataException {
+		int RDLen;
+		long tmpLong;
+
+		if ( debug ) {
+			System.out.println("-> DNSRDataAAAA.disassemblePacket() - idx=" + pIdx);
+		}
+
+	// RDLen
+
+		if ( pIdx + 2 > pLen ) {
+			throw new DNSRDataException("RecordOutOfBounds.");
+		}
+
+		RDLen = (pDat[pIdx++] & 255) << 8 | (pDat[pIdx++] & 255);
+		disLen = 2 + RDLen;
+
+		if ( (pIdx + RDLen) > pLen ) {
+			throw new DNSRDataException("RecordOutOfBounds.");
+		}
+
+		if ( RDLen != 16 ) {
+			throw new DNSRDataException("Invalid AAAA Record.");
+		}
+
+	// RData(AAAA)
+
+		tmpLong = 0;
+		for(int i=0; i<8; i++) {
+			tmpLong = (tmpLong << 8) | (pDat[pIdx++] & 255);
+		}
+		ipAddrHigh = tmpLong;
+		tmpLong = 0;
+		for(int i=0; i<8; i++) {
+			tmpLong = (tmpLong << 8) | (pDat[pIdx++] & 255);
+		}
+		ipAddrLow = tmpLong;
+
+		if ( debug ) {
+			System.out.println("    ipAddr: " + getIPAddr());
+			System.out.println("<- DNSRDataAAAA.disassemblePacket() - Len=" + disLen);
+		}
+	}
+
+	/**
+	 * Get the record type.
+	 * @return record type.
+	 * @see com.antiaction.common.dns.DNSType
+	 */
+	public int getRType() {
+		return rtype;
+	}
+
+	/**
+	 * Set the IP address of this record.
+	 * @param high most significant 64 bits of the IP address.
+	 * @param low least significant 64 bits of the IP address.
+	 */
+	public void setAddress(long high, long low) {
+		ipAddrHigh = high;
+		ipAddrLow = low;
+	}
+
+	/**
+	 * Get the most significant 64 bits of the IP address.
+	 * @return most significant 64 bits of the IP address.
+	 */
+	public long getAddressHigh() {
+		return ipAddrHigh;
+	}
+
+	/**
+	 * Get the least significant 64 bits of the IP address.
+	 * @return least significant 64 bits of the IP address.
+	 */
+	public long getAddressLow() {
+		return ipAddrLow;
+	}
+
+	/**
+	 * Returns the 16 bit group of the IP address with the given index.
+	 * @param i group index, 0 to 7.
+	 * @return group value.
+	 */
+	protected int getGroup(int i) {
+		if ( i < 4 ) {
+			return (int)(ipAddrHigh >>> ((3 - i) << 4)) & 0xFFFF;
+		}
+		return (int)(ipAddrLow >>> ((7 - i) << 4)) & 0xFFFF;
+	}
+
+	/**
+	 * Returns the value of an ASCII hexadecimal digit.
+	 * @param c character.
+	 * @return digit value or -1 if the character is not a hexadecimal digit.
+	 */
+	private static int hexValue(char c) {
+		if ( (c >= '0') && (c <= '9') ) {
+			return c - '0';
+		}
+		if ( (c >= 'a') && (c <= 'f') ) {
+			return c - 'a' + 10;
+		}
+		if ( (c >= 'A') && (c <= 'F') ) {
+			return c - 'A' + 10;
+		}
+		return -1;
+	}
+
+	/**
+	 * Validate and set the IP address of this record from its text form.
+	 * Accepts the full and compressed forms of rfc4291, including a trailing dotted-quad.
+	 * No name resolution is performed.
+	 * @param ip ip address.
+	 * @throws DNSRDataException if the ip address is not valid.
+	 */
+	public void setIPAddr(String ip) throws DNSRDataException {
+		int[] groups = new int[8];
+		int gCount = 0;
+		int gap = -1;
+		int idx = 0;
+		int len;
+		int digits;
+		int value;
+		int c;
+		int octet;
+		int octets;
+
+		if ( ip == null ) {
+			throw new DNSRDataException("Invalid IP Address.");
+		}
+		len = ip.length();
+		if ( (len >= 2) && (ip.charAt(0) == ':') && (ip.charAt(1) == ':') ) {
+			gap = 0;
+			idx = 2;
+		}
+		else if ( (len >= 1) && (ip.charAt(0) == ':') ) {
+			throw new DNSRDataException("Invalid IP Address.");
+		}
+		while ( idx < len ) {
+			if ( gCount >= 8 ) {
+				throw new DNSRDataException("Invalid IP Address.");
+			}
+			// Trailing dotted-quad.
+			if ( (ip.indexOf('.', idx) != -1) && (ip.indexOf(':', idx) == -1) ) {
+				if ( gCount > 6 ) {
+					throw new DNSRDataException("Invalid IP Address.");
+				}
+				value = 0;
+				octets = 0;
+				while ( true ) {
+					octet = 0;
+					digits = 0;
+					while ( (idx < len) && ((c = ip.charAt(idx)) >= '0') && (c <= '9') ) {
+						if ( ++digits > 3 ) {
+							throw new DNSRDataException("Invalid IP Address.");
+						}
+						octet = octet * 10 + (c - '0');
+						idx++;
+					}
+					if ( (digits == 0) || (octet > 255) ) {
+						throw new DNSRDataException("Invalid IP Address.");
+					}
+					value = (value << 8) | octet;
+					if ( ++octets == 4 ) {
+						break;
+					}
+					if ( (idx >= len) || (ip.charAt(idx) != '.') ) {
+						throw new DNSRDataException("Invalid IP Address.");
+					}
+					++idx;
+				}
+				if ( idx != len ) {
+					throw new DNSRDataException("Invalid IP Address.");
+				}
+				groups[gCount++] = (value >>> 16) & 0xFFFF;
+				groups[gCount++] = value & 0xFFFF;
+				break;
+			}
+			value = 0;
+			digits = 0;
+			while ( (idx < len) && ((c = hexValue(ip.charAt(idx))) != -1) ) {
+				if ( ++digits > 4 ) {
+					throw new DNSRDataException("Invalid IP Address.");
+				}
+				value = (value << 4) | c;
+				idx++;
+			}
+			if ( digits == 0 ) {
+				throw new DNSRDataException("Invalid IP Address.");
+			}
+			groups[gCount++] = value;
+			if ( idx < len ) {
+				if ( ip.charAt(idx) != ':' ) {
+					throw new DNSRDataException("Invalid IP Address.");
+				}
+				idx++;
+				if ( (idx < len) && (ip.charAt(idx) == ':') ) {
+					if ( gap != -1 ) {
+						throw new DNSRDataException("Invalid IP Address.");
+					}
+					gap = gCount;
+					idx++;
+				}
+				else if ( idx == len ) {
+					throw new DNSRDataException("Invalid IP Address.");
+				}
+			}
+		}
+		if ( gap == -1 ) {
+			if ( gCount != 8 ) {
+				throw new DNSRDataException("Invalid IP Address.");
+			}
+		}
+		else {
+			if ( gCount > 7 ) {
+				throw new DNSRDataException("Invalid IP Address.");
+			}
+			// Move the groups after the gap to the end.
+			for(int i=gCount - 1; i>=gap; i--) {
+				groups[i + 8 - gCount] = groups[i];
+			}
+			for(int i=gap; i<gap + 8 - gCount; i++) {
+				groups[i] = 0;
+			}
+		}
+		ipAddrHigh = ((long)groups[0] << 48) | ((long)groups[1] << 32) | ((long)groups[2] << 16) | groups[3];
+		ipAddrLow = ((long)groups[4] << 48) | ((long)groups[5] << 32) | ((long)groups[6] << 16) | groups[7];
+	}
+
+	/**
+	 * Get the IP address of this record in the canonical text form of rfc5952.
+	 * Lower-case hexadecimal without leading zeros, the first longest run of two or more zero
+	 * groups compressed to "::" and IPv4-mapped addresses with a trailing dotted-quad.
+	 * The string is built on each call, it is not kept by the record.
+	 * @return the IP address.
+	 */
+	public String getIPAddr() {
+		StringBuilder sb = new StringBuilder(39);
+		int bestStart = -1;
+		int bestLen = 1;
+		int runStart = -1;
+		int group;
+		int v4;
+
+		// IPv4-mapped, ::ffff:a.b.c.d
+		if ( (ipAddrHigh == 0) && ((ipAddrLow >>> 32) == 0xFFFFL) ) {
+			v4 = (int)ipAddrLow;
+			sb.append("::ffff:");
+			sb.append((v4 >>> 24) & 255);
+			sb.append('.');
+			sb.append((v4 >>> 16) & 255);
+			sb.append('.');
+			sb.append((v4 >>> 8) & 255);
+			sb.append('.');
+			sb.append(v4 & 255);
+			return sb.toString();
+		}
+
+		for(int i=0; i<=8; i++) {
+			if ( (i < 8) && (getGroup(i) == 0) ) {
+				if ( runStart == -1 ) {
+					runStart = i;
+				}
+			}
+			else if ( runStart != -1 ) {
+				if ( i - runStart > bestLen ) {
+					bestStart = runStart;
+					bestLen = i - runStart;
+				}
+				runStart = -1;
+			}
+		}
+
+		for(int i=0; i<8; i++) {
+			if ( i == bestStart ) {
+				sb.append("::");
+				i += bestLen - 1;
+				continue;
+			}
+			if ( (sb.length() > 0) && (sb.charAt(sb.length() - 1) != ':') ) {
+				sb.append(':');
+			}
+			group = getGroup(i);
+			if ( group >= 0x1000 ) {
+				sb.append(HEX[group >> 12]);
+			}
+			if ( group >= 0x100 ) {
+				sb.append(HEX[(group >> 8) & 15]);
+			}
+			if ( group >= 0x10 ) {
+				sb.append(HEX[(group >> 4) & 15]);
+			}
+			sb.append(HEX[group & 15]);
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Set the IP address of this record.
+	 * @param addr IPv6 address.
+	 * @throws DNSRDataException if the address is not an IPv6 address.
+	 */
+	public void setInetAddress(InetAddress addr) throws DNSRDataException {
+		byte[] addrArr = addr.getAddress();
+		long tmpLong;
+		if ( addrArr.length != 16 ) {
+			throw new DNSRDataException("Invalid IP Address.");
+		}
+		tmpLong = 0;
+		for(int i=0; i<8; i++) {
+			tmpLong = (tmpLong << 8) | (addrArr[i] & 255);
+		}
+		ipAddrHigh = tmpLong;
+		tmpLong = 0;
+		for(int i=8; i<16; i++) {
+			tmpLong = (tmpLong << 8) | (addrArr[i] & 255);
+		}
+		ipAddrLow = tmpLong;
+	}
+
+	/**
+	 * Get the IP address of this record as an <CODE>Inet6Address</CODE>, no reverse lookup is performed.
+	 * IPv4-mapped addresses are still returned as <CODE>Inet6Address</CODE>.
+	 * The object is created on each call, it is not kept by the record.
+	 * @return IPv6 address.
+	 */
+	public Inet6Address getInetAddress() {
+		byte[] addrArr = new byte[16];
+		for(int i=0; i<8; i++) {
+			addrArr[i] = (byte)(ipAddrHigh >> ((7 - i) << 3));
+			addrArr[i + 8] = (byte)(ipAddrLow >> ((7 - i) << 3));
+		}
+		try {
+			// InetAddress.getByAddress would return an Inet4Address for mapped addresses.
+			return Inet6Address.getByAddress(null, addrArr, -1);
+		}
+		catch(UnknownHostException e) {
+			// Only thrown for illegal address lengths.
+			throw new IllegalStateException(e.toString());
+		}
+	}
+
+	/**
+	 * Returns a string representation of the internal state, mostly for debugging purposes.
+	 * @return debug string.
+	 */
+	public String toString() {
+		String tmpStr = "AAAA record.\n";
+		tmpStr += getIPAddr() + "\n";
+		return tmpStr;
+	}
+
+}
@@ -0,0 +1,46 @@
+/*
+ * DNS RData factory, creates record data objects for a record type.
+ * Copyright (C) 2026  Nicholas Clarke
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+
+/*
+ * History:
+ *
+ * 16-Oct-2026 : First implementation.
+ *
+ */
+
+package com.antiaction.common.dns.record;
+
+/**
+ * DNS RData factory, creates record data objects for a record type.
+ * Registered with <CODE>DNSRDataRegistry</CODE> to decode a record type.
+ *
+ * @version 2.00
+ * @author Nicholas Clarke <nclarke@diku.dk>
+ */
+public interface DNSRDataFactory {
+
+	/**
+	 * Create a new empty rdata object for the given record type.
+	 * @param rtype record type.
+	 * @return rdata object.
+	 */
+	public DNSRDataInterface newInstance(int rtype);
+
+}
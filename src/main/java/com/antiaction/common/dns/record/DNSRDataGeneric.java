@@ -25,11 +25,15 @@
  * 25-Aug-2001 : Added debug method.
  * 28-Aug-2001 : Expanded debug info.
  * 09-Oct-2001 : Cloneable.
+ * 16-Oct-2026 : Added ByteBuffer buildPacket method.
+ *             : Added encodedLength method.
  *
  */
 
 package com.antiaction.common.dns.record;
 
+import java.nio.ByteBuffer;
+
 import com.antiaction.common.dns.DNSName;
 import com.antiaction.common.dns.DNSNameException;
 import com.antiaction.common.dns.DNSType;
@@ -124,6 +128,50 @@ public class DNSRDataGeneric implements DNSRDataInterface {
 		return packetData;
 	}
 
+	/**
+	 * Build the rdata packet on the internal state directly into a buffer.
+	 * @param dnsname used for domain name compression in the same message.
+	 * @param dst buffer the rdata part is written into, starting at its current position.
+	 * @param base index in the buffer where the message begins. (Domain name compression)
+	 * @return number of bytes written.
+	 * @throws DNSNameException if the domain name is invalid.
+	 * @throws java.nio.BufferOverflowException if the buffer is too small.
+	 */
+	public int buildPacket(DNSName dnsname, ByteBuffer dst, int base) throws DNSNameException {
+		int RDLen;
+
+		if ( debug ) {
+			System.out.println("-> DNSRDataGeneric.buildPacket(ByteBuffer)");
+		}
+
+		RDLen = genericData.length;
+
+	// RDLen
+
+		dst.putShort((short)RDLen);
+
+	// RData(GENERIC)
+
+		dst.put(genericData);
+
+		if ( debug ) {
+			System.out.println("<- DNSRDataGeneric.buildPacket(ByteBuffer)");
+		}
+
+		return 2 + RDLen;
+	}
+
+	/**
+	 * Returns the number of bytes the rdata part would be encoded into, including the rdata length.
+	 * @param dnsname used for domain name compression in the same message.
+	 * @param globalIdx index in the message where the rdata part would be written. (Domain name compression)
+	 * @return encoded length of the rdata part.
+	 * @throws DNSNameException if the domain name is invalid.
+	 */
+	public int encodedLength(DNSName dnsname, int globalIdx) throws DNSNameException {
+		return 2 + genericData.length;
+	}
+
 	/**
 	 * Returns the length of the previously disassembled rdata part.
 	 * @return length of previously disassembled record data.
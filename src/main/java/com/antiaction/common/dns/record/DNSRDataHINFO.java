@@ -25,11 +25,15 @@
  * 27-Aug-2001 : }
  * 09-Oct-2001 : Cloneable.
  * 18-Nov-2001 : Javadoc fix.
+ * 16-Oct-2026 : Added ByteBuffer buildPacket method.
+ *             : Added encodedLength method.
  *
  */
 
 package com.antiaction.common.dns.record;
 
+import java.nio.ByteBuffer;
+
 import com.antiaction.common.dns.DNSName;
 import com.antiaction.common.dns.DNSNameException;
 import com.antiaction.common.dns.DNSType;
@@ -135,6 +139,62 @@ public class DNSRDataHINFO implements DNSRDataInterface {
 		return packetData;
 	}
 
+	/**
+	 * Build the rdata packet on the internal state directly into a buffer.
+	 * @param dnsname used for domain name compression in the same message.
+	 * @param dst buffer the rdata part is written into, starting at its current position.
+	 * @param base index in the buffer where the message begins. (Domain name compression)
+	 * @return number of bytes written.
+	 * @throws DNSNameException if the domain name is invalid.
+	 * @throws java.nio.BufferOverflowException if the buffer is too small.
+	 */
+	public int buildPacket(DNSName dnsname, ByteBuffer dst, int base) throws DNSNameException {
+		int RDLen;
+
+		if ( debug ) {
+			System.out.println("-> DNSRDataHINFO.buildPacket(ByteBuffer)");
+			System.out.println("    CPU: " + cpu);
+			System.out.println("    OS: " + os);
+		}
+
+		RDLen = 2 + cpu.length() + os.length();
+
+	// RDLen
+
+		dst.putShort((short)RDLen);
+
+	// CPU
+
+		dst.put((byte)(cpu.length() & 255));
+		for(int i=0; i<cpu.length(); i++) {
+			dst.put((byte)(cpu.charAt(i) & 255));
+		}
+
+	// OS
+
+		dst.put((byte)(os.length() & 255));
+		for(int i=0; i<os.length(); i++) {
+			dst.put((byte)(os.charAt(i) & 255));
+		}
+
+		if ( debug ) {
+			System.out.println("<- DNSRDataHINFO.buildPacket(ByteBuffer)");
+		}
+
+		return 2 + RDLen;
+	}
+
+	/**
+	 * Returns the number of bytes the rdata part would be encoded into, including the rdata length.
+	 * @param dnsname used for domain name compression in the same message.
+	 * @param globalIdx index in the message where the rdata part would be written. (Domain name compression)
+	 * @return encoded length of the rdata part.
+	 * @throws DNSNameException if the domain name is invalid.
+	 */
+	public int encodedLength(DNSName dnsname, int globalIdx) throws DNSNameException {
+		return 2 + 2 + cpu.length() + os.length();
+	}
+
 	/**
 	 * Returns the length of the previously disassembled rdata part.
 	 * @return length of previously disassembled record data.
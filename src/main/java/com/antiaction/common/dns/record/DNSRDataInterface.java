@@ -27,11 +27,15 @@
  * 25-Aug-2001 : Added debug method.
  * 09-Oct-2001 : Cloneable.
  * 18-Nov-2001 : Javadoc fix.
+ * 16-Oct-2026 : Added ByteBuffer buildPacket method.
+ *             : Added encodedLength method.
  *
  */
 
 package com.antiaction.common.dns.record;
 
+import java.nio.ByteBuffer;
+
 import com.antiaction.common.dns.DNSName;
 import com.antiaction.common.dns.DNSNameException;
 
@@ -66,6 +70,27 @@ public interface DNSRDataInterface extends Cloneable {
 	 */
 	public byte[] buildPacket(DNSName dnsname, int globalIdx) throws DNSNameException;
 
+	/**
+	 * Build the rdata packet on the internal state directly into a buffer.
+	 * @param dnsname used for domain name compression in the same message.
+	 * @param dst buffer the rdata part is written into, starting at its current position.
+	 * @param base index in the buffer where the message begins. (Domain name compression)
+	 * @return number of bytes written.
+	 * @throws DNSNameException if the domain name is invalid.
+	 * @throws java.nio.BufferOverflowException if the buffer is too small.
+	 */
+	public int buildPacket(DNSName dnsname, ByteBuffer dst, int base) throws DNSNameException;
+
+	/**
+	 * Returns the number of bytes the rdata part would be encoded into, including the rdata length.
+	 * Domain names are measured against, and update, the compression structures exactly as when building.
+	 * @param dnsname used for domain name compression in the same message.
+	 * @param globalIdx index in the message where the rdata part would be written. (Domain name compression)
+	 * @return encoded length of the rdata part.
+	 * @throws DNSNameException if the domain name is invalid.
+	 */
+	public int encodedLength(DNSName dnsname, int globalIdx) throws DNSNameException;
+
 	/**
 	 * Returns the length of the previously disassembled rdata part.
 	 * @return length of previously disassembled record data.
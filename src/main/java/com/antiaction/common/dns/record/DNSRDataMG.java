@@ -26,11 +26,16 @@
  * 09-Oct-2001 : Cloneable.
  * 18-Nov-2001 : Javadoc fix.
  * 22-Nov-2001 : buildPacket() RDLen +2 offset error.
+ * 16-Oct-2026 : Added ByteBuffer buildPacket method.
+ *             : Added encodedLength method.
+ *             : Debug flag is no longer pushed to the shared name object.
  *
  */
 
 package com.antiaction.common.dns.record;
 
+import java.nio.ByteBuffer;
+
 import com.antiaction.common.dns.DNSException;
 import com.antiaction.common.dns.DNSName;
 import com.antiaction.common.dns.DNSNameException;
@@ -105,7 +110,6 @@ public class DNSRDataMG implements DNSRDataInterface {
 
 	// Mail Group Member
 
-		dnsname.setDebug(debug);
 		namepkt = dnsname.buildPacket(globalIdx + 2, name, true, true);
 
 	// RDLen
@@ -127,6 +131,57 @@ public class DNSRDataMG implements DNSRDataInterface {
 		return packetData;
 	}
 
+	/**
+	 * Build the rdata packet on the internal state directly into a buffer.
+	 * @param dnsname used for domain name compression in the same message.
+	 * @param dst buffer the rdata part is written into, starting at its current position.
+	 * @param base index in the buffer where the message begins. (Domain name compression)
+	 * @return number of bytes written.
+	 * @throws DNSNameException if the domain name is invalid.
+	 * @throws java.nio.BufferOverflowException if the buffer is too small.
+	 */
+	public int buildPacket(DNSName dnsname, ByteBuffer dst, int base) throws DNSNameException {
+		int sIdx;
+		int RDLen;
+
+		if ( debug ) {
+			System.out.println("-> DNSRDataMG.buildPacket(ByteBuffer)");
+			System.out.println("    mailgroup: " + name);
+		}
+
+		sIdx = dst.position();
+
+	// RDLen
+
+		dst.putShort((short)0);
+
+	// Mail Group Member
+
+		dnsname.buildPacket(dst, base, name, true, true);
+
+	// RDLen
+
+		RDLen = dst.position() - sIdx - 2;
+		dst.putShort(sIdx, (short)RDLen);
+
+		if ( debug ) {
+			System.out.println("<- DNSRDataMG.buildPacket(ByteBuffer)");
+		}
+
+		return 2 + RDLen;
+	}
+
+	/**
+	 * Returns the number of bytes the rdata part would be encoded into, including the rdata length.
+	 * @param dnsname used for domain name compression in the same message.
+	 * @param globalIdx index in the message where the rdata part would be written. (Domain name compression)
+	 * @return encoded length of the rdata part.
+	 * @throws DNSNameException if the domain name is invalid.
+	 */
+	public int encodedLength(DNSName dnsname, int globalIdx) throws DNSNameException {
+		return 2 + dnsname.encodedLength(globalIdx + 2, name, true, true);
+	}
+
 	/**
 	 * Returns the length of the previously disassembled rdata part.
 	 * @return length of previously disassembled record data.
@@ -172,7 +227,6 @@ public class DNSRDataMG implements DNSRDataInterface {
 	// Mail Group Member
 
 		try {
-			dnsname.setDebug(debug);
 			name = dnsname.disassemblePacket(pDat, pIdx, pLen);
 		}
 		catch(DNSException e) {
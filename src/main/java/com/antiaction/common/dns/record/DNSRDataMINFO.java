@@ -25,11 +25,16 @@
  * 09-Oct-2001 : Cloneable.
  * 18-Nov-2001 : Javadoc fix.
  * 22-Nov-2001 : buildPacket() RDLen +2 offset error.
+ * 16-Oct-2026 : Added ByteBuffer buildPacket method.
+ *             : Added encodedLength method.
+ *             : Debug flag is no longer pushed to the shared name object.
  *
  */
 
 package com.antiaction.common.dns.record;
 
+import java.nio.ByteBuffer;
+
 import com.antiaction.common.dns.DNSException;
 import com.antiaction.common.dns.DNSName;
 import com.antiaction.common.dns.DNSNameException;
@@ -110,7 +115,6 @@ public class DNSRDataMINFO implements DNSRDataInterface {
 
 	// Responsible - Error
 
-		dnsname.setDebug(debug);
 		rmailbxpkt = dnsname.buildPacket(globalIdx + 2, rMailBX, true, true);
 		emailbxpkt = dnsname.buildPacket(globalIdx + 2 + rmailbxpkt.length, eMailBX, true, true);
 
@@ -137,6 +141,62 @@ public class DNSRDataMINFO implements DNSRDataInterface {
 		return packetData;
 	}
 
+	/**
+	 * Build the rdata packet on the internal state directly into a buffer.
+	 * @param dnsname used for domain name compression in the same message.
+	 * @param dst buffer the rdata part is written into, starting at its current position.
+	 * @param base index in the buffer where the message begins. (Domain name compression)
+	 * @return number of bytes written.
+	 * @throws DNSNameException if the domain name is invalid.
+	 * @throws java.nio.BufferOverflowException if the buffer is too small.
+	 */
+	public int buildPacket(DNSName dnsname, ByteBuffer dst, int base) throws DNSNameException {
+		int sIdx;
+		int RDLen;
+
+		if ( debug ) {
+			System.out.println("-> DNSRDataMINFO.buildPacket(ByteBuffer)");
+			System.out.println("    rmailbx: " + rMailBX);
+			System.out.println("    emailbx: " + eMailBX);
+		}
+
+		sIdx = dst.position();
+
+	// RDLen
+
+		dst.putShort((short)0);
+
+	// Responsible - Error
+
+		dnsname.buildPacket(dst, base, rMailBX, true, true);
+		dnsname.buildPacket(dst, base, eMailBX, true, true);
+
+	// RDLen
+
+		RDLen = dst.position() - sIdx - 2;
+		dst.putShort(sIdx, (short)RDLen);
+
+		if ( debug ) {
+			System.out.println("<- DNSRDataMINFO.buildPacket(ByteBuffer)");
+		}
+
+		return 2 + RDLen;
+	}
+
+	/**
+	 * Returns the number of bytes the rdata part would be encoded into, including the rdata length.
+	 * @param dnsname used for domain name compression in the same message.
+	 * @param globalIdx index in the message where the rdata part would be written. (Domain name compression)
+	 * @return encoded length of the rdata part.
+	 * @throws DNSNameException if the domain name is invalid.
+	 */
+	public int encodedLength(DNSName dnsname, int globalIdx) throws DNSNameException {
+		int RDLen;
+		RDLen = dnsname.encodedLength(globalIdx + 2, rMailBX, true, true);
+		RDLen += dnsname.encodedLength(globalIdx + 2 + RDLen, eMailBX, true, true);
+		return 2 + RDLen;
+	}
+
 	/**
 	 * Returns the length of the previously disassembled rdata part.
 	 * @return length of previously disassembled record data.
@@ -182,7 +242,6 @@ public class DNSRDataMINFO implements DNSRDataInterface {
 	// Responsible
 
 		try {
-			dnsname.setDebug(debug);
 			rMailBX = dnsname.disassemblePacket(pDat, pIdx, pLen);
 		}
 		catch(DNSException e) {
@@ -194,7 +253,6 @@ public class DNSRDataMINFO implements DNSRDataInterface {
 	// Error
 
 		try {
-			dnsname.setDebug(debug);
 			eMailBX = dnsname.disassemblePacket(pDat, pIdx, pLen);
 		}
 		catch(DNSException e) {
@@ -29,11 +29,17 @@
  * 27-Aug-2001 : Expanded debug info.
  * 09-Oct-2001 : Cloneable.
  * 18-Nov-2001 : Javadoc fix.
+ * 16-Oct-2026 : Added ByteBuffer buildPacket method.
+ *             : Fixed exchange compression index, preference was not accounted for.
+ *             : Added encodedLength method.
+ *             : Debug flag is no longer pushed to the shared name object.
  *
  */
 
 package com.antiaction.common.dns.record;
 
+import java.nio.ByteBuffer;
+
 import com.antiaction.common.dns.DNSException;
 import com.antiaction.common.dns.DNSName;
 import com.antiaction.common.dns.DNSNameException;
@@ -113,8 +119,7 @@ public class DNSRDataMX implements DNSRDataInterface {
 
 	// Exchange
 
-		dnsname.setDebug(debug);
-		exchangepkt = dnsname.buildPacket(globalIdx + 2, exchange, true, true);
+		exchangepkt = dnsname.buildPacket(globalIdx + 4, exchange, true, true);
 
 	// RDLen
 
@@ -140,6 +145,62 @@ public class DNSRDataMX implements DNSRDataInterface {
 		return packetData;
 	}
 
+	/**
+	 * Build the rdata packet on the internal state directly into a buffer.
+	 * @param dnsname used for domain name compression in the same message.
+	 * @param dst buffer the rdata part is written into, starting at its current position.
+	 * @param base index in the buffer where the message begins. (Domain name compression)
+	 * @return number of bytes written.
+	 * @throws DNSNameException if the domain name is invalid.
+	 * @throws java.nio.BufferOverflowException if the buffer is too small.
+	 */
+	public int buildPacket(DNSName dnsname, ByteBuffer dst, int base) throws DNSNameException {
+		int sIdx;
+		int RDLen;
+
+		if ( debug ) {
+			System.out.println("-> DNSRDataMX.buildPacket(ByteBuffer)");
+			System.out.println("    prefs: " + prefs);
+			System.out.println("    exchange: " + exchange);
+		}
+
+		sIdx = dst.position();
+
+	// RDLen
+
+		dst.putShort((short)0);
+
+	// Preference
+
+		dst.putShort((short)prefs);
+
+	// Exchange
+
+		dnsname.buildPacket(dst, base, exchange, true, true);
+
+	// RDLen
+
+		RDLen = dst.position() - sIdx - 2;
+		dst.putShort(sIdx, (short)RDLen);
+
+		if ( debug ) {
+			System.out.println("<- DNSRDataMX.buildPacket(ByteBuffer)");
+		}
+
+		return 2 + RDLen;
+	}
+
+	/**
+	 * Returns the number of bytes the rdata part would be encoded into, including the rdata length.
+	 * @param dnsname used for domain name compression in the same message.
+	 * @param globalIdx index in the message where the rdata part would be written. (Domain name compression)
+	 * @return encoded length of the rdata part.
+	 * @throws DNSNameException if the domain name is invalid.
+	 */
+	public int encodedLength(DNSName dnsname, int globalIdx) throws DNSNameException {
+		return 4 + dnsname.encodedLength(globalIdx + 4, exchange, true, true);
+	}
+
 	/**
 	 * Returns the length of the previously disassembled rdata part.
 	 * @return length of previously disassembled record data.
@@ -189,7 +250,6 @@ public class DNSRDataMX implements DNSRDataInterface {
 	// Exchange
 
 		try {
-			dnsname.setDebug(debug);
 			exchange = dnsname.disassemblePacket(pDat, pIdx, pLen);
 		}
 		catch(DNSException e) {
@@ -0,0 +1,348 @@
+/*
+ * DNS OPT pseudo record container, EDNS(0) options.
+ * Copyright (C) 2026  Nicholas Clarke
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+
+/*
+ * History:
+ *
+ * 16-Oct-2026 : First implementation.
+ *             : Option lengths and the total rdata length are bounds checked when set.
+ *
+ */
+
+package com.antiaction.common.dns.record;
+
+import java.nio.ByteBuffer;
+
+import com.antiaction.common.dns.DNSName;
+import com.antiaction.common.dns.DNSNameException;
+import com.antiaction.common.dns.DNSType;
+
+/**
+ * DNS OPT pseudo record container, EDNS(0) options.
+ * As defined in rfc6891.
+ * The rdata part is a sequence of options, each consisting of a 16 bit code,
+ * a 16 bit length and the option data. The options are kept in their wire format.
+ * The advertised UDP payload size, extended response code, version and flags are carried in
+ * the class and ttl fields of the record header, see <CODE>DNSMessage.setUDPPayloadSize</CODE>.
+ *
+ * @version 2.00
+ * @author Nicholas Clarke <nclarke@diku.dk>
+ */
+public class DNSRDataOPT implements DNSRDataInterface {
+
+	/** Return packet length. */
+	private int disLen = 0;
+
+	/** Debug on/off. */
+	private boolean debug = false;
+
+	/** Maximum length of the rdata part. */
+	protected static final int MAX_RDLEN = 65535;
+
+	/** Record of type OPT. */
+	protected static int rtype = DNSType.OPT;
+	/** Options in wire format. */
+	protected byte[] options;
+
+	/**
+	 * Instantiate and initialize a default OPT record object without options.
+	 */
+	public DNSRDataOPT() {
+		options = new byte[0];
+	}
+
+ 	/**
+ 	 * Overrides Cloneable.
+ 	 * @return a clone of this instance.
+ 	 * @exception OutOfMemoryError if there is not enough memory.
+ 	 * @see java.lang.Cloneable
+ 	 */
+ 	public Object clone() {
+ 		DNSRDataOPT obj = new DNSRDataOPT();
+		obj.options = (byte[])options.clone();
+ 		return obj;
+ 	}
+
+	/**
+	 * Toggle debug status.
+	 * @param b boolean.
+	 */
+	public void setDebug(boolean b) {
+		debug = b;
+	}
+
+	/**
+	 * Build and return the rdata packet on the internal state.
+	 * @param dnsname used for domain name compression in the same message.
+	 * @param globalIdx current index of the message being assembled. (Domain name compression)
+	 * @return the rdata part of the message as a byte array.
+	 * @throws DNSNameException if the domain name is invalid.
+	 */
+	public byte[] buildPacket(DNSName dnsname, int globalIdx) throws DNSNameException {
+		byte[] packetData;
+		int RDLen;
+
+		if ( debug ) {
+			System.out.println("-> DNSRDataOPT.buildPacket()");
+		}
+
+		RDLen = options.length;
+		packetData = new byte[2 + RDLen];
+
+	// RDLen
+
+		packetData[0] = (byte)(RDLen >> 8);
+		packetData[1] = (byte)(RDLen & 255);
+
+	// RData(OPT)
+
+		System.arraycopy(options, 0, packetData, 2, RDLen);
+
+		if ( debug ) {
+			System.out.println("<- DNSRDataOPT.buildPacket()");
+		}
+
+		return packetData;
+	}
+
+	/**
+	 * Build the rdata packet on the internal state directly into a buffer.
+	 * @param dnsname used for domain name compression in the same message.
+	 * @param dst buffer the rdata part is written into, starting at its current position.
+	 * @param base index in the buffer where the message begins. (Domain name compression)
+	 * @return number of bytes written.
+	 * @throws DNSNameException if the domain name is invalid.
+	 * @throws java.nio.BufferOverflowException if the buffer is too small.
+	 */
+	public int buildPacket(DNSName dnsname, ByteBuffer dst, int base) throws DNSNameException {
+		int RDLen;
+
+		if ( debug ) {
+			System.out.println("-> DNSRDataOPT.buildPacket(ByteBuffer)");
+		}
+
+		RDLen = options.length;
+
+	// RDLen
+
+		dst.putShort((short)RDLen);
+
+	// RData(OPT)
+
+		dst.put(options);
+
+		if ( debug ) {
+			System.out.println("<- DNSRDataOPT.buildPacket(ByteBuffer)");
+		}
+
+		return 2 + RDLen;
+	}
+
+	/**
+	 * Returns the number of bytes the rdata part would be encoded into, including the rdata length.
+	 * @param dnsname used for domain name compression in the same message.
+	 * @param globalIdx index in the message where the rdata part would be written. (Domain name compression)
+	 * @return encoded length of the rdata part.
+	 * @throws DNSNameException if the domain name is invalid.
+	 */
+	public int encodedLength(DNSName dnsname, int globalIdx) throws DNSNameException {
+		return 2 + options.length;
+	}
+
+	/**
+	 * Returns the length of the previously disassembled rdata part.
+	 * @return length of previously disassembled record data.
+	 * @see #disassemblePacket(DNSName, byte[], int, int)
+	 */
+	public int getDisassembledLen() {
+		return disLen;
+	}
+
+	/**
+	 * Parses the rdata part of a record.
+	 * @param dnsname used for domain name compression in the same message.
+	 * @param pDat array containing the complete packet.
+	 * @param pIdx index to where in the array the rdata part begins.
+	 * @param pLen length of the whole packet.
+	 * @throws DNSNameException if the domain name is invalid.
+	 * @throws DNSRDataException if the packet is corrupted.
+	 * @see #getDisassembledLen()
+	 */
+	public void disassemblePacket(DNSName dnsname, byte[] pDat, int pIdx, int pLen) throws DNSNameException, DNSRDataException {
+		int RDLen;
+
+		if ( debug ) {
+			System.out.println("-> DNSRDataOPT.disassemblePacket() - idx=" + pIdx);
+		}
+
+	// RDLen
+
+		if ( pIdx + 2 > pLen ) {
+			throw new DNSRDataException("RecordOutOfBounds.");
+		}
+
+		RDLen = (pDat[pIdx++] & 255) << 8 | (pDat[pIdx++] & 255);
+		disLen = 2 + RDLen;
+
+		if ( (pIdx + RDLen) > pLen ) {
+			throw new DNSRDataException("RecordOutOfBounds.");
+		}
+
+	// RData(OPT)
+
+		if ( !validOptions(pDat, pIdx, RDLen) ) {
+			throw new DNSRDataException("RecordOutOfBounds.");
+		}
+
+		if ( options.length != RDLen ) {
+			options = new byte[RDLen];
+		}
+		System.arraycopy(pDat, pIdx, options, 0, RDLen);
+
+		if ( debug ) {
+			System.out.println("<- DNSRDataOPT.disassemblePacket() - Len=" + disLen);
+		}
+	}
+
+	/**
+	 * Returns a boolean indicating whether a sequence of options in wire format ends exactly
+	 * where the last option ends.
+	 * @param pDat array containing the options.
+	 * @param pIdx index to where in the array the options begin.
+	 * @param len length of the options.
+	 * @return options validity.
+	 */
+	protected static boolean validOptions(byte[] pDat, int pIdx, int len) {
+		int oIdx = 0;
+		while ( oIdx < len ) {
+			if ( oIdx + 4 > len ) {
+				return false;
+			}
+			oIdx += 4 + ((pDat[pIdx + oIdx + 2] & 255) << 8 | (pDat[pIdx + oIdx + 3] & 255));
+			if ( oIdx > len ) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Get the record type.
+	 * @return record type.
+	 * @see com.antiaction.common.net.dns.DNSType
+	 */
+	public int getRType() {
+		return rtype;
+	}
+
+	/**
+	 * Remove all options.
+	 */
+	public void clearOptions() {
+		options = new byte[0];
+	}
+
+	/**
+	 * Append an option.
+	 * @param code option code.
+	 * @param data option data.
+	 * @throws IllegalArgumentException if the code is out of range or the option does not fit in the rdata part.
+	 */
+	public void addOption(int code, byte[] data) {
+		byte[] tmpArr;
+		int idx;
+		if ( (code < 0) || (code > 65535) ) {
+			throw new IllegalArgumentException("Invalid option code: " + code);
+		}
+		if ( data.length > MAX_RDLEN - 4 - options.length ) {
+			throw new IllegalArgumentException("Option too long: " + data.length);
+		}
+		tmpArr = new byte[options.length + 4 + data.length];
+		idx = options.length;
+		System.arraycopy(options, 0, tmpArr, 0, idx);
+		tmpArr[idx++] = (byte)(code >> 8);
+		tmpArr[idx++] = (byte)(code & 255);
+		tmpArr[idx++] = (byte)(data.length >> 8);
+		tmpArr[idx++] = (byte)(data.length & 255);
+		System.arraycopy(data, 0, tmpArr, idx, data.length);
+		options = tmpArr;
+	}
+
+	/**
+	 * Get the data of the first option with the given code.
+	 * @param code option code.
+	 * @return copy of the option data or null if the option is not present.
+	 */
+	public byte[] getOption(int code) {
+		byte[] data;
+		int idx = 0;
+		int len;
+		while ( idx + 4 <= options.length ) {
+			len = (options[idx + 2] & 255) << 8 | (options[idx + 3] & 255);
+			if ( ((options[idx] & 255) << 8 | (options[idx + 1] & 255)) == code ) {
+				data = new byte[len];
+				System.arraycopy(options, idx + 4, data, 0, len);
+				return data;
+			}
+			idx += 4 + len;
+		}
+		return null;
+	}
+
+	/**
+	 * Set the options in wire format.
+	 * @param data options in wire format.
+	 * @throws IllegalArgumentException if the options are too long or not a valid sequence of options.
+	 */
+	public void setOptions(byte[] data) {
+		if ( data.length > MAX_RDLEN ) {
+			throw new IllegalArgumentException("Options too long: " + data.length);
+		}
+		if ( !validOptions(data, 0, data.length) ) {
+			throw new IllegalArgumentException("Invalid options.");
+		}
+		options = (byte[])data.clone();
+	}
+
+	/**
+	 * Get the options in wire format.
+	 * @return copy of the options in wire format.
+	 */
+	public byte[] getOptions() {
+		return (byte[])options.clone();
+	}
+
+	/**
+	 * Returns a string representation of the internal state, mostly for debugging purposes.
+	 * @return debug string.
+	 */
+	public String toString() {
+		String tmpStr = "OPT record.\n";
+		int idx = 0;
+		int len;
+		while ( idx + 4 <= options.length ) {
+			len = (options[idx + 2] & 255) << 8 | (options[idx + 3] & 255);
+			tmpStr += "option: " + ((options[idx] & 255) << 8 | (options[idx + 1] & 255)) + " len: " + len + "\n";
+			idx += 4 + len;
+		}
+		return tmpStr;
+	}
+
+}
@@ -0,0 +1,210 @@
+/*
+ * DNS RData registry, maps record types to rdata factories and descriptions.
+ * Copyright (C) 2026  Nicholas Clarke
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+
+/*
+ * History:
+ *
+ * 16-Oct-2026 : First implementation.
+ *             : Registered the OPT pseudo type.
+ *             : Registered the AAAA type.
+ *
+ */
+
+package com.antiaction.common.dns.record;
+
+import com.antiaction.common.dns.DNSType;
+
+/**
+ * DNS RData registry, maps record types to rdata factories and descriptions.
+ * Both are kept in dense arrays indexed by the 16 bit record type, so a lookup is a single array load.
+ * The rfc1035 types, the rfc3596 AAAA type and the rfc6891 OPT pseudo type are registered
+ * by default, applications may register additional types or replace the default
+ * implementations, preferably before any messages are decoded.
+ * Records of types without a factory are decoded as <CODE>DNSRDataGeneric</CODE>.
+ *
+ * @version 2.00
+ * @author Nicholas Clarke <nclarke@diku.dk>
+ */
+public class DNSRDataRegistry {
+
+	/** Number of record types. */
+	private static final int TYPES = 65536;
+
+	/** Factory per record type. */
+	private static final DNSRDataFactory[] factories = new DNSRDataFactory[TYPES];
+
+	/** Description per record type. */
+	private static final String[] descriptions = new String[TYPES];
+
+	static {
+		register(DNSType.A, "A - HostAddress", new DNSRDataFactory() {
+			public DNSRDataInterface newInstance(int rtype) {
+				return new DNSRDataA();
+			}
+		});
+		register(DNSType.NS, "NS - Authoritative name server", new DNSRDataFactory() {
+			public DNSRDataInterface newInstance(int rtype) {
+				return new DNSRDataNS();
+			}
+		});
+		register(DNSType.MD, "MD - MailDestination, obsolete, use Mail Exchange", new DNSRDataFactory() {
+			public DNSRDataInterface newInstance(int rtype) {
+				return new DNSRDataMD();
+			}
+		});
+		register(DNSType.MF, "MF - MailForwarder, obsolete, use Mail Exchange", new DNSRDataFactory() {
+			public DNSRDataInterface newInstance(int rtype) {
+				return new DNSRDataMF();
+			}
+		});
+		register(DNSType.CNAME, "CNAME - CanonicalName", new DNSRDataFactory() {
+			public DNSRDataInterface newInstance(int rtype) {
+				return new DNSRDataCName();
+			}
+		});
+		register(DNSType.SOA, "SOA - Start of a Zone of Authority", new DNSRDataFactory() {
+			public DNSRDataInterface newInstance(int rtype) {
+				return new DNSRDataSOA();
+			}
+		});
+		register(DNSType.MB, "MB - MailBox, experimental", new DNSRDataFactory() {
+			public DNSRDataInterface newInstance(int rtype) {
+				return new DNSRDataMB();
+			}
+		});
+		register(DNSType.MG, "MG - MailGroup, experimental", new DNSRDataFactory() {
+			public DNSRDataInterface newInstance(int rtype) {
+				return new DNSRDataMG();
+			}
+		});
+		register(DNSType.MR, "MR - MailRename, experimental", new DNSRDataFactory() {
+			public DNSRDataInterface newInstance(int rtype) {
+				return new DNSRDataMR();
+			}
+		});
+		register(DNSType.NULL, "NULL - Experimental", new DNSRDataFactory() {
+			public DNSRDataInterface newInstance(int rtype) {
+				return new DNSRDataNULL();
+			}
+		});
+		register(DNSType.WKS, "WKS - Well Known Service Description", new DNSRDataFactory() {
+			public DNSRDataInterface newInstance(int rtype) {
+				return new DNSRDataWKS();
+			}
+		});
+		register(DNSType.PTR, "PTR - Domain Name Pointer", new DNSRDataFactory() {
+			public DNSRDataInterface newInstance(int rtype) {
+				return new DNSRDataPTR();
+			}
+		});
+		register(DNSType.HINFO, "HINFO - Host Information", new DNSRDataFactory() {
+			public DNSRDataInterface newInstance(int rtype) {
+				return new DNSRDataHINFO();
+			}
+		});
+		register(DNSType.MINFO, "MINFO - Mailbox information", new DNSRDataFactory() {
+			public DNSRDataInterface newInstance(int rtype) {
+				return new DNSRDataMINFO();
+			}
+		});
+		register(DNSType.MX, "MX - Mail Exchange", new DNSRDataFactory() {
+			public DNSRDataInterface newInstance(int rtype) {
+				return new DNSRDataMX();
+			}
+		});
+		register(DNSType.TXT, "TXT - Text Strings", new DNSRDataFactory() {
+			public DNSRDataInterface newInstance(int rtype) {
+				return new DNSRDataTXT();
+			}
+		});
+		register(DNSType.AAAA, "AAAA - IPv6 HostAddress", new DNSRDataFactory() {
+			public DNSRDataInterface newInstance(int rtype) {
+				return new DNSRDataAAAA();
+			}
+		});
+		register(DNSType.OPT, "OPT - EDNS option pseudo record", new DNSRDataFactory() {
+			public DNSRDataInterface newInstance(int rtype) {
+				return new DNSRDataOPT();
+			}
+		});
+	}
+
+	/**
+	 * Only the static methods are meant for public use.
+	 */
+	protected DNSRDataRegistry() {
+	}
+
+	/**
+	 * Register or replace the factory and description of a record type.
+	 * @param rtype record type.
+	 * @param description record type description, used by <CODE>DNSType.toString</CODE>.
+	 * @param factory rdata factory or null to decode the type as generic rdata.
+	 * @throws IllegalArgumentException if the record type is out of range.
+	 */
+	public static synchronized void register(int rtype, String description, DNSRDataFactory factory) {
+		if ( (rtype < 0) || (rtype >= TYPES) ) {
+			throw new IllegalArgumentException("Invalid record type: " + rtype);
+		}
+		factories[rtype] = factory;
+		descriptions[rtype] = description;
+	}
+
+	/**
+	 * Returns the factory of a record type.
+	 * @param rtype record type.
+	 * @return rdata factory or null if the type has none.
+	 */
+	public static DNSRDataFactory getFactory(int rtype) {
+		return factories[rtype & (TYPES - 1)];
+	}
+
+	/**
+	 * Returns the description of a record type.
+	 * @param rtype record type.
+	 * @return record type description or null if the type is not registered.
+	 */
+	public static String getDescription(int rtype) {
+		return descriptions[rtype & (TYPES - 1)];
+	}
+
+	/**
+	 * Given a record type returns a boolean indicating whether it is registered.
+	 * @param rtype record type.
+	 * @return true if the record type is registered.
+	 */
+	public static boolean isRegistered(int rtype) {
+		return (rtype >= 0) && (rtype < TYPES) && (descriptions[rtype] != null);
+	}
+
+	/**
+	 * Create a new empty rdata object for a record type, generic rdata if the type has no factory.
+	 * @param rtype record type.
+	 * @return rdata object.
+	 */
+	public static DNSRDataInterface newInstance(int rtype) {
+		DNSRDataFactory factory = factories[rtype & (TYPES - 1)];
+		if ( factory != null ) {
+			return factory.newInstance(rtype);
+		}
+		return new DNSRDataGeneric(rtype);
+	}
+
+}
@@ -29,11 +29,16 @@
  * 09-Oct-2001 : Cloneable.
  * 18-Nov-2001 : Javadoc fix.
  * 20-Nov-2001 : Fixed buildPacket() invalid alloc size.
+ * 16-Oct-2026 : Added ByteBuffer buildPacket method.
+ *             : Added encodedLength method.
+ *             : Debug flag is no longer pushed to the shared name object.
  *
  */
 
 package com.antiaction.common.dns.record;
 
+import java.nio.ByteBuffer;
+
 import com.antiaction.common.dns.DNSException;
 import com.antiaction.common.dns.DNSName;
 import com.antiaction.common.dns.DNSNameException;
@@ -139,7 +144,6 @@ public class DNSRDataSOA implements DNSRDataInterface {
 
 	// Nameserver / Mailbox
 
-		dnsname.setDebug(debug);
 		mnamepkt = dnsname.buildPacket(globalIdx + 2, mname, true, true);
 		rnamepkt = dnsname.buildPacket(globalIdx + 2 + mnamepkt.length, rname, true, true);
 
@@ -201,6 +205,75 @@ public class DNSRDataSOA implements DNSRDataInterface {
 		return packetData;
 	}
 
+	/**
+	 * Build the rdata packet on the internal state directly into a buffer.
+	 * @param dnsname used for domain name compression in the same message.
+	 * @param dst buffer the rdata part is written into, starting at its current position.
+	 * @param base index in the buffer where the message begins. (Domain name compression)
+	 * @return number of bytes written.
+	 * @throws DNSNameException if the domain name is invalid.
+	 * @throws java.nio.BufferOverflowException if the buffer is too small.
+	 */
+	public int buildPacket(DNSName dnsname, ByteBuffer dst, int base) throws DNSNameException {
+		int sIdx;
+		int RDLen;
+
+		if ( debug ) {
+			System.out.println("-> DNSRDataSOA.buildPacket(ByteBuffer)");
+			System.out.println("    mname: " + mname);
+			System.out.println("    rname: " + rname);
+			System.out.println("    serial: " + serial);
+			System.out.println("    refresh: " + refresh);
+			System.out.println("    retry: " + retry);
+			System.out.println("    expire: " + expire);
+			System.out.println("    minimum: " + minimum);
+		}
+
+		sIdx = dst.position();
+
+	// RDLen
+
+		dst.putShort((short)0);
+
+	// Nameserver / Mailbox
+
+		dnsname.buildPacket(dst, base, mname, true, true);
+		dnsname.buildPacket(dst, base, rname, true, true);
+
+	// Serial / Refresh / Retry / Expire / Minimum
+
+		dst.putInt(serial);
+		dst.putInt(refresh);
+		dst.putInt(retry);
+		dst.putInt(expire);
+		dst.putInt(minimum);
+
+	// RDLen
+
+		RDLen = dst.position() - sIdx - 2;
+		dst.putShort(sIdx, (short)RDLen);
+
+		if ( debug ) {
+			System.out.println("<- DNSRDataSOA.buildPacket(ByteBuffer)");
+		}
+
+		return 2 + RDLen;
+	}
+
+	/**
+	 * Returns the number of bytes the rdata part would be encoded into, including the rdata length.
+	 * @param dnsname used for domain name compression in the same message.
+	 * @param globalIdx index in the message where the rdata part would be written. (Domain name compression)
+	 * @return encoded length of the rdata part.
+	 * @throws DNSNameException if the domain name is invalid.
+	 */
+	public int encodedLength(DNSName dnsname, int globalIdx) throws DNSNameException {
+		int RDLen;
+		RDLen = dnsname.encodedLength(globalIdx + 2, mname, true, true);
+		RDLen += dnsname.encodedLength(globalIdx + 2 + RDLen, rname, true, true);
+		return 2 + RDLen + 20;
+	}
+
 	/**
 	 * Returns the length of the previously disassembled rdata part.
 	 * @return length of previously disassembled record data.
@@ -246,7 +319,6 @@ public class DNSRDataSOA implements DNSRDataInterface {
 	// Nameserver
 
 		try {
-			dnsname.setDebug(debug);
 			mname = dnsname.disassemblePacket(pDat, pIdx, pLen);
 		}
 		catch(DNSException e) {
@@ -258,7 +330,6 @@ public class DNSRDataSOA implements DNSRDataInterface {
 	// Mailbox
 
 		try {
-			dnsname.setDebug(debug);
 			rname = dnsname.disassemblePacket(pDat, pIdx, pLen);
 		}
 		catch(DNSException e) {
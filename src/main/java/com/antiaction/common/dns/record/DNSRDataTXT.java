@@ -26,11 +26,16 @@
  * 09-Oct-2001 : Cloneable.
  * 18-Nov-2001 : Javadoc fix.
  * 22-Nov-2001 : buildPacket() RDLen +2 offset error.
+ * 16-Oct-2026 : Added ByteBuffer buildPacket method.
+ *             : Added encodedLength method.
+ *             : Text stored as byte slices in wire format, strings produced on demand.
  *
  */
 
 package com.antiaction.common.dns.record;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
 
 import com.antiaction.common.dns.DNSName;
@@ -40,12 +45,19 @@ import com.antiaction.common.dns.DNSType;
 /**
  * DNS TXT Record container.
  * As defined in rfc1035.
+ * The character strings are kept as bytes in wire format, each prefixed by its length.
+ * A decoded record refers to the rdata inside the packet array instead of copying it,
+ * so the packet array must not be reused while the record is in use, or the record
+ * must be cloned first. Strings are only produced when asked for, using UTF-8.
  *
  * @version 2.00
  * @author Nicholas Clarke <nclarke@diku.dk>
  */
 public class DNSRDataTXT implements DNSRDataInterface {
 
+	/** Charset used for the string views. */
+	protected static final Charset UTF8 = Charset.forName("UTF-8");
+
 	/** Return packet length. */
 	private int disLen = 0;
 
@@ -54,25 +66,34 @@ public class DNSRDataTXT implements DNSRDataInterface {
 
 	/** Record of type TXT. */
 	protected static int rtype = DNSType.TXT;
-	/** Text array. */
-	protected ArrayList txt;
+	/** Array containing the character strings in wire format. */
+	protected byte[] txtArr;
+	/** Index in the array where the character strings begin. */
+	protected int txtIdx;
+	/** Length of the character strings in wire format. */
+	protected int txtLen;
 
 	/**
 	 * Instantiate and initialize a default TXT record object.
 	 */
 	public DNSRDataTXT() {
-		txt = new ArrayList();
+		txtArr = new byte[0];
+		txtIdx = 0;
+		txtLen = 0;
 	}
 
  	/**
  	 * Overrides Cloneable.
+ 	 * The clone holds its own copy of the character strings.
  	 * @return a clone of this instance.
  	 * @exception OutOfMemoryError if there is not enough memory.
  	 * @see java.lang.Cloneable
  	 */
  	public Object clone() {
  		DNSRDataTXT obj = new DNSRDataTXT();
-		obj.txt = (ArrayList)txt.clone();
+		obj.txtArr = new byte[txtLen];
+		System.arraycopy(txtArr, txtIdx, obj.txtArr, 0, txtLen);
+		obj.txtLen = txtLen;
  		return obj;
  	}
 
@@ -95,22 +116,14 @@ public class DNSRDataTXT implements DNSRDataInterface {
 		byte[] packetData;
 		int packetLen;
 		int RDLen;
-		String tmpStr;
-		byte[] tmpArr;
 
 		if ( debug ) {
 			System.out.println("-> DNSRDataTXT.buildPacket()");
-			for(int i=0; i<txt.size(); i++) {
-				System.out.println("    txt: " + (String)txt.get(i));
-			}
+			debugPrint();
 		}
 
 		packetLen = 0;
-		RDLen = 0;
-
-		for(int i=0; i<txt.size(); i++) {
-			RDLen += 1 + ((String)txt.get(i)).length();
-		}
+		RDLen = txtLen;
 
 		packetData = new byte[2+RDLen];
 
@@ -121,24 +134,56 @@ public class DNSRDataTXT implements DNSRDataInterface {
 
 	// RData(TXT)
 
-		for(int i=0; i<txt.size(); i++) {
-			tmpStr = (String)txt.get(i);
-			tmpArr = tmpStr.getBytes();
-			packetData[packetLen++] = (byte)(tmpArr.length & 255);
-			System.arraycopy(tmpArr, 0, packetData, packetLen, tmpArr.length);
-			packetLen += tmpArr.length;
-		}
+		System.arraycopy(txtArr, txtIdx, packetData, packetLen, txtLen);
 
 		if ( debug ) {
-			for(int i=0; i<txt.size(); i++) {
-				System.out.println("    txt: " + (String)txt.get(i));
-			}
 			System.out.println("<- DNSRDataTXT.buildPacket()");
 		}
 
 		return packetData;
 	}
 
+	/**
+	 * Build the rdata packet on the internal state directly into a buffer.
+	 * @param dnsname used for domain name compression in the same message.
+	 * @param dst buffer the rdata part is written into, starting at its current position.
+	 * @param base index in the buffer where the message begins. (Domain name compression)
+	 * @return number of bytes written.
+	 * @throws DNSNameException if the domain name is invalid.
+	 * @throws java.nio.BufferOverflowException if the buffer is too small.
+	 */
+	public int buildPacket(DNSName dnsname, ByteBuffer dst, int base) throws DNSNameException {
+		if ( debug ) {
+			System.out.println("-> DNSRDataTXT.buildPacket(ByteBuffer)");
+			debugPrint();
+		}
+
+	// RDLen
+
+		dst.putShort((short)txtLen);
+
+	// RData(TXT)
+
+		dst.put(txtArr, txtIdx, txtLen);
+
+		if ( debug ) {
+			System.out.println("<- DNSRDataTXT.buildPacket(ByteBuffer)");
+		}
+
+		return 2 + txtLen;
+	}
+
+	/**
+	 * Returns the number of bytes the rdata part would be encoded into, including the rdata length.
+	 * @param dnsname used for domain name compression in the same message.
+	 * @param globalIdx index in the message where the rdata part would be written. (Domain name compression)
+	 * @return encoded length of the rdata part.
+	 * @throws DNSNameException if the domain name is invalid.
+	 */
+	public int encodedLength(DNSName dnsname, int globalIdx) throws DNSNameException {
+		return 2 + txtLen;
+	}
+
 	/**
 	 * Returns the length of the previously disassembled rdata part.
 	 * @return length of previously disassembled record data.
@@ -150,6 +195,7 @@ public class DNSRDataTXT implements DNSRDataInterface {
 
 	/**
 	 * Parses the rdata part of a record.
+	 * The character strings are validated but not copied, the record refers to the packet array.
 	 * @param dnsname used for domain name compression in the same message.
 	 * @param pDat array containing the complete packet.
 	 * @param pIdx index to where in the array the rdata part begins.
@@ -161,11 +207,8 @@ public class DNSRDataTXT implements DNSRDataInterface {
 	public void disassemblePacket(DNSName dnsname, byte[] pDat, int pIdx, int pLen) throws DNSNameException, DNSRDataException {
 		int RDLen;
 		int sIdx;
-		boolean b;
 		int len;
 
-		txt = new ArrayList();
-
 		if ( debug ) {
 			System.out.println("-> DNSRDataTXT.disassemblePacket() - idx=" + pIdx);
 		}
@@ -186,26 +229,21 @@ public class DNSRDataTXT implements DNSRDataInterface {
 	// RData(TXT)
 
 		sIdx = pIdx;
-		b = true;
 
-		while ( b ) {
-			if ( (pIdx - sIdx) == RDLen ) {
-				b = false;
-			}
-			else {
-				len = (pDat[pIdx++] & 255);
-				if ( ((pIdx - sIdx) + len) > RDLen ) {
-					throw new DNSRDataException("RecordOutOfBounds.");
-				}
-				txt.add(new String(pDat, pIdx, len));
-				pIdx += len;
+		while ( (pIdx - sIdx) < RDLen ) {
+			len = (pDat[pIdx++] & 255);
+			if ( ((pIdx - sIdx) + len) > RDLen ) {
+				throw new DNSRDataException("RecordOutOfBounds.");
 			}
+			pIdx += len;
 		}
 
+		txtArr = pDat;
+		txtIdx = sIdx;
+		txtLen = RDLen;
+
 		if ( debug ) {
-			for(int i=0; i<txt.size(); i++) {
-				System.out.println("    txt: " + (String)txt.get(i));
-			}
+			debugPrint();
 			System.out.println("<- DNSRDataTXT.disassemblePacket() - Len=" + disLen);
 		}
 	}
@@ -220,25 +258,145 @@ public class DNSRDataTXT implements DNSRDataInterface {
 	}
 
 	/**
-	 * Set the text as an array of strings.
+	 * Returns the number of character strings.
+	 * @return number of character strings.
+	 */
+	public int getSegmentCount() {
+		int count = 0;
+		int idx = txtIdx;
+		int end = txtIdx + txtLen;
+		while ( idx < end ) {
+			idx += 1 + (txtArr[idx] & 255);
+			++count;
+		}
+		return count;
+	}
+
+	/**
+	 * Returns the index in the internal array of the length byte of a character string.
+	 * @param n character string index.
+	 * @return array index.
+	 * @throws IndexOutOfBoundsException if there is no such character string.
+	 */
+	protected int segmentIndex(int n) {
+		int idx = txtIdx;
+		int end = txtIdx + txtLen;
+		int i = 0;
+		while ( idx < end ) {
+			if ( i++ == n ) {
+				return idx;
+			}
+			idx += 1 + (txtArr[idx] & 255);
+		}
+		throw new IndexOutOfBoundsException("No character string " + n + ".");
+	}
+
+	/**
+	 * Get a character string as bytes.
+	 * @param n character string index.
+	 * @return copy of the character string bytes.
+	 * @throws IndexOutOfBoundsException if there is no such character string.
+	 */
+	public byte[] getSegment(int n) {
+		int idx = segmentIndex(n);
+		byte[] tmpArr = new byte[txtArr[idx] & 255];
+		System.arraycopy(txtArr, idx + 1, tmpArr, 0, tmpArr.length);
+		return tmpArr;
+	}
+
+	/**
+	 * Append a character string given as bytes.
+	 * @param data character string bytes.
+	 * @throws DNSRDataException if the character string is longer than 255 bytes.
+	 */
+	public void addSegment(byte[] data) throws DNSRDataException {
+		addSegment(data, 0, data.length);
+	}
+
+	/**
+	 * Append a character string given as part of an array.
+	 * @param data array containing the character string bytes.
+	 * @param off index of the first byte.
+	 * @param len number of bytes.
+	 * @throws DNSRDataException if the character string is longer than 255 bytes.
+	 */
+	public void addSegment(byte[] data, int off, int len) throws DNSRDataException {
+		byte[] tmpArr;
+		if ( len > 255 ) {
+			throw new DNSRDataException("Text line too long.");
+		}
+		tmpArr = new byte[txtLen + 1 + len];
+		System.arraycopy(txtArr, txtIdx, tmpArr, 0, txtLen);
+		tmpArr[txtLen] = (byte)len;
+		System.arraycopy(data, off, tmpArr, txtLen + 1, len);
+		txtArr = tmpArr;
+		txtIdx = 0;
+		txtLen = tmpArr.length;
+	}
+
+	/**
+	 * Remove all character strings.
+	 */
+	public void clearSegments() {
+		txtArr = new byte[0];
+		txtIdx = 0;
+		txtLen = 0;
+	}
+
+	/**
+	 * Set the text as an array of strings, each string is encoded using UTF-8.
 	 * @param txt array of text lines.
-	 * @throws DNSRDataException if a text line is too long.
+	 * @throws DNSRDataException if a text line is longer than 255 bytes.
 	 */
 	public void setTXT(ArrayList txt) throws DNSRDataException {
+		byte[][] segments = new byte[txt.size()][];
+		byte[] tmpArr;
+		int len = 0;
+		int idx = 0;
 		for(int i=0; i<txt.size(); i++) {
-			if ( ((String)txt.get(i)).length() > 255 ) {
+			segments[i] = ((String)txt.get(i)).getBytes(UTF8);
+			if ( segments[i].length > 255 ) {
 				throw new DNSRDataException("Text line too long.");
 			}
+			len += 1 + segments[i].length;
 		}
-		this.txt = (ArrayList)txt.clone();
+		tmpArr = new byte[len];
+		for(int i=0; i<segments.length; i++) {
+			tmpArr[idx++] = (byte)segments[i].length;
+			System.arraycopy(segments[i], 0, tmpArr, idx, segments[i].length);
+			idx += segments[i].length;
+		}
+		txtArr = tmpArr;
+		txtIdx = 0;
+		txtLen = len;
 	}
 
 	/**
-	 * Get the text as an array of strings.
+	 * Get the text as an array of strings, each character string is decoded using UTF-8.
+	 * The strings are created on each call, they are not kept by the record.
 	 * @return array of strings.
 	 */
 	public ArrayList getTXT() {
-		return (ArrayList)txt.clone();
+		ArrayList txt = new ArrayList();
+		int idx = txtIdx;
+		int end = txtIdx + txtLen;
+		int len;
+		while ( idx < end ) {
+			len = txtArr[idx++] & 255;
+			txt.add(new String(txtArr, idx, len, UTF8));
+			idx += len;
+		}
+		return txt;
+	}
+
+	/**
+	 * Print the text lines, used for debugging.
+	 */
+	private void debugPrint() {
+		ArrayList txt = getTXT();
+		for(int i=0; i<txt.size(); i++) {
+			System.out.println("    txt: " + (String)txt.get(i));
+		}
 	}
 
 	/**
@@ -246,6 +404,7 @@ public class DNSRDataTXT implements DNSRDataInterface {
 	 * @return debug string.
 	 */
 	public String toString() {
+		ArrayList txt = getTXT();
 		String tmpStr = "TXT record.\n";
 			for(int i=0; i<txt.size(); i++) {
 				tmpStr += " txt: " + (String)txt.get(i) + "\n";
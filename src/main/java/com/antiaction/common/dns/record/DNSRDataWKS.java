@@ -27,6 +27,8 @@
  * 09-Oct-2001 : Cloneable.
  * 18-Nov-2001 : Javadoc fix.
  * 22-Nov-2001 : Fixed buildPacket() ipaddr overwrite.
+ * 16-Oct-2026 : Added ByteBuffer buildPacket method.
+ *             : Added encodedLength method.
  *
  * Todo:
  *
@@ -36,6 +38,7 @@
 
 package com.antiaction.common.dns.record;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.BitSet;
 
@@ -173,6 +176,78 @@ public class DNSRDataWKS implements DNSRDataInterface {
 		return packetData;
 	}
 
+	/**
+	 * Build the rdata packet on the internal state directly into a buffer.
+	 * @param dnsname used for domain name compression in the same message.
+	 * @param dst buffer the rdata part is written into, starting at its current position.
+	 * @param base index in the buffer where the message begins. (Domain name compression)
+	 * @return number of bytes written.
+	 * @throws DNSNameException if the domain name is invalid.
+	 * @throws java.nio.BufferOverflowException if the buffer is too small.
+	 */
+	public int buildPacket(DNSName dnsname, ByteBuffer dst, int base) throws DNSNameException {
+		int RDLen;
+		int mapBytes;
+		int count;
+		int shift;
+		int field;
+
+		if ( debug ) {
+			System.out.println("-> DNSRDataWKS.buildPacket(ByteBuffer)");
+			System.out.println("    ipAddr: " + ipAddr);
+			System.out.println("    protocol: " + protocol);
+		}
+
+		mapBytes = (bitmap.size() + 7) / 8;
+		RDLen = ipAddrArr.length + 1 + mapBytes;
+
+	// RDLen
+
+		dst.putShort((short)RDLen);
+
+	// IP
+
+		dst.put(ipAddrArr);
+
+	// Protocol
+
+		dst.put((byte)(protocol & 255));
+
+	// Bit Map
+
+		count = 0;
+		for(int i=0; i<mapBytes; i++) {
+			field = 0;
+			shift = 128;
+			for(int j=0; j<8; j++) {
+				if ( count < bitmap.size() ) {
+					if ( bitmap.get(count++) ) {
+						field |= shift;
+					}
+					shift >>= 1;
+				}
+			}
+			dst.put((byte)field);
+		}
+
+		if ( debug ) {
+			System.out.println("<- DNSRDataWKS.buildPacket(ByteBuffer)");
+		}
+
+		return 2 + RDLen;
+	}
+
+	/**
+	 * Returns the number of bytes the rdata part would be encoded into, including the rdata length.
+	 * @param dnsname used for domain name compression in the same message.
+	 * @param globalIdx index in the message where the rdata part would be written. (Domain name compression)
+	 * @return encoded length of the rdata part.
+	 * @throws DNSNameException if the domain name is invalid.
+	 */
+	public int encodedLength(DNSName dnsname, int globalIdx) throws DNSNameException {
+		return 2 + ipAddrArr.length + 1 + (bitmap.size() + 7) / 8;
+	}
+
 	/**
 	 * Returns the length of the previously disassembled rdata part.
 	 * @return length of previously disassembled record data.
@@ -0,0 +1,166 @@
+/*
+ * DNS Asynchronous transport connector, blocking exchanges on top of an asynchronous transport.
+ * Copyright (C) 2026  Nicholas Clarke
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+
+/*
+ * History:
+ *
+ * 16-Oct-2026 : First implementation.
+ *             : Waits on a future instead of a monitor, virtual threads are not pinned.
+ *
+ */
+
+package com.antiaction.common.dns.transport;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * DNS Asynchronous transport connector, blocking exchanges on top of an asynchronous transport.
+ * Iterates the servers of the transport, each message is submitted to the current server only
+ * and <CODE>receiveMessage</CODE> waits for its outcome.
+ * The wait is on a <CODE>CompletableFuture</CODE>, which parks a virtual thread without pinning its carrier.
+ *
+ * @version 2.00
+ * @author Nicholas Clarke <nclarke@diku.dk>
+ */
+class DNSAsyncConnector implements DNSConnector {
+
+	/** Transport messages are submitted to. */
+	protected DNSAsyncTransport transport;
+	/** List of servers of the transport. */
+	protected List listHostPort;
+
+	/** Host iterator. */
+	protected Iterator iterator;
+	/** Current host. */
+	protected DNSHostPort currHostPort;
+	/** Current host index. */
+	protected int currHost;
+
+	/** Outcome of the last exchange, null if none was submitted. */
+	protected CompletableFuture<byte[]> exchange = null;
+	/** Exception behind the last failed operation. */
+	protected Exception lastException = null;
+
+	/**
+	 * Instantiates a connector and initialize the host iterator.
+	 * @param transport transport messages are submitted to.
+	 * @param listHostPort list of servers of the transport.
+	 */
+	DNSAsyncConnector(DNSAsyncTransport transport, List listHostPort) {
+		this.transport = transport;
+		this.listHostPort = listHostPort;
+		reset();
+	}
+
+	// Javadoc inherited from interface.
+	public void reset() {
+		iterator = listHostPort.iterator();
+		currHostPort = null;
+		currHost = -1;
+	}
+
+	// Javadoc inherited from interface.
+	public boolean hasNext() {
+		currHostPort = null;
+		return iterator.hasNext();
+	}
+
+	// Javadoc inherited from interface.
+	public Object next() throws NoSuchElementException {
+		currHostPort = (DNSHostPort)iterator.next();
+		++currHost;
+		return currHostPort;
+	}
+
+	// Javadoc inherited from interface.
+	public boolean Connect() throws IllegalStateException {
+		if ( currHostPort == null ) {
+			throw new IllegalStateException("No iterator element.");
+		}
+		return transport.isRunning();
+	}
+
+	// Javadoc inherited from interface.
+	public void Disconnect() throws IllegalStateException {
+		currHostPort = null;
+	}
+
+	// Javadoc inherited from interface.
+	public boolean sendMessage(byte[] pDat) throws IllegalStateException {
+		final CompletableFuture<byte[]> future;
+		if ( currHostPort == null ) {
+			throw new IllegalStateException("No iterator element.");
+		}
+		if ( ((exchange != null) && !exchange.isDone()) || (pDat.length == 0) ) {
+			return false;
+		}
+		lastException = null;
+		future = new CompletableFuture<byte[]>();
+		try {
+			transport.submit(pDat, currHost, new DNSExchangeListener() {
+				public void responseReceived(byte[] query, byte[] response, DNSHostPort server) {
+					future.complete(response);
+				}
+				public void exchangeFailed(byte[] query, Exception e) {
+					future.completeExceptionally(e);
+				}
+			});
+		}
+		catch (RuntimeException e) {				// IllegalStateException / IllegalArgumentException
+			lastException = e;
+			exchange = null;
+			return false;
+		}
+		exchange = future;
+		return true;
+	}
+
+	// Javadoc inherited from interface.
+	public byte[] receiveMessage() throws IllegalStateException {
+		if ( currHostPort == null ) {
+			throw new IllegalStateException("No iterator element.");
+		}
+		if ( exchange == null ) {
+			return null;
+		}
+		lastException = null;
+		try {
+			return exchange.get();
+		}
+		catch (ExecutionException e) {
+			lastException = (Exception)e.getCause();
+		}
+		catch (InterruptedException e) {
+			lastException = e;
+			Thread.currentThread().interrupt();
+		}
+		return null;
+	}
+
+	// Javadoc inherited from interface.
+	public Exception getLastException() {
+		return lastException;
+	}
+
+}
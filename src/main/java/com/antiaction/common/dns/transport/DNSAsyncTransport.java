@@ -0,0 +1,66 @@
+/*
+ * DNS Asynchronous message transport interface.
+ * Copyright (C) 2026  Nicholas Clarke
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+
+/*
+ * History:
+ *
+ * 16-Oct-2026 : First implementation.
+ *
+ */
+
+package com.antiaction.common.dns.transport;
+
+/**
+ * DNS Asynchronous message transport interface.
+ * Messages are submitted without blocking and the outcome is delivered to a listener,
+ * server iteration and timeouts are handled by the transport.
+ * The connectors of an asynchronous transport provide the blocking protocol on top of it.
+ *
+ * @version 2.00
+ * @author Nicholas Clarke <nclarke@diku.dk>
+ */
+public interface DNSAsyncTransport extends DNSTransport {
+
+	/**
+	 * Returns whether the transport has been started and not yet closed.
+	 * @return boolean.
+	 */
+	public boolean isRunning();
+
+	/**
+	 * Submit a message, servers are tried in order until one answers.
+	 * @param pDat array of bytes containing the message, copied before the call returns.
+	 * @param listener listener receiving the outcome.
+	 * @throws IllegalStateException if the transport is not running.
+	 * @throws IllegalArgumentException if the message is shorter than a header or too large.
+	 */
+	public void submit(byte[] pDat, DNSExchangeListener listener);
+
+	/**
+	 * Submit a message to all servers or a single server.
+	 * @param pDat array of bytes containing the message, copied before the call returns.
+	 * @param host index of the only server to try, -1 to try all servers in order.
+	 * @param listener listener receiving the outcome.
+	 * @throws IllegalStateException if the transport is not running.
+	 * @throws IllegalArgumentException if the message is shorter than a header or too large.
+	 */
+	public void submit(byte[] pDat, int host, DNSExchangeListener listener);
+
+}
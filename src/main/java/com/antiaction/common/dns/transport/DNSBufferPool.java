@@ -0,0 +1,104 @@
+/*
+ * DNS Buffer pool, reuses the direct buffers of stream connections.
+ * Copyright (C) 2026  Nicholas Clarke
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+
+/*
+ * History:
+ *
+ * 16-Oct-2026 : First implementation.
+ *
+ */
+
+package com.antiaction.common.dns.transport;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+
+/**
+ * DNS Buffer pool, reuses the direct buffers of stream connections.
+ * Direct buffers are expensive to allocate and are only reclaimed by the garbage collector,
+ * so the buffers of closed connections are kept for the next connection.
+ * Buffers are handed out cleared. At most a fixed number of idle buffers are kept,
+ * surplus buffers are left to the garbage collector.
+ *
+ * @version 2.00
+ * @author Nicholas Clarke <nclarke@diku.dk>
+ */
+class DNSBufferPool {
+
+	/** Size of a buffer holding the largest length-prefixed message. */
+	static final int FRAME_SIZE = 2 + 65535;
+
+	/** Default maximum number of idle buffers kept. */
+	static final int DEFAULT_MAX_IDLE = 64;
+
+	/** Shared pool of buffers holding the largest length-prefixed message. */
+	static final DNSBufferPool FRAMES = new DNSBufferPool(FRAME_SIZE, DEFAULT_MAX_IDLE);
+
+	/** Buffer capacity. */
+	protected int size;
+	/** Maximum number of idle buffers kept. */
+	protected int maxIdle;
+	/** Idle buffers. */
+	protected ArrayList idle;
+
+	/**
+	 * Instantiate an empty pool.
+	 * @param size buffer capacity.
+	 * @param maxIdle maximum number of idle buffers kept.
+	 */
+	DNSBufferPool(int size, int maxIdle) {
+		this.size = size;
+		this.maxIdle = maxIdle;
+		idle = new ArrayList();
+	}
+
+	/**
+	 * Returns an idle buffer or a new buffer if none are idle.
+	 * @return cleared buffer.
+	 */
+	synchronized ByteBuffer acquire() {
+		ByteBuffer buf;
+		if ( idle.size() > 0 ) {
+			buf = (ByteBuffer)idle.remove(idle.size() - 1);
+			buf.clear();
+			return buf;
+		}
+		return ByteBuffer.allocateDirect(size);
+	}
+
+	/**
+	 * Return a buffer to the pool, it must no longer be used by the caller.
+	 * @param buf buffer acquired from this pool.
+	 */
+	synchronized void release(ByteBuffer buf) {
+		if ( (buf != null) && (buf.capacity() == size) && (idle.size() < maxIdle) ) {
+			idle.add(buf);
+		}
+	}
+
+	/**
+	 * Returns the number of idle buffers.
+	 * @return number of idle buffers.
+	 */
+	synchronized int getIdleCount() {
+		return idle.size();
+	}
+
+}
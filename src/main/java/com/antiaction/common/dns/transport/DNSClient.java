@@ -0,0 +1,282 @@
+/*
+ * DNS Client, asynchronous query front end on top of the transports.
+ * Copyright (C) 2026  Nicholas Clarke
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+
+/*
+ * History:
+ *
+ * 16-Oct-2026 : First implementation.
+ *             : Blocking transports use the resolver exchange and report the last connector failure.
+ *             : Any DNSAsyncTransport is used without blocking.
+ *             : Default executor is a dedicated one instead of the common fork join pool.
+ *
+ */
+
+package com.antiaction.common.dns.transport;
+
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import com.antiaction.common.dns.DNSMessage;
+
+/**
+ * DNS Client, asynchronous query front end on top of the transports.
+ * <CODE>query</CODE> returns a future which completes with the decoded response,
+ * server iteration, timeouts and retries are handled internally.
+ * <P>
+ * On a started <CODE>DNSAsyncTransport</CODE> queries are exchanged without blocking
+ * any thread, the transport tries each server in turn and times out unanswered attempts.
+ * Any other transport is driven through its blocking connector protocol on the executor,
+ * the transport timeout then bounds each receive.
+ * If every server fails the whole round is retried, up to the configured number of retries.
+ * Responses are decoded on the executor.
+ * Unless one is supplied the client uses its own executor, never the common fork join pool,
+ * since blocking exchanges may hold a thread for the full timeout of every server and retry.
+ *
+ * @version 2.00
+ * @author Nicholas Clarke <nclarke@diku.dk>
+ */
+public class DNSClient {
+
+	/** Default number of retries after the first round over all servers. */
+	public static final int DEFAULT_RETRIES = 2;
+
+	/** Transport queries are exchanged over. */
+	protected DNSTransport transport;
+	/** Executor used for decoding and for blocking transports. */
+	protected Executor executor;
+	/** Number of retries after the first round over all servers. */
+	protected int retries;
+
+	/**
+	 * Instantiate a client using a dedicated executor.
+	 * The executor starts a virtual thread per task when running on Java 21 or later,
+	 * otherwise it is a pool of daemon threads.
+	 * @param transport transport queries are exchanged over.
+	 */
+	public DNSClient(DNSTransport transport) {
+		this(transport, newDefaultExecutor());
+	}
+
+	/**
+	 * Instantiate a client.
+	 * @param transport transport queries are exchanged over.
+	 * @param executor executor used for decoding and for blocking transports.
+	 */
+	public DNSClient(DNSTransport transport, Executor executor) {
+		this.transport = transport;
+		this.executor = executor;
+		retries = DEFAULT_RETRIES;
+	}
+
+	/**
+	 * Returns the executor used when none is supplied.
+	 * @return executor starting virtual threads, or a cached pool of daemon threads.
+	 */
+	protected static ExecutorService newDefaultExecutor() {
+		ExecutorService executor = DNSResolver.newVirtualThreadExecutor();
+		if ( executor == null ) {
+			executor = Executors.newCachedThreadPool(new ThreadFactory() {
+				public Thread newThread(Runnable r) {
+					Thread thread = new Thread(r, "DNSClient");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+		return executor;
+	}
+
+	/**
+	 * Set the number of retries after the first round over all servers.
+	 * @param n number of retries.
+	 */
+	public void setRetries(int n) {
+		if ( n < 0 ) {
+			n = 0;
+		}
+		retries = n;
+	}
+
+	/**
+	 * Get the number of retries after the first round over all servers.
+	 * @return number of retries.
+	 */
+	public int getRetries() {
+		return retries;
+	}
+
+	/**
+	 * Get the transport queries are exchanged over.
+	 * @return transport.
+	 */
+	public DNSTransport getTransport() {
+		return transport;
+	}
+
+	/**
+	 * Send a query and return a future completing with the decoded response.
+	 * The query is encoded before the method returns, the message object may be reused at once.
+	 * The future completes exceptionally with the decoding exception if the response is invalid,
+	 * with a <CODE>SocketTimeoutException</CODE> if no server answered in time and with
+	 * an <CODE>IOException</CODE> for other transport failures.
+	 * On a blocking transport a <CODE>DNSException</CODE> caused by the last connector failure
+	 * is reported instead when no server answered.
+	 * @param query query message.
+	 * @return future response message.
+	 */
+	public CompletableFuture<DNSMessage> query(DNSMessage query) {
+		CompletableFuture<DNSMessage> future = new CompletableFuture<DNSMessage>();
+		ByteBuffer dst;
+		byte[] pDat;
+		try {
+			dst = ByteBuffer.allocate(query.encodedLength());
+			query.assemblePacket(dst);
+			pDat = dst.array();
+		}
+		catch (Exception e) {					// DNSException / DNSNameException
+			future.completeExceptionally(e);
+			return future;
+		}
+		if ( transport instanceof DNSAsyncTransport ) {
+			new AsyncExchange(pDat, future).submit();
+		}
+		else {
+			executor.execute(new BlockingExchange(pDat, future));
+		}
+		return future;
+	}
+
+	/**
+	 * Decode a response on the executor and complete the future with it.
+	 * @param response array of bytes containing the response.
+	 * @param future future to complete.
+	 */
+	protected void decode(final byte[] response, final CompletableFuture<DNSMessage> future) {
+		try {
+			executor.execute(new Runnable() {
+				public void run() {
+					DNSMessage msg = new DNSMessage();
+					try {
+						msg.disassemblePacket(response);
+						future.complete(msg);
+					}
+					catch (Exception e) {				// DNSException / DNSNameException / DNSRDataException
+						future.completeExceptionally(e);
+					}
+				}
+			});
+		}
+		catch (RuntimeException e) {				// RejectedExecutionException
+			future.completeExceptionally(e);
+		}
+	}
+
+	/**
+	 * Exchange on an asynchronous transport, resubmitted when all servers time out.
+	 */
+	class AsyncExchange implements DNSExchangeListener {
+
+		/** Encoded query. */
+		protected byte[] pDat;
+		/** Future completed with the response. */
+		protected CompletableFuture<DNSMessage> future;
+		/** Rounds over all servers started. */
+		protected int rounds = 0;
+
+		/**
+		 * Instantiate an exchange.
+		 * @param pDat encoded query.
+		 * @param future future completed with the response.
+		 */
+		AsyncExchange(byte[] pDat, CompletableFuture<DNSMessage> future) {
+			this.pDat = pDat;
+			this.future = future;
+		}
+
+		/**
+		 * Start a round over all servers.
+		 */
+		void submit() {
+			++rounds;
+			try {
+				((DNSAsyncTransport)transport).submit(pDat, this);
+			}
+			catch (RuntimeException e) {				// IllegalStateException / IllegalArgumentException
+				future.completeExceptionally(e);
+			}
+		}
+
+		// Javadoc inherited from interface.
+		public void responseReceived(byte[] query, byte[] response, DNSHostPort server) {
+			decode(response, future);
+		}
+
+		// Javadoc inherited from interface.
+		public void exchangeFailed(byte[] query, Exception e) {
+			if ( (e instanceof SocketTimeoutException) && (rounds <= retries) && !future.isDone() ) {
+				submit();
+			}
+			else {
+				future.completeExceptionally(e);
+			}
+		}
+
+	}
+
+	/**
+	 * Exchange driving the blocking connector protocol of a transport.
+	 */
+	class BlockingExchange implements Runnable {
+
+		/** Encoded query. */
+		protected byte[] pDat;
+		/** Future completed with the response. */
+		protected CompletableFuture<DNSMessage> future;
+
+		/**
+		 * Instantiate an exchange.
+		 * @param pDat encoded query.
+		 * @param future future completed with the response.
+		 */
+		BlockingExchange(byte[] pDat, CompletableFuture<DNSMessage> future) {
+			this.pDat = pDat;
+			this.future = future;
+		}
+
+		/**
+		 * Try each server in turn, once per round, until a response with a matching id arrives.
+		 */
+		public void run() {
+			try {
+				decode(DNSResolver.exchange(transport, pDat, retries), future);
+			}
+			catch (Exception e) {					// DNSException / RuntimeException from a transport bug.
+				future.completeExceptionally(e);
+			}
+		}
+
+	}
+
+}
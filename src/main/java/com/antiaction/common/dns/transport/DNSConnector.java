@@ -28,6 +28,7 @@
  *             : Added some methods/javadoc.
  *             : Import cleanup.
  * 18-Nov-2001 : Javadoc fix.
+ * 16-Oct-2026 : Added getLastException.
  *
  */
 
@@ -91,6 +92,15 @@ public interface DNSConnector {
 	 */
 	public byte[] receiveMessage() throws IllegalStateException;
 
+	/**
+	 * Returns the exception behind the last failed connect, send or receive, the boolean and null
+	 * results of those methods do not say what went wrong.
+	 * @return exception or null if the last operation succeeded or the connector does not keep track.
+	 */
+	public default Exception getLastException() {
+		return null;
+	}
+
 	/**
 	 * Returns a string representation of the internal state, mostly for debugging purposes.
 	 * @return debug string.
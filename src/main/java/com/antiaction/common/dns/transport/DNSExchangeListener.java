@@ -0,0 +1,56 @@
+/*
+ * DNS Exchange listener, receives the outcome of asynchronous message exchanges.
+ * Copyright (C) 2026  Nicholas Clarke
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+
+/*
+ * History:
+ *
+ * 16-Oct-2026 : First implementation.
+ *
+ */
+
+package com.antiaction.common.dns.transport;
+
+/**
+ * DNS Exchange listener, receives the outcome of asynchronous message exchanges.
+ * Exactly one of the methods is called once for each message submitted to an asynchronous transport.
+ * Methods are called on the transport's I/O thread, listeners should be quick and must not
+ * block or throw, hand the result off to another thread for any real work.
+ *
+ * @version 2.00
+ * @author Nicholas Clarke <nclarke@diku.dk>
+ */
+public interface DNSExchangeListener {
+
+	/**
+	 * Called when a matching response has been received.
+	 * @param query array of bytes containing the message as submitted.
+	 * @param response array of bytes containing the response, owned by the listener.
+	 * @param server server which answered.
+	 */
+	public void responseReceived(byte[] query, byte[] response, DNSHostPort server);
+
+	/**
+	 * Called when no server could be reached or none answered in time.
+	 * @param query array of bytes containing the message as submitted.
+	 * @param e cause of the failure, <CODE>java.net.SocketTimeoutException</CODE> if the last server did not answer in time.
+	 */
+	public void exchangeFailed(byte[] query, Exception e);
+
+}
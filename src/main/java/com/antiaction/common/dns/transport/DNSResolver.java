@@ -0,0 +1,290 @@
+/*
+ * DNS Resolver, thread per query front end for the blocking transports.
+ * Copyright (C) 2026  Nicholas Clarke
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+
+/*
+ * History:
+ *
+ * 16-Oct-2026 : First implementation.
+ *
+ */
+
+package com.antiaction.common.dns.transport;
+
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+
+import com.antiaction.common.dns.DNSException;
+import com.antiaction.common.dns.DNSHeader;
+import com.antiaction.common.dns.DNSMessage;
+import com.antiaction.common.dns.DNSNameException;
+import com.antiaction.common.dns.record.DNSRDataException;
+
+/**
+ * DNS Resolver, thread per query front end for the blocking transports.
+ * Each query runs the blocking connector protocol of the transport on its own thread,
+ * a virtual thread when running on Java 21 or later. On older Java versions queries are queued
+ * for a fixed pool of daemon threads, one per permitted concurrent exchange.
+ * A semaphore bounds the number of exchanges using the network at the same time,
+ * queries beyond the bound park their thread until a permit is released.
+ * <P>
+ * Failures are reported instead of being hidden behind null results, a query where no
+ * server answered throws a <CODE>DNSException</CODE> caused by the exception behind
+ * the last connector failure.
+ *
+ * @version 2.00
+ * @author Nicholas Clarke <nclarke@diku.dk>
+ */
+public class DNSResolver {
+
+	/** Default maximum number of concurrent exchanges. */
+	public static final int DEFAULT_MAX_CONCURRENT = 1024;
+
+	/** Default number of retries after the first round over all servers. */
+	public static final int DEFAULT_RETRIES = 2;
+
+	/** Transport queries are exchanged over. */
+	protected DNSTransport transport;
+	/** Executor starting a thread per query. */
+	protected ExecutorService executor;
+	/** Executor starts virtual threads. */
+	protected boolean virtual;
+	/** Permits for concurrent exchanges. */
+	protected Semaphore permits;
+	/** Maximum number of concurrent exchanges. */
+	protected int maxConcurrent;
+	/** Number of retries after the first round over all servers. */
+	protected int retries;
+
+	/**
+	 * Instantiate a resolver allowing the default number of concurrent exchanges.
+	 * @param transport blocking transport queries are exchanged over.
+	 */
+	public DNSResolver(DNSTransport transport) {
+		this(transport, DEFAULT_MAX_CONCURRENT);
+	}
+
+	/**
+	 * Instantiate a resolver.
+	 * @param transport blocking transport queries are exchanged over.
+	 * @param maxConcurrent maximum number of concurrent exchanges.
+	 */
+	public DNSResolver(DNSTransport transport, int maxConcurrent) {
+		this.transport = transport;
+		this.maxConcurrent = Math.max(1, maxConcurrent);
+		permits = new Semaphore(this.maxConcurrent);
+		retries = DEFAULT_RETRIES;
+		executor = newVirtualThreadExecutor();
+		virtual = (executor != null);
+		if ( !virtual ) {
+			executor = Executors.newFixedThreadPool(this.maxConcurrent, new ThreadFactory() {
+				public Thread newThread(Runnable r) {
+					Thread thread = new Thread(r, "DNSResolver");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+	}
+
+	/**
+	 * Returns an executor starting a virtual thread per task, looked up reflectively
+	 * so the library still runs on Java versions without virtual threads.
+	 * @return executor or null if virtual threads are not available.
+	 */
+	protected static ExecutorService newVirtualThreadExecutor() {
+		Method method;
+		try {
+			method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return (ExecutorService)method.invoke(null);
+		}
+		catch (Exception e) {					// NoSuchMethodException before Java 21.
+			return null;
+		}
+	}
+
+	/**
+	 * Returns whether queries run on virtual threads.
+	 * @return boolean.
+	 */
+	public boolean isVirtual() {
+		return virtual;
+	}
+
+	/**
+	 * Get the maximum number of concurrent exchanges.
+	 * @return maximum number of concurrent exchanges.
+	 */
+	public int getMaxConcurrent() {
+		return maxConcurrent;
+	}
+
+	/**
+	 * Set the number of retries after the first round over all servers.
+	 * @param n number of retries.
+	 */
+	public void setRetries(int n) {
+		if ( n < 0 ) {
+			n = 0;
+		}
+		retries = n;
+	}
+
+	/**
+	 * Get the number of retries after the first round over all servers.
+	 * @return number of retries.
+	 */
+	public int getRetries() {
+		return retries;
+	}
+
+	/**
+	 * Resolve a query on the calling thread.
+	 * Intended to be called from a virtual thread, the thread parks while waiting for a permit and a response.
+	 * @param query query message.
+	 * @return decoded response.
+	 * @throws DNSException if the query could not be encoded, no server answered or the response is corrupted.
+	 * @throws DNSNameException if a name is invalid.
+	 * @throws DNSRDataException if record data in the response is invalid.
+	 * @throws InterruptedException if the thread is interrupted while waiting for a permit.
+	 */
+	public DNSMessage resolve(DNSMessage query) throws DNSException, DNSNameException, DNSRDataException, InterruptedException {
+		return exchange(encode(query));
+	}
+
+	/**
+	 * Resolve a query on a new thread.
+	 * The query is encoded before the method returns, the message object may be reused at once.
+	 * The future completes exceptionally with the exceptions thrown by <CODE>resolve</CODE>.
+	 * @param query query message.
+	 * @return future response message.
+	 */
+	public CompletableFuture<DNSMessage> submit(DNSMessage query) {
+		final CompletableFuture<DNSMessage> future = new CompletableFuture<DNSMessage>();
+		final byte[] pDat;
+		try {
+			pDat = encode(query);
+			executor.execute(new Runnable() {
+				public void run() {
+					try {
+						future.complete(exchange(pDat));
+					}
+					catch (Exception e) {				// DNSException / DNSNameException / DNSRDataException / InterruptedException
+						future.completeExceptionally(e);
+					}
+				}
+			});
+		}
+		catch (Exception e) {					// DNSException / DNSNameException / RejectedExecutionException
+			future.completeExceptionally(e);
+		}
+		return future;
+	}
+
+	/**
+	 * Stop accepting queries, queries already submitted are completed.
+	 */
+	public void close() {
+		executor.shutdown();
+	}
+
+	/**
+	 * Encode a query.
+	 * @param query query message.
+	 * @return encoded query.
+	 * @throws DNSException if the query could not be encoded.
+	 * @throws DNSNameException if a name is invalid.
+	 */
+	protected static byte[] encode(DNSMessage query) throws DNSException, DNSNameException {
+		ByteBuffer dst = ByteBuffer.allocate(query.encodedLength());
+		query.assemblePacket(dst);
+		return dst.array();
+	}
+
+	/**
+	 * Exchange an encoded query while holding a permit and decode the response.
+	 * @param pDat encoded query.
+	 * @return decoded response.
+	 * @throws DNSException if no server answered or the response is corrupted.
+	 * @throws DNSNameException if a name is invalid.
+	 * @throws DNSRDataException if record data in the response is invalid.
+	 * @throws InterruptedException if the thread is interrupted while waiting for a permit.
+	 */
+	protected DNSMessage exchange(byte[] pDat) throws DNSException, DNSNameException, DNSRDataException, InterruptedException {
+		DNSMessage msg = new DNSMessage();
+		byte[] response;
+		permits.acquire();
+		try {
+			response = exchange(transport, pDat, retries);
+		}
+		finally {
+			permits.release();
+		}
+		msg.disassemblePacket(response);
+		return msg;
+	}
+
+	/**
+	 * Exchange an encoded query using the blocking connector protocol of a transport.
+	 * Each server is tried in turn, once per round, until a response with the id of the query arrives.
+	 * @param transport transport.
+	 * @param pDat encoded query.
+	 * @param retries number of retries after the first round over all servers.
+	 * @return response.
+	 * @throws DNSException if no server answered, caused by the last connector failure.
+	 */
+	static byte[] exchange(DNSTransport transport, byte[] pDat, int retries) throws DNSException {
+		DNSConnector connector;
+		Exception lastException = null;
+		byte[] response;
+		int id = (pDat[0] & 255) << 8 | (pDat[1] & 255);
+		for(int round=0; round<=retries; round++) {
+			connector = transport.getConnector();
+			while ( connector.hasNext() ) {
+				connector.next();
+				response = null;
+				if ( connector.Connect() ) {
+					if ( connector.sendMessage(pDat) ) {
+						response = connector.receiveMessage();
+					}
+					if ( connector.getLastException() != null ) {
+						lastException = connector.getLastException();
+					}
+					connector.Disconnect();
+				}
+				else if ( connector.getLastException() != null ) {
+					lastException = connector.getLastException();
+				}
+				if ( response != null ) {
+					if ( (response.length >= DNSHeader.HEADER_SIZE) && (((response[0] & 255) << 8 | (response[1] & 255)) == id) ) {
+						return response;
+					}
+					lastException = new DNSException("Response id mismatch.");
+				}
+			}
+		}
+		throw new DNSException("No response from any server.", lastException);
+	}
+
+}
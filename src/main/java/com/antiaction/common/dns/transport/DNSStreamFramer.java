@@ -0,0 +1,309 @@
+/*
+ * DNS Stream framer, length-prefixed messages on a socket channel.
+ * Copyright (C) 2026  Nicholas Clarke
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+
+/*
+ * History:
+ *
+ * 16-Oct-2026 : First implementation.
+ *             : Selectors are published before waiting, so closing always wakes a blocked thread.
+ *             : Resumable writes, a message can be started without waiting and finished later.
+ *
+ */
+
+package com.antiaction.common.dns.transport;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+
+/**
+ * DNS Stream framer, length-prefixed messages on a socket channel.
+ * As defined in rfc1035 (4.2.2) each message on a stream is preceded by its length in two bytes.
+ * Reads loop until both the length and the whole message have arrived, however the stream
+ * splits them, and bytes read past the end of a message are kept for the next message.
+ * The read buffer holds the largest message and is taken from a shared pool.
+ * Writes are gathering writes, the length and message are handed to the channel in one call.
+ * <P>
+ * The channel is put in non-blocking mode and timeouts are enforced with selectors,
+ * <CODE>Socket.setSoTimeout</CODE> has no effect on channel reads.
+ * One thread may read while another writes, each side must be serialized by the caller.
+ *
+ * @version 2.00
+ * @author Nicholas Clarke <nclarke@diku.dk>
+ */
+class DNSStreamFramer {
+
+	/** Largest message. */
+	static final int MAX_MESSAGE = 65535;
+
+	/** Channel. */
+	protected SocketChannel channel;
+	/** Read buffer, bytes received and not yet returned are between 0 and the position. */
+	protected ByteBuffer in;
+	/** Length prefix of the message being written. */
+	protected ByteBuffer prefix;
+	/** Length prefix and message being written. */
+	protected ByteBuffer[] gather;
+	/** Selector waiting for the channel to become readable, opened when first needed. */
+	protected volatile Selector readSelector = null;
+	/** Selector waiting for the channel to become writable, opened when first needed. */
+	protected volatile Selector writeSelector = null;
+
+	/**
+	 * Frame messages on a connected channel.
+	 * @param channel connected channel.
+	 * @throws IOException if the channel could not be made non-blocking.
+	 */
+	DNSStreamFramer(SocketChannel channel) throws IOException {
+		this.channel = channel;
+		channel.configureBlocking(false);
+		prefix = ByteBuffer.allocate(2);
+		gather = new ByteBuffer[2];
+		in = DNSBufferPool.FRAMES.acquire();
+	}
+
+	/**
+	 * Returns the channel.
+	 * @return channel.
+	 */
+	SocketChannel getChannel() {
+		return channel;
+	}
+
+	/**
+	 * Write a message preceded by its length.
+	 * @param pDat array of bytes containing the message.
+	 * @param timeout milliseconds to wait for the channel to accept the message, 0 waits forever.
+	 * @throws IOException if the message is too large, the write failed or timed out.
+	 */
+	void writeMessage(byte[] pDat, int timeout) throws IOException {
+		long deadline = deadline(timeout);
+		beginMessage(pDat);
+		try {
+			while ( !writePending() ) {
+				awaitWritable(deadline);
+			}
+		}
+		finally {
+			gather[1] = null;
+		}
+	}
+
+	/**
+	 * Start writing a message preceded by its length, the message is written by <CODE>writePending</CODE>.
+	 * @param pDat array of bytes containing the message.
+	 * @throws IOException if the message is too large.
+	 */
+	void beginMessage(byte[] pDat) throws IOException {
+		if ( pDat.length > MAX_MESSAGE ) {
+			throw new IOException("Message too large.");
+		}
+		prefix.clear();
+		prefix.putShort((short)pDat.length);
+		prefix.flip();
+		gather[0] = prefix;
+		gather[1] = ByteBuffer.wrap(pDat);
+	}
+
+	/**
+	 * Returns whether a message has been started and not completely written.
+	 * @return boolean.
+	 */
+	boolean isWriting() {
+		return (gather[1] != null);
+	}
+
+	/**
+	 * Write as much of the started message as the channel accepts without waiting.
+	 * @return true if the whole message has been written.
+	 * @throws IOException if the write failed.
+	 */
+	boolean writePending() throws IOException {
+		while ( gather[1].hasRemaining() ) {
+			if ( channel.write(gather) == 0 ) {
+				return false;
+			}
+		}
+		gather[1] = null;
+		return true;
+	}
+
+	/**
+	 * Wait for the channel to accept more of the started message.
+	 * @param deadline time to give up at, 0 for never.
+	 * @throws IOException if the channel was closed or the wait timed out.
+	 */
+	void awaitWritable(long deadline) throws IOException {
+		if ( writeSelector == null ) {
+			writeSelector = open(SelectionKey.OP_WRITE);
+		}
+		await(writeSelector, deadline, "Write timed out.");
+	}
+
+	/**
+	 * Read the next message.
+	 * @param timeout milliseconds to wait for the whole message, 0 waits forever.
+	 * @return array of bytes containing the message.
+	 * @throws EOFException if the stream ended before a whole message was read.
+	 * @throws SocketTimeoutException if the message did not arrive in time.
+	 * @throws IOException if the read failed.
+	 */
+	byte[] readMessage(int timeout) throws IOException {
+		byte[] pDat;
+		int pLen;
+		long deadline = deadline(timeout);
+		fill(2, deadline);
+		pLen = (in.get(0) & 255) << 8 | (in.get(1) & 255);
+		fill(2 + pLen, deadline);
+		pDat = new byte[pLen];
+		in.flip();
+		in.position(2);
+		in.get(pDat);
+		in.compact();
+		return pDat;
+	}
+
+	/**
+	 * Read until the buffer holds at least the given number of bytes.
+	 * @param n number of bytes.
+	 * @param deadline time to give up at, 0 for never.
+	 * @throws IOException if the stream ended, the read failed or timed out.
+	 */
+	protected void fill(int n, long deadline) throws IOException {
+		int read;
+		while ( in.position() < n ) {
+			read = channel.read(in);
+			if ( read == -1 ) {
+				throw new EOFException("Connection closed by server.");
+			}
+			if ( read == 0 ) {
+				if ( readSelector == null ) {
+					readSelector = open(SelectionKey.OP_READ);
+				}
+				await(readSelector, deadline, "Read timed out.");
+			}
+		}
+	}
+
+	/**
+	 * Returns the time a timeout expires at.
+	 * @param timeout timeout in milliseconds, 0 for none.
+	 * @return monotonic time in milliseconds, 0 for never.
+	 */
+	static long deadline(int timeout) {
+		if ( timeout <= 0 ) {
+			return 0;
+		}
+		return System.nanoTime() / 1000000L + timeout;
+	}
+
+	/**
+	 * Open a selector with the channel registered for one kind of operation.
+	 * @param ops interest operations.
+	 * @return selector.
+	 * @throws IOException if the selector could not be opened or the channel is closed.
+	 */
+	protected Selector open(int ops) throws IOException {
+		Selector selector = Selector.open();
+		try {
+			channel.register(selector, ops);
+		}
+		catch (IOException e) {
+			selector.close();
+			throw e;
+		}
+		return selector;
+	}
+
+	/**
+	 * Wait for the channel to become ready.
+	 * The selector must already be stored in its field, so that <CODE>close</CODE> can wake it.
+	 * Closing a channel does not by itself wake a selector blocked on it.
+	 * @param selector selector for this kind of operation.
+	 * @param deadline time to give up at, 0 for never.
+	 * @param msg message of the timeout exception.
+	 * @throws IOException if the channel was closed or the wait timed out.
+	 */
+	protected void await(Selector selector, long deadline, String msg) throws IOException {
+		long remaining = 0;
+		// Closed before the selector was published, close could not wake it.
+		if ( !channel.isOpen() ) {
+			throw new IOException("Connection closed.");
+		}
+		if ( deadline != 0 ) {
+			remaining = deadline - System.nanoTime() / 1000000L;
+			if ( remaining <= 0 ) {
+				throw new SocketTimeoutException(msg);
+			}
+		}
+		selector.select(remaining);
+		selector.selectedKeys().clear();
+		if ( !channel.isOpen() ) {
+			throw new IOException("Connection closed.");
+		}
+	}
+
+	/**
+	 * Close the channel, a thread blocked reading or writing fails with an <CODE>IOException</CODE>.
+	 */
+	void close() {
+		Selector selector;
+		try {
+			channel.close();
+		}
+		catch (IOException e) {
+		}
+		selector = readSelector;
+		if ( selector != null ) {
+			selector.wakeup();
+		}
+		selector = writeSelector;
+		if ( selector != null ) {
+			selector.wakeup();
+		}
+	}
+
+	/**
+	 * Close the selectors and return the read buffer to the pool.
+	 * Must only be called once no thread is reading or writing and none will again.
+	 */
+	void release() {
+		close();
+		try {
+			if ( readSelector != null ) {
+				readSelector.close();
+			}
+			if ( writeSelector != null ) {
+				writeSelector.close();
+			}
+		}
+		catch (IOException e) {
+		}
+		if ( in != null ) {
+			DNSBufferPool.FRAMES.release(in);
+			in = null;
+		}
+	}
+
+}
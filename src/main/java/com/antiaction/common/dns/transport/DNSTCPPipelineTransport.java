@@ -0,0 +1,1034 @@
+/*
+ * DNS Pipelined stream message transport (TCP), persistent connections as in rfc7766.
+ * Copyright (C) 2026  Nicholas Clarke
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+
+/*
+ * History:
+ *
+ * 16-Oct-2026 : First implementation.
+ *             : Messages framed on a socket channel, gathering writes, pooled read buffer.
+ *             : Connects and blocked writes moved to worker threads, submitting and timeouts never block.
+ *             : Idle connections are closed and removed from the pool in one step.
+ *
+ */
+
+package com.antiaction.common.dns.transport;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import com.antiaction.common.dns.DNSHeader;
+
+/**
+ * DNS Pipelined stream message transport (TCP), persistent connections as in rfc7766.
+ * Keeps a bounded pool of long-lived connections per server. Queries are pipelined,
+ * several length-prefixed messages are written on a connection without waiting for the
+ * responses, which are matched to their queries by message id in whatever order they arrive.
+ * Each query is given a message id which is unique on its connection, the submitter's
+ * message id is restored in the response.
+ * <P>
+ * A query is placed on the least loaded connection of its server, a new connection is opened
+ * while all connections carry the pipeline depth and the pool is not full.
+ * Connections without queries in flight are closed after the idle timeout.
+ * When a connection is lost its queries are sent again on a new connection to the same server,
+ * once, before moving on to the next server. Queries not answered within the timeout
+ * move on to the next server.
+ * <P>
+ * Each query is answered by one message, a zone transfer spanning several messages
+ * should use a connector of <CODE>DNSTCPTransport</CODE>.
+ * Add servers before calling <CODE>start</CODE>, then <CODE>submit</CODE> messages from any thread.
+ * Submitting never blocks, messages are written on the submitting thread as long as the connection
+ * accepts them without waiting. Connections are opened and the rest of the writes are done by
+ * worker threads, queries waiting for a connection are placed on it once it is open.
+ *
+ * @version 2.00
+ * @author Nicholas Clarke <nclarke@diku.dk>
+ */
+public class DNSTCPPipelineTransport implements DNSAsyncTransport {
+
+	/** Default timeout in milliseconds. */
+	public static final int DEFAULT_TIMEOUT = 5000;
+
+	/** Default idle timeout in milliseconds. */
+	public static final int DEFAULT_IDLE_TIMEOUT = 10000;
+
+	/** Default maximum number of connections per server. */
+	public static final int DEFAULT_MAX_CONNECTIONS = 2;
+
+	/** Default number of queries in flight on a connection before another connection is opened. */
+	public static final int DEFAULT_PIPELINE_DEPTH = 32;
+
+	/** Number of message ids per connection. */
+	protected static final int IDS = 65536;
+
+	/** Largest message. */
+	protected static final int MAX_MESSAGE = 65535;
+
+	/** Marks a message id whose query timed out, reserved until its late response arrives. */
+	protected static final Exchange TIMED_OUT = new Exchange();
+
+	/** List of server to choose from. */
+	protected ArrayList listHostPort;
+	/** Timeout when waiting for responses. */
+	protected int connTimeout;
+	/** Time a connection without queries in flight is kept open. */
+	protected int idleTimeout;
+	/** Maximum number of connections per server. */
+	protected int maxConnections;
+	/** Number of queries in flight on a connection before another connection is opened. */
+	protected int pipelineDepth;
+
+	/** Servers, fixed when the transport is started. */
+	protected DNSHostPort[] hosts;
+	/** Open connections per server. */
+	protected ArrayList[] pools;
+	/** Connections being opened per server. */
+	protected int[] connecting;
+	/** Exchanges waiting for a connection being opened, per server. */
+	protected ArrayList[] waiting;
+	/** Timer used for query and idle timeouts. */
+	protected ScheduledThreadPoolExecutor timer;
+	/** Worker threads opening connections and finishing writes. */
+	protected ExecutorService worker;
+
+	/** Running state. */
+	protected volatile boolean running = false;
+
+	/**
+	 * Instantiate an empty transport object.
+	 */
+	public DNSTCPPipelineTransport() {
+		listHostPort = new ArrayList();
+		connTimeout = DEFAULT_TIMEOUT;
+		idleTimeout = DEFAULT_IDLE_TIMEOUT;
+		maxConnections = DEFAULT_MAX_CONNECTIONS;
+		pipelineDepth = DEFAULT_PIPELINE_DEPTH;
+	}
+
+	/**
+	 * Set the time each server is given to answer, also used when connecting. 0 waits forever.
+	 * @param timeout in milliseconds.
+	 */
+	public void setTimeout(int timeout) {
+		connTimeout = timeout;
+	}
+
+	// Javadoc inherited from interface.
+	public int getTimeout() {
+		return connTimeout;
+	}
+
+	/**
+	 * Set the time a connection without queries in flight is kept open.
+	 * Must be set before the transport is started.
+	 * @param timeout in milliseconds.
+	 */
+	public void setIdleTimeout(int timeout) {
+		if ( timeout < 1 ) {
+			timeout = 1;
+		}
+		idleTimeout = timeout;
+	}
+
+	/**
+	 * Get the time a connection without queries in flight is kept open.
+	 * @return timeout in milliseconds.
+	 */
+	public int getIdleTimeout() {
+		return idleTimeout;
+	}
+
+	/**
+	 * Set the maximum number of connections per server.
+	 * @param n number of connections.
+	 */
+	public void setMaxConnections(int n) {
+		if ( n < 1 ) {
+			n = 1;
+		}
+		maxConnections = n;
+	}
+
+	/**
+	 * Get the maximum number of connections per server.
+	 * @return number of connections.
+	 */
+	public int getMaxConnections() {
+		return maxConnections;
+	}
+
+	/**
+	 * Set the number of queries in flight on a connection before another connection is opened.
+	 * Once the pool is full queries are pipelined deeper on the least loaded connection.
+	 * @param n number of queries.
+	 */
+	public void setPipelineDepth(int n) {
+		if ( n < 1 ) {
+			n = 1;
+		}
+		pipelineDepth = n;
+	}
+
+	/**
+	 * Get the number of queries in flight on a connection before another connection is opened.
+	 * @return number of queries.
+	 */
+	public int getPipelineDepth() {
+		return pipelineDepth;
+	}
+
+	// Javadoc inherited from interface.
+	public void addHost(String host, int port) {
+		listHostPort.add(new DNSHostPort(host, port));
+	}
+
+	// Javadoc inherited from interface.
+	public DNSConnector getConnector() {
+		return (new DNSAsyncConnector(this, listHostPort));
+	}
+
+	// Javadoc inherited from interface.
+	public boolean isRunning() {
+		return running;
+	}
+
+	/**
+	 * Returns the number of open connections to a server.
+	 * @param host server index.
+	 * @return number of open connections.
+	 */
+	public synchronized int getConnectionCount(int host) {
+		if ( (pools == null) || (host < 0) || (host >= pools.length) ) {
+			return 0;
+		}
+		return pools[host].size();
+	}
+
+	/**
+	 * Start the timer, connections are opened when needed.
+	 * @throws IllegalStateException if the transport is already running.
+	 */
+	public synchronized void start() {
+		if ( running ) {
+			throw new IllegalStateException("Transport already running.");
+		}
+		hosts = (DNSHostPort[])listHostPort.toArray(new DNSHostPort[listHostPort.size()]);
+		pools = new ArrayList[hosts.length];
+		connecting = new int[hosts.length];
+		waiting = new ArrayList[hosts.length];
+		for(int i=0; i<hosts.length; i++) {
+			pools[i] = new ArrayList();
+			waiting[i] = new ArrayList();
+		}
+		timer = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, "DNSTCPPipelineTransport-timer");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		timer.setRemoveOnCancelPolicy(true);
+		worker = Executors.newCachedThreadPool(new ThreadFactory() {
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, "DNSTCPPipelineTransport-worker");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		timer.scheduleWithFixedDelay(new Runnable() {
+			public void run() {
+				closeIdle();
+			}
+		}, idleTimeout, Math.max(1, idleTimeout / 2), TimeUnit.MILLISECONDS);
+		running = true;
+	}
+
+	/**
+	 * Close all connections and stop the timer.
+	 * Queries still in flight fail with an <CODE>IOException</CODE>.
+	 */
+	public void close() {
+		Connection[] conns;
+		ArrayList tmpList = new ArrayList();
+		ArrayList queued = new ArrayList();
+		synchronized ( this ) {
+			if ( !running ) {
+				return;
+			}
+			running = false;
+			for(int i=0; i<pools.length; i++) {
+				tmpList.addAll(pools[i]);
+				queued.addAll(waiting[i]);
+				waiting[i].clear();
+			}
+		}
+		conns = (Connection[])tmpList.toArray(new Connection[tmpList.size()]);
+		for(int i=0; i<conns.length; i++) {
+			conns[i].close(new IOException("Transport closed."));
+		}
+		for(int i=0; i<queued.size(); i++) {
+			fail((Exchange)queued.get(i), new IOException("Transport closed."));
+		}
+		timer.shutdownNow();
+		// Interrupts connects in progress.
+		worker.shutdownNow();
+	}
+
+	// Javadoc inherited from interface.
+	public void submit(byte[] pDat, DNSExchangeListener listener) {
+		submit(pDat, -1, listener);
+	}
+
+	// Javadoc inherited from interface.
+	public void submit(byte[] pDat, int host, DNSExchangeListener listener) {
+		Exchange ex;
+		if ( !running ) {
+			throw new IllegalStateException("Transport not running.");
+		}
+		if ( (pDat.length < DNSHeader.HEADER_SIZE) || (pDat.length > MAX_MESSAGE) ) {
+			throw new IllegalArgumentException("Invalid message length: " + pDat.length);
+		}
+		ex = new Exchange();
+		ex.query = pDat;
+		ex.pDat = (byte[])pDat.clone();
+		ex.origId = (pDat[0] & 255) << 8 | (pDat[1] & 255);
+		ex.listener = listener;
+		ex.fixed = (host >= 0);
+		ex.host = ex.fixed ? host : 0;
+		if ( hosts.length == 0 ) {
+			fail(ex, new IOException("No servers."));
+		}
+		else if ( ex.host >= hosts.length ) {
+			fail(ex, new IOException("No such server."));
+		}
+		else {
+			dispatch(ex);
+		}
+	}
+
+	/**
+	 * Place an exchange on a connection to its current server and write it,
+	 * or leave it waiting for a connection being opened.
+	 * @param ex exchange.
+	 */
+	protected void dispatch(Exchange ex) {
+		Connection conn;
+		int attempt;
+		try {
+			conn = acquire(ex);
+		}
+		catch (IOException e) {
+			fail(ex, e);
+			return;
+		}
+		if ( conn == null ) {
+			return;
+		}
+		attempt = conn.register(ex);
+		if ( attempt == 0 ) {
+			// Closed after it was acquired, nothing was sent.
+			dispatch(ex);
+			return;
+		}
+		if ( attempt == -1 ) {
+			// All ids held by timed out queries, replace the connection.
+			conn.close(new IOException("Out of message ids."));
+			lost(ex, new IOException("Connection closed."));
+			return;
+		}
+		if ( connTimeout > 0 ) {
+			ex.schedule(timer, new Timeout(ex, attempt), connTimeout);
+		}
+		conn.send();
+	}
+
+	/**
+	 * Returns the least loaded connection to the server of an exchange.
+	 * A new connection is opened by a worker thread if all connections carry the pipeline depth
+	 * and the pool is not full. Without any open connection the exchange waits for the new one.
+	 * @param ex exchange.
+	 * @return connection or null if the exchange is waiting for a connection.
+	 * @throws IOException if the transport is closed.
+	 */
+	protected Connection acquire(Exchange ex) throws IOException {
+		ArrayList pool;
+		Connection best = null;
+		Connection conn;
+		int host = ex.host;
+		boolean full;
+		boolean open = false;
+		synchronized ( this ) {
+			if ( !running ) {
+				throw new IOException("Transport closed.");
+			}
+			pool = pools[host];
+			for(int i=0; i<pool.size(); i++) {
+				conn = (Connection)pool.get(i);
+				if ( (best == null) || (conn.inFlight < best.inFlight) ) {
+					best = conn;
+				}
+			}
+			full = (pool.size() + connecting[host] >= maxConnections);
+			if ( (best != null) && ((best.inFlight < pipelineDepth) || full) ) {
+				return best;
+			}
+			if ( !full ) {
+				++connecting[host];
+				open = true;
+			}
+			if ( best == null ) {
+				waiting[host].add(ex);
+			}
+		}
+		if ( open ) {
+			try {
+				worker.execute(new Connect(host));
+			}
+			catch (RejectedExecutionException e) {
+				// Transport closed meanwhile, waiting exchanges are failed by close.
+				synchronized ( this ) {
+					--connecting[host];
+				}
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Close the connections which have had no queries in flight for the idle timeout.
+	 */
+	protected void closeIdle() {
+		ArrayList idle = new ArrayList();
+		Connection conn;
+		long now = now();
+		synchronized ( this ) {
+			for(int i=0; i<pools.length; i++) {
+				for(int j=0; j<pools[i].size(); j++) {
+					conn = (Connection)pools[i].get(j);
+					if ( (conn.inFlight == 0) && (now - conn.lastActivity >= idleTimeout) ) {
+						idle.add(conn);
+					}
+				}
+			}
+		}
+		for(int i=0; i<idle.size(); i++) {
+			conn = (Connection)idle.get(i);
+			if ( conn.markClosed(idleTimeout) ) {
+				conn.shutdown(null);
+			}
+		}
+	}
+
+	/**
+	 * Returns the current time from the monotonic clock.
+	 * @return time in milliseconds.
+	 */
+	protected static long now() {
+		return System.nanoTime() / 1000000L;
+	}
+
+	/**
+	 * Send an exchange again after its connection was lost, on a new connection to the same server
+	 * the first time, otherwise on the next server.
+	 * @param ex exchange.
+	 * @param e cause reported if the exchange fails.
+	 */
+	protected void lost(Exchange ex, Exception e) {
+		if ( ex.reconnects++ < 1 ) {
+			dispatch(ex);
+		}
+		else {
+			failover(ex, e);
+		}
+	}
+
+	/**
+	 * Move an exchange on to the next server, or fail it if there are no more servers.
+	 * @param ex exchange.
+	 * @param e cause reported if the exchange fails.
+	 */
+	protected void failover(Exchange ex, Exception e) {
+		if ( ex.fixed || (ex.host + 1 >= hosts.length) || !running ) {
+			fail(ex, e);
+		}
+		else {
+			++ex.host;
+			ex.reconnects = 0;
+			dispatch(ex);
+		}
+	}
+
+	/**
+	 * Complete an exchange with a response.
+	 * @param ex exchange.
+	 * @param response response without length prefix.
+	 */
+	protected void complete(Exchange ex, byte[] response) {
+		if ( !ex.finish() ) {
+			return;
+		}
+		response[0] = (byte)(ex.origId >> 8);
+		response[1] = (byte)(ex.origId & 255);
+		try {
+			ex.listener.responseReceived(ex.query, response, hosts[ex.host]);
+		}
+		catch (RuntimeException re) {				// Listener bug, must not kill the reader thread.
+		}
+	}
+
+	/**
+	 * Fail an exchange.
+	 * @param ex exchange.
+	 * @param e cause.
+	 */
+	protected void fail(Exchange ex, Exception e) {
+		if ( !ex.finish() ) {
+			return;
+		}
+		try {
+			ex.listener.exchangeFailed(ex.query, e);
+		}
+		catch (RuntimeException re) {				// Listener bug, must not kill the calling thread.
+		}
+	}
+
+	// Javadoc inherited from interface.
+	public String toString() {
+		String host;
+		int port;
+		String tmpStr = "";
+		tmpStr += "Server(s):\n";
+		tmpStr += "----------";
+		for(int i=0; i<listHostPort.size(); i++) {
+			host = ((DNSHostPort)listHostPort.get(i)).getHost();
+			port = ((DNSHostPort)listHostPort.get(i)).getPort();
+			tmpStr += " " + host + ":" + port + "\n";
+		}
+		return tmpStr;
+	}
+
+	/**
+	 * State of a single message exchange.
+	 */
+	protected static class Exchange {
+
+		/** Message as submitted. */
+		protected byte[] query;
+		/** Copy of the message as submitted. */
+		protected byte[] pDat;
+		/** Message id of the submitted message. */
+		protected int origId;
+		/** Listener receiving the outcome. */
+		protected DNSExchangeListener listener;
+		/** Only the initial server may be tried. */
+		protected boolean fixed;
+		/** Current server index. */
+		protected int host;
+		/** Number of times the exchange was sent again after losing its connection. */
+		protected int reconnects;
+		/** Number of times the exchange has been registered on a connection. */
+		protected volatile int attempt;
+		/** Connection of the current attempt. */
+		protected volatile Connection conn;
+		/** Message id of the current attempt. */
+		protected volatile int id;
+		/** Timeout of the current attempt, null if none. */
+		protected ScheduledFuture timeout;
+		/** Outcome has been delivered. */
+		protected boolean done;
+
+		/**
+		 * Schedule the timeout of the current attempt, replacing any previous timeout.
+		 * @param timer timer.
+		 * @param task timeout task.
+		 * @param delay timeout in milliseconds.
+		 */
+		protected synchronized void schedule(ScheduledThreadPoolExecutor timer, Runnable task, int delay) {
+			if ( timeout != null ) {
+				timeout.cancel(false);
+				timeout = null;
+			}
+			if ( done ) {
+				return;
+			}
+			try {
+				timeout = timer.schedule(task, delay, TimeUnit.MILLISECONDS);
+			}
+			catch (RuntimeException e) {				// RejectedExecutionException, transport closed.
+			}
+		}
+
+		/**
+		 * Mark the exchange done and cancel its timeout.
+		 * @return true if the exchange was not already done.
+		 */
+		protected synchronized boolean finish() {
+			if ( done ) {
+				return false;
+			}
+			done = true;
+			if ( timeout != null ) {
+				timeout.cancel(false);
+			}
+			return true;
+		}
+
+	}
+
+	/**
+	 * Timeout of one attempt of an exchange.
+	 */
+	protected class Timeout implements Runnable {
+
+		/** Exchange. */
+		protected Exchange ex;
+		/** Attempt this timeout belongs to. */
+		protected int attempt;
+
+		/**
+		 * Instantiate a timeout.
+		 * @param ex exchange.
+		 * @param attempt attempt this timeout belongs to.
+		 */
+		protected Timeout(Exchange ex, int attempt) {
+			this.ex = ex;
+			this.attempt = attempt;
+		}
+
+		// Javadoc inherited from interface.
+		public void run() {
+			Connection conn = ex.conn;
+			if ( (conn != null) && conn.expire(ex, attempt) ) {
+				failover(ex, new SocketTimeoutException("No response."));
+			}
+		}
+
+	}
+
+	/**
+	 * Message queued for writing on a connection.
+	 */
+	protected static class Frame {
+
+		/** Exchange. */
+		protected Exchange ex;
+		/** Message id of the exchange on the connection. */
+		protected int id;
+		/** Message with the message id of the connection. */
+		protected byte[] pDat;
+
+		/**
+		 * Instantiate a queued message.
+		 * @param ex exchange.
+		 * @param id message id of the exchange on the connection.
+		 * @param pDat message with the message id of the connection.
+		 */
+		protected Frame(Exchange ex, int id, byte[] pDat) {
+			this.ex = ex;
+			this.id = id;
+			this.pDat = pDat;
+		}
+
+	}
+
+	/**
+	 * Opens a connection on a worker thread and places the exchanges waiting for it.
+	 */
+	protected class Connect implements Runnable {
+
+		/** Server index. */
+		protected int host;
+
+		/**
+		 * Instantiate a connect task.
+		 * @param host server index.
+		 */
+		protected Connect(int host) {
+			this.host = host;
+		}
+
+		// Javadoc inherited from interface.
+		public void run() {
+			Connection conn = null;
+			IOException failure = null;
+			ArrayList queued;
+			try {
+				conn = new Connection(host);
+			}
+			catch (IOException e) {
+				failure = e;
+			}
+			synchronized ( DNSTCPPipelineTransport.this ) {
+				--connecting[host];
+				if ( conn != null ) {
+					if ( running ) {
+						pools[host].add(conn);
+					}
+					else {
+						failure = new IOException("Transport closed.");
+					}
+				}
+				queued = new ArrayList(waiting[host]);
+				waiting[host].clear();
+			}
+			if ( conn != null ) {
+				if ( failure == null ) {
+					conn.startReader();
+				}
+				else {
+					conn.close(null);
+				}
+			}
+			for(int i=0; i<queued.size(); i++) {
+				if ( failure == null ) {
+					dispatch((Exchange)queued.get(i));
+				}
+				else {
+					failover((Exchange)queued.get(i), failure);
+				}
+			}
+		}
+
+	}
+
+	/**
+	 * A persistent connection to a server, with its own reader thread.
+	 */
+	protected class Connection implements Runnable {
+
+		/** Server index. */
+		protected int host;
+		/** Channel. */
+		protected SocketChannel channel;
+		/** Reads and writes length-prefixed messages on the channel. */
+		protected DNSStreamFramer framer;
+		/** Reader thread is running. */
+		protected boolean reading = false;
+		/** A thread is writing the queued messages. */
+		protected boolean writing = false;
+		/** Framer has been released. */
+		protected boolean released = false;
+		/** Messages waiting to be written. */
+		protected ArrayDeque writeQueue = new ArrayDeque();
+		/** Exchanges in flight, indexed by message id. */
+		protected Exchange[] pending = new Exchange[IDS];
+		/** Number of exchanges in flight. */
+		protected volatile int inFlight = 0;
+		/** Number of ids reserved by timed out exchanges. */
+		protected int reserved = 0;
+		/** Next message id to try. */
+		protected int nextId;
+		/** Time of the last write or read. */
+		protected volatile long lastActivity;
+		/** Connection has been closed. */
+		protected boolean closed = false;
+
+		/**
+		 * Open a connection to a server.
+		 * @param host server index.
+		 * @throws IOException if the connection could not be opened.
+		 */
+		protected Connection(int host) throws IOException {
+			this.host = host;
+			channel = SocketChannel.open();
+			try {
+				channel.socket().connect(new InetSocketAddress(hosts[host].getHost(), hosts[host].getPort()), connTimeout);
+				channel.socket().setTcpNoDelay(true);
+				channel.socket().setKeepAlive(true);
+				framer = new DNSStreamFramer(channel);
+			}
+			catch (IOException e) {
+				channel.close();
+				throw e;
+			}
+			nextId = (int)(System.nanoTime() & (IDS - 1));
+			lastActivity = now();
+		}
+
+		/**
+		 * Start the reader thread.
+		 */
+		protected void startReader() {
+			synchronized ( this ) {
+				if ( closed ) {
+					return;
+				}
+				reading = true;
+			}
+			Thread thread = new Thread(this, "DNSTCPPipelineTransport-" + hosts[host].getHost() + ":" + hosts[host].getPort());
+			thread.setDaemon(true);
+			thread.start();
+		}
+
+		/**
+		 * Register an exchange under a free message id and queue its message for writing.
+		 * @param ex exchange.
+		 * @return attempt number, 0 if the connection is closed or -1 if it has no free ids.
+		 */
+		protected synchronized int register(Exchange ex) {
+			byte[] pDat;
+			int id;
+			if ( closed ) {
+				return 0;
+			}
+			if ( inFlight + reserved >= IDS ) {
+				return -1;
+			}
+			id = nextId;
+			while ( pending[id] != null ) {
+				id = (id + 1) & (IDS - 1);
+			}
+			nextId = (id + 1) & (IDS - 1);
+			pending[id] = ex;
+			++inFlight;
+			ex.conn = this;
+			ex.id = id;
+			// A copy per attempt, a previous attempt may still be queued on another connection.
+			pDat = (byte[])ex.pDat.clone();
+			pDat[0] = (byte)(id >> 8);
+			pDat[1] = (byte)(id & 255);
+			writeQueue.add(new Frame(ex, id, pDat));
+			return ++ex.attempt;
+		}
+
+		/**
+		 * Write the queued messages on the calling thread as long as the channel accepts them
+		 * without waiting, the rest is written by a worker thread.
+		 */
+		protected void send() {
+			synchronized ( this ) {
+				if ( writing ) {
+					return;
+				}
+				writing = true;
+			}
+			flush(false);
+		}
+
+		/**
+		 * Write the queued messages until the queue is empty, the connection is closed if a write fails.
+		 * @param block wait for the channel, otherwise hand the rest to a worker thread.
+		 */
+		protected void flush(boolean block) {
+			Frame frame;
+			long deadline = 0;
+			try {
+				while ( true ) {
+					if ( !framer.isWriting() ) {
+						synchronized ( this ) {
+							frame = null;
+							while ( !closed && (frame == null) && !writeQueue.isEmpty() ) {
+								frame = (Frame)writeQueue.poll();
+								// Timed out or lost while queued.
+								if ( pending[frame.id] != frame.ex ) {
+									frame = null;
+								}
+							}
+							if ( frame == null ) {
+								writing = false;
+							}
+						}
+						if ( frame == null ) {
+							releaseIfUnused();
+							return;
+						}
+						framer.beginMessage(frame.pDat);
+						deadline = DNSStreamFramer.deadline(connTimeout);
+					}
+					if ( framer.writePending() ) {
+						lastActivity = now();
+					}
+					else if ( block ) {
+						framer.awaitWritable(deadline);
+					}
+					else {
+						worker.execute(new Runnable() {
+							public void run() {
+								flush(true);
+							}
+						});
+						return;
+					}
+				}
+			}
+			catch (IOException e) {
+				stopWriting(e);
+			}
+			catch (RejectedExecutionException e) {
+				stopWriting(new IOException("Transport closed."));
+			}
+		}
+
+		/**
+		 * Give up writing after a failure and close the connection.
+		 * @param e cause.
+		 */
+		protected void stopWriting(Exception e) {
+			synchronized ( this ) {
+				writing = false;
+			}
+			close(e);
+			releaseIfUnused();
+		}
+
+		/**
+		 * Release the framer once the connection is closed and no thread reads or writes.
+		 */
+		protected void releaseIfUnused() {
+			synchronized ( this ) {
+				if ( !closed || reading || writing || released ) {
+					return;
+				}
+				released = true;
+			}
+			framer.release();
+		}
+
+		/**
+		 * Release the message id of a timed out exchange, the id stays reserved until its late response arrives.
+		 * @param ex exchange.
+		 * @param attempt attempt the timeout belongs to.
+		 * @return true if the exchange was still in flight on this connection.
+		 */
+		protected synchronized boolean expire(Exchange ex, int attempt) {
+			if ( closed || (ex.attempt != attempt) || (pending[ex.id] != ex) ) {
+				return false;
+			}
+			pending[ex.id] = TIMED_OUT;
+			--inFlight;
+			++reserved;
+			return true;
+		}
+
+		/**
+		 * Read responses and complete their exchanges until the connection fails.
+		 */
+		public void run() {
+			byte[] response;
+			Exchange ex;
+			int id;
+			try {
+				while ( true ) {
+					response = framer.readMessage(0);
+					lastActivity = now();
+					if ( response.length < DNSHeader.HEADER_SIZE ) {
+						throw new IOException("Message shorter than header.");
+					}
+					id = (response[0] & 255) << 8 | (response[1] & 255);
+					synchronized ( this ) {
+						ex = pending[id];
+						if ( ex == TIMED_OUT ) {
+							pending[id] = null;
+							--reserved;
+							ex = null;
+						}
+						else if ( ex != null ) {
+							pending[id] = null;
+							--inFlight;
+						}
+					}
+					if ( ex != null ) {
+						complete(ex, response);
+					}
+				}
+			}
+			catch (IOException e) {					// EOFException when the server closes the connection.
+				close(e);
+			}
+			finally {
+				synchronized ( this ) {
+					reading = false;
+				}
+				releaseIfUnused();
+			}
+		}
+
+		/**
+		 * Mark the connection closed and remove it from its pool in one step,
+		 * so a closed connection is never handed out.
+		 * @param idle only close the connection if it has had no queries in flight for this long, 0 to always close.
+		 * @return true if the connection was marked closed by this call.
+		 */
+		protected boolean markClosed(int idle) {
+			synchronized ( DNSTCPPipelineTransport.this ) {
+				synchronized ( this ) {
+					if ( closed ) {
+						return false;
+					}
+					if ( (idle > 0) && ((inFlight > 0) || (now() - lastActivity < idle)) ) {
+						return false;
+					}
+					closed = true;
+				}
+				pools[host].remove(this);
+			}
+			return true;
+		}
+
+		/**
+		 * Close the connection and send the exchanges in flight again.
+		 * @param e cause, reported if an exchange cannot be sent again.
+		 */
+		protected void close(Exception e) {
+			if ( markClosed(0) ) {
+				shutdown(e);
+			}
+		}
+
+		/**
+		 * Close the channel of a connection marked closed and send the exchanges in flight again.
+		 * @param e cause, reported if an exchange cannot be sent again.
+		 */
+		protected void shutdown(Exception e) {
+			ArrayList lost = new ArrayList();
+			synchronized ( this ) {
+				for(int id=0; id<IDS; id++) {
+					if ( (pending[id] != null) && (pending[id] != TIMED_OUT) ) {
+						lost.add(pending[id]);
+					}
+					pending[id] = null;
+				}
+				inFlight = 0;
+				reserved = 0;
+				writeQueue.clear();
+			}
+			framer.close();
+			releaseIfUnused();
+			if ( e == null ) {
+				e = new IOException("Connection closed.");
+			}
+			for(int i=0; i<lost.size(); i++) {
+				lost(((Exchange)lost.get(i)), e);
+			}
+		}
+
+	}
+
+}
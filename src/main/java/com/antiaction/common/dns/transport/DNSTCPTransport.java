@@ -34,6 +34,8 @@
  * 22-Aug-2001 : Added iterator type methods. Throws clauses.
  * 23-Aug-2001 : Fixed Connect, Disconnect, Send, Receive to work with the iterator style methods.
  * 24-Aug-2001 : Removed javadocs, inherits interface javadocs.
+ * 16-Oct-2026 : Connector keeps the exception behind the last failure.
+ *             : Messages framed on a socket channel, partial reads completed, pooled read buffer.
  *
  */
 
@@ -41,6 +43,7 @@ package com.antiaction.common.dns.transport;
 
 import java.io.*;
 import java.net.*;
+import java.nio.channels.SocketChannel;
 import java.util.Iterator;
 import java.util.ArrayList;
 import java.util.NoSuchElementException;
@@ -106,15 +109,11 @@ public class DNSTCPTransport implements DNSTransport {
 	 */
 	class DNSTCPConnector implements DNSConnector {
 
-		/** Working socket */
-		protected Socket socket = null;
-		/** InputStream. */
-		protected BufferedInputStream socketIn = null;
-		/** OutputStream. */
-		protected BufferedOutputStream socketOut = null;
+		/** Working channel. */
+		protected SocketChannel channel = null;
+		/** Reads and writes length-prefixed messages on the channel. */
+		protected DNSStreamFramer framer = null;
 
-		/** Array used to en/de-code the length. */
-		protected byte[] pLenDat;
 		/** Message length. */
 		protected int pLen;
 
@@ -122,12 +121,13 @@ public class DNSTCPTransport implements DNSTransport {
 		protected Iterator iterator;
 		/** Current host. */
 		protected DNSHostPort currHostPort;
+		/** Exception behind the last failed operation. */
+		protected Exception lastException = null;
 
 		/**
 		 * Instantiates a connector and initialize the host iterator.
 		 */
 		public DNSTCPConnector() {
-			pLenDat = new byte[2];
 			reset();
 		}
 
@@ -156,17 +156,27 @@ public class DNSTCPTransport implements DNSTransport {
 			if ( currHostPort == null ) {
 				throw new IllegalStateException("No iterator element.");
 			}
+			lastException = null;
 			try {
 				host = currHostPort.getHost();
 				port = currHostPort.getPort();
-				socket = new Socket(host, port);
-				socketIn = new BufferedInputStream(socket.getInputStream(), 16384);
-				socketOut = new BufferedOutputStream(socket.getOutputStream(), 16384);
-				socket.setKeepAlive(true);
-				socket.setSoTimeout(connTimeout);
+				channel = SocketChannel.open();
+				channel.socket().connect(new InetSocketAddress(host, port), connTimeout);
+				channel.socket().setKeepAlive(true);
+				channel.socket().setTcpNoDelay(true);
+				framer = new DNSStreamFramer(channel);
 				return true;
 			}
 			catch(Exception e) {					// UnknownHostException / IOException / NullPointerException
+				lastException = e;
+			}
+			if ( channel != null ) {
+				try {
+					channel.close();
+				}
+				catch (IOException e) {
+				}
+				channel = null;
 			}
 			return false;
 		}
@@ -174,20 +184,18 @@ public class DNSTCPTransport implements DNSTransport {
 		// Javadoc inherited from interface.
 		public void Disconnect() throws IllegalStateException {
 			currHostPort = null;
-			try {
-				if ( socket != null ) {
-					if ( socketOut != null ) {
-						socketOut.flush();
-						socketOut.close();
-					}
-					if ( socketIn != null ) {
-						socketIn.close();
-					}
-					socket.close();
-				}
+			if ( framer != null ) {
+				framer.release();
+				framer = null;
 			}
-			catch(Exception e) {					// IOException / NullPointerException
+			else if ( channel != null ) {
+				try {
+					channel.close();
+				}
+				catch(IOException e) {
+				}
 			}
+			channel = null;
 		}
 
 		// Javadoc inherited from interface.
@@ -195,16 +203,14 @@ public class DNSTCPTransport implements DNSTransport {
 			if ( currHostPort == null ) {
 				throw new IllegalStateException("No iterator element.");
 			}
+			lastException = null;
 			pLen = pDat.length;
 			if ( pLen > 0) {
-				pLenDat[0] = (byte)(pLen >> 8);
-				pLenDat[1] = (byte)(pLen & 255);
 				try {
-					socketOut.write(pLenDat, 0, 2);
-					socketOut.write(pDat, 0, pLen);
-					socketOut.flush();
+					framer.writeMessage(pDat, connTimeout);
 				}
 				catch (Exception e) {				// SocketException / InterruptedIOException / IOException
+					lastException = e;
 					return false;
 				}
 				return true;
@@ -220,20 +226,26 @@ public class DNSTCPTransport implements DNSTransport {
 				throw new IllegalStateException("No iterator element.");
 			}
 			byte[] pDat = null;
+			lastException = null;
 			try {
-				socketIn.read(pLenDat, 0, 2);
-				pLen = (pLenDat[0] & 255) << 8 | (pLenDat[1] & 255);
-				if ( pLen > 0) {
-					pDat = new byte[pLen];
-					socketIn.read(pDat, 0, pLen);
+				pDat = framer.readMessage(connTimeout);
+				pLen = pDat.length;
+				if ( pLen == 0 ) {
+					pDat = null;
 				}
 			}
 			catch (Exception e) {					// SocketException / InterruptedIOException / IOException
+				lastException = e;
 				pDat = null;
 			}
 			return pDat;
 		}
 
+		// Javadoc inherited from interface.
+		public Exception getLastException() {
+			return lastException;
+		}
+
 	}
 
 }
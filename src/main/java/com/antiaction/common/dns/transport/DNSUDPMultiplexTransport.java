@@ -0,0 +1,838 @@
+/*
+ * DNS Multiplexed datagram message transport (UDP), non-blocking.
+ * Copyright (C) 2026  Nicholas Clarke
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+
+/*
+ * History:
+ *
+ * 16-Oct-2026 : First implementation.
+ *             : Connector keeps the exception behind the last failure.
+ *             : Implements DNSAsyncTransport, connector moved to DNSAsyncConnector.
+ *             : Servers are resolved in start, never on the I/O thread.
+ *             : Only FORMERR and NOTIMP responses may omit the questions.
+ *             : Datagrams are received whole, ones larger than the payload size are dropped.
+ *
+ */
+
+package com.antiaction.common.dns.transport;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.security.SecureRandom;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import com.antiaction.common.dns.DNSException;
+import com.antiaction.common.dns.DNSHeader;
+import com.antiaction.common.dns.DNSMessageView;
+import com.antiaction.common.dns.DNSNameException;
+import com.antiaction.common.dns.DNSResponseCode;
+import com.antiaction.common.dns.DNSWireName;
+
+/**
+ * DNS Multiplexed datagram message transport (UDP), non-blocking.
+ * Keeps many exchanges in flight over a small set of unconnected datagram channels,
+ * all serviced by a single I/O thread through a selector.
+ * Each submitted message is given a random message id which is unique on its channel,
+ * responses are matched to exchanges by channel, message id, source address and question,
+ * anything else is counted and dropped. The submitter's message id is restored in the response.
+ * Servers are tried in the order they were added, an exchange moves on to the next server
+ * when a server does not answer within the timeout or cannot be sent to.
+ * Server addresses are resolved once, when the transport is started, so the I/O thread never
+ * blocks on a name lookup. A server which could not be resolved fails every exchange over to the next server.
+ * <P>
+ * Add servers before calling <CODE>start</CODE>, then <CODE>submit</CODE> messages from any thread.
+ * The connectors returned by <CODE>getConnector</CODE> provide the blocking connector protocol
+ * on top of the shared channels.
+ *
+ * @version 2.00
+ * @author Nicholas Clarke <nclarke@diku.dk>
+ */
+public class DNSUDPMultiplexTransport implements DNSAsyncTransport {
+
+	/** Default timeout in milliseconds. */
+	public static final int DEFAULT_TIMEOUT = 5000;
+
+	/** Default number of datagram channels. */
+	public static final int DEFAULT_CHANNELS = 4;
+
+	/** Default socket receive buffer size. */
+	public static final int DEFAULT_RECEIVE_BUFFER = 1 << 20;
+
+	/** Number of message ids per channel. */
+	protected static final int IDS = 65536;
+
+	/** Largest datagram sent or received. */
+	protected static final int MAX_DATAGRAM = 65535;
+
+	/** List of server to choose from. */
+	protected ArrayList listHostPort;
+	/** Timeout when waiting for responses. */
+	protected int connTimeout;
+	/** Largest datagram accepted when receiving messages. */
+	protected int payloadSize;
+	/** Number of datagram channels opened by start. */
+	protected int channelCount;
+	/** Socket receive buffer size requested for each channel. */
+	protected int receiveBufferSize;
+
+	/** Servers, fixed when the transport is started. */
+	protected DNSHostPort[] hosts;
+	/** Server addresses resolved on start, unresolved ones are kept as such. */
+	protected InetSocketAddress[] addresses;
+
+	/** Selector used by the I/O thread. */
+	protected Selector selector;
+	/** Datagram channels. */
+	protected DatagramChannel[] channels;
+	/** Selection key per channel. */
+	protected SelectionKey[] keys;
+	/** Exchanges in flight per channel, indexed by message id. */
+	protected Exchange[][] pending;
+	/** Number of exchanges in flight per channel. */
+	protected int[] inFlight;
+	/** Exchanges waiting for room in the socket send buffer, per channel. */
+	protected ArrayDeque[] backlog;
+	/** Channel the next exchange is placed on. */
+	protected int nextChannel;
+
+	/** Timeout queue, exchanges in the order their deadlines expire. */
+	protected Exchange[] tqExchange;
+	/** Timeout queue, deadline of each entry. */
+	protected long[] tqDeadline;
+	/** Timeout queue, attempt of the exchange each entry was queued for. */
+	protected int[] tqAttempt;
+	/** Timeout queue head index. */
+	protected int tqHead;
+	/** Timeout queue size. */
+	protected int tqSize;
+
+	/** Exchanges submitted but not yet picked up by the I/O thread. */
+	protected ConcurrentLinkedQueue submitted;
+	/** Message id generator. */
+	protected Random random;
+	/** Send buffer. */
+	protected ByteBuffer sendBuf;
+	/** Receive array. */
+	protected byte[] recvArr;
+	/** Receive buffer wrapping the receive array. */
+	protected ByteBuffer recvBuf;
+	/** Cursor over the query of the exchange being matched. */
+	protected DNSMessageView queryView;
+	/** Cursor over the response being matched. */
+	protected DNSMessageView responseView;
+	/** Name scratch arrays used when matching questions. */
+	protected byte[] nameA;
+	/** Name scratch arrays used when matching questions. */
+	protected byte[] nameB;
+
+	/** I/O thread. */
+	protected Thread thread;
+	/** Running state. */
+	protected volatile boolean running = false;
+	/** Number of datagrams dropped because they did not match an exchange or were too large. */
+	protected volatile long dropped = 0;
+
+	/**
+	 * Instantiate an empty transport object.
+	 */
+	public DNSUDPMultiplexTransport() {
+		listHostPort = new ArrayList();
+		connTimeout = DEFAULT_TIMEOUT;
+		payloadSize = 512;
+		channelCount = DEFAULT_CHANNELS;
+		receiveBufferSize = DEFAULT_RECEIVE_BUFFER;
+	}
+
+	/**
+	 * Set the largest datagram accepted when receiving messages, larger datagrams are dropped.
+	 * Sizes below 512 bytes are raised to 512 bytes as mandated by rfc1035.
+	 * Must be set before the transport is started.
+	 * @param size UDP payload size.
+	 */
+	public void setPayloadSize(int size) {
+		if ( size < 512 ) {
+			size = 512;
+		}
+		if ( size > 65535 ) {
+			size = 65535;
+		}
+		payloadSize = size;
+	}
+
+	/**
+	 * Get the largest datagram accepted when receiving messages.
+	 * @return UDP payload size.
+	 */
+	public int getPayloadSize() {
+		return payloadSize;
+	}
+
+	/**
+	 * Set the number of datagram channels the exchanges are spread over.
+	 * Each channel has its own local port and room for 65536 exchanges in flight.
+	 * Must be set before the transport is started.
+	 * @param n number of channels.
+	 */
+	public void setChannelCount(int n) {
+		if ( n < 1 ) {
+			n = 1;
+		}
+		channelCount = n;
+	}
+
+	/**
+	 * Get the number of datagram channels the exchanges are spread over.
+	 * @return number of channels.
+	 */
+	public int getChannelCount() {
+		return channelCount;
+	}
+
+	/**
+	 * Set the socket receive buffer size requested for each channel.
+	 * Responses arriving in bursts are dropped by the kernel once the buffer is full,
+	 * the operating system may cap the size. Must be set before the transport is started.
+	 * @param size buffer size in bytes.
+	 */
+	public void setReceiveBufferSize(int size) {
+		receiveBufferSize = size;
+	}
+
+	/**
+	 * Get the socket receive buffer size requested for each channel.
+	 * @return buffer size in bytes.
+	 */
+	public int getReceiveBufferSize() {
+		return receiveBufferSize;
+	}
+
+	/**
+	 * Set the time each server is given to answer, 0 waits forever.
+	 * @param timeout in milliseconds.
+	 */
+	public void setTimeout(int timeout) {
+		connTimeout = timeout;
+	}
+
+	// Javadoc inherited from interface.
+	public int getTimeout() {
+		return connTimeout;
+	}
+
+	// Javadoc inherited from interface.
+	public void addHost(String host, int port) {
+		listHostPort.add(new DNSHostPort(host, port));
+	}
+
+	// Javadoc inherited from interface.
+	public DNSConnector getConnector() {
+		return (new DNSAsyncConnector(this, listHostPort));
+	}
+
+	/**
+	 * Returns the number of received datagrams which did not match an exchange in flight
+	 * or were larger than the payload size.
+	 * A steadily growing count can indicate spoofing attempts.
+	 * @return number of dropped datagrams.
+	 */
+	public long getDroppedCount() {
+		return dropped;
+	}
+
+	// Javadoc inherited from interface.
+	public boolean isRunning() {
+		return running;
+	}
+
+	/**
+	 * Resolve the servers, open the channels and start the I/O thread.
+	 * @throws IOException if the selector or channels could not be opened.
+	 * @throws IllegalStateException if the transport is already running.
+	 */
+	public synchronized void start() throws IOException {
+		if ( running ) {
+			throw new IllegalStateException("Transport already running.");
+		}
+		hosts = (DNSHostPort[])listHostPort.toArray(new DNSHostPort[listHostPort.size()]);
+		addresses = new InetSocketAddress[hosts.length];
+		for(int i=0; i<hosts.length; i++) {
+			addresses[i] = new InetSocketAddress(hosts[i].getHost(), hosts[i].getPort());
+		}
+		pending = new Exchange[channelCount][];
+		inFlight = new int[channelCount];
+		backlog = new ArrayDeque[channelCount];
+		channels = new DatagramChannel[channelCount];
+		keys = new SelectionKey[channelCount];
+		tqExchange = new Exchange[256];
+		tqDeadline = new long[256];
+		tqAttempt = new int[256];
+		tqHead = 0;
+		tqSize = 0;
+		submitted = new ConcurrentLinkedQueue();
+		random = new SecureRandom();
+		sendBuf = ByteBuffer.allocateDirect(MAX_DATAGRAM);
+		recvArr = new byte[MAX_DATAGRAM];
+		recvBuf = ByteBuffer.wrap(recvArr);
+		queryView = new DNSMessageView();
+		responseView = new DNSMessageView();
+		nameA = new byte[DNSWireName.MAX_NAME_LEN];
+		nameB = new byte[DNSWireName.MAX_NAME_LEN];
+		selector = Selector.open();
+		try {
+			for(int i=0; i<channelCount; i++) {
+				pending[i] = new Exchange[IDS];
+				backlog[i] = new ArrayDeque();
+				channels[i] = DatagramChannel.open();
+				channels[i].configureBlocking(false);
+				channels[i].socket().setReceiveBufferSize(receiveBufferSize);
+				channels[i].socket().bind(null);
+				keys[i] = channels[i].register(selector, SelectionKey.OP_READ, Integer.valueOf(i));
+			}
+		}
+		catch (IOException e) {
+			closeChannels();
+			throw e;
+		}
+		running = true;
+		thread = new Thread(new Runnable() {
+			public void run() {
+				loop();
+			}
+		}, "DNSUDPMultiplexTransport");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Stop the I/O thread and close the channels.
+	 * Exchanges still in flight fail with an <CODE>IOException</CODE>.
+	 */
+	public synchronized void close() {
+		if ( !running ) {
+			return;
+		}
+		running = false;
+		selector.wakeup();
+		if ( Thread.currentThread() != thread ) {
+			try {
+				thread.join();
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	// Javadoc inherited from interface.
+	public void submit(byte[] pDat, DNSExchangeListener listener) {
+		submit(pDat, -1, listener);
+	}
+
+	// Javadoc inherited from interface.
+	public void submit(byte[] pDat, int host, DNSExchangeListener listener) {
+		Exchange ex;
+		if ( !running ) {
+			throw new IllegalStateException("Transport not running.");
+		}
+		if ( (pDat.length < DNSHeader.HEADER_SIZE) || (pDat.length > MAX_DATAGRAM) ) {
+			throw new IllegalArgumentException("Invalid message length: " + pDat.length);
+		}
+		ex = new Exchange();
+		ex.query = pDat;
+		ex.pDat = (byte[])pDat.clone();
+		ex.origId = (pDat[0] & 255) << 8 | (pDat[1] & 255);
+		ex.listener = listener;
+		ex.fixed = (host >= 0);
+		ex.host = ex.fixed ? host : 0;
+		submitted.add(ex);
+		if ( !running && submitted.remove(ex) ) {
+			// Closed while submitting, the I/O thread will not see the exchange.
+			throw new IllegalStateException("Transport not running.");
+		}
+		selector.wakeup();
+	}
+
+	/**
+	 * I/O thread main loop.
+	 */
+	protected void loop() {
+		Iterator iter;
+		SelectionKey key;
+		int ch;
+		long now;
+		long wait;
+		while ( running ) {
+			try {
+				now = now();
+				dispatchSubmitted(now);
+				expire(now);
+				wait = 0;
+				if ( tqSize > 0 ) {
+					wait = Math.max(1, tqDeadline[tqHead] - now);
+				}
+				selector.select(wait);
+				iter = selector.selectedKeys().iterator();
+				while ( iter.hasNext() ) {
+					key = (SelectionKey)iter.next();
+					iter.remove();
+					ch = ((Integer)key.attachment()).intValue();
+					if ( key.isValid() && key.isReadable() ) {
+						receive(ch);
+					}
+					if ( key.isValid() && key.isWritable() ) {
+						flush(ch);
+					}
+				}
+			}
+			catch (IOException e) {					// Selector failure, nothing can be done.
+				running = false;
+			}
+		}
+		shutdown();
+	}
+
+	/**
+	 * Returns the current time from the monotonic clock.
+	 * @return time in milliseconds.
+	 */
+	protected static long now() {
+		return System.nanoTime() / 1000000L;
+	}
+
+	/**
+	 * Dispatch the exchanges submitted since the last iteration.
+	 * @param now current time.
+	 */
+	protected void dispatchSubmitted(long now) {
+		Exchange ex;
+		while ( (ex = (Exchange)submitted.poll()) != null ) {
+			if ( hosts.length == 0 ) {
+				complete(ex, new IOException("No servers."));
+			}
+			else if ( ex.host >= hosts.length ) {
+				complete(ex, new IOException("No such server."));
+			}
+			else {
+				dispatch(ex, now);
+			}
+		}
+	}
+
+	/**
+	 * Place an exchange on a channel under a free message id and send it to its current server.
+	 * @param ex exchange.
+	 * @param now current time.
+	 */
+	protected void dispatch(Exchange ex, long now) {
+		InetSocketAddress addr;
+		int ch;
+		int id;
+		addr = address(ex.host);
+		if ( addr == null ) {
+			failover(ex, new IOException("Unresolved host: " + hosts[ex.host].getHost()), now);
+			return;
+		}
+		ch = -1;
+		for(int i=0; i<channelCount && ch == -1; i++) {
+			if ( inFlight[nextChannel] < IDS ) {
+				ch = nextChannel;
+			}
+			nextChannel = (nextChannel + 1) % channelCount;
+		}
+		if ( ch == -1 ) {
+			complete(ex, new IOException("Too many exchanges in flight."));
+			return;
+		}
+		id = random.nextInt(IDS);
+		while ( pending[ch][id] != null ) {
+			id = (id + 1) & (IDS - 1);
+		}
+		pending[ch][id] = ex;
+		++inFlight[ch];
+		ex.channel = ch;
+		ex.id = id;
+		ex.address = addr;
+		ex.sent = false;
+		++ex.attempt;
+		ex.pDat[0] = (byte)(id >> 8);
+		ex.pDat[1] = (byte)(id & 255);
+		if ( connTimeout > 0 ) {
+			enqueueTimeout(ex, now + connTimeout);
+		}
+		if ( backlog[ch].isEmpty() ) {
+			send(ex, now);
+		}
+		if ( !ex.sent && (ex.channel == ch) ) {
+			backlog[ch].addLast(ex);
+			keys[ch].interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+		}
+	}
+
+	/**
+	 * Returns the address of a server as resolved on start.
+	 * @param host server index.
+	 * @return address or null if the host name could not be resolved.
+	 */
+	protected InetSocketAddress address(int host) {
+		InetSocketAddress addr = addresses[host];
+		if ( addr.isUnresolved() ) {
+			return null;
+		}
+		return addr;
+	}
+
+	/**
+	 * Attempt to send an exchange, the exchange is marked sent if the datagram was accepted.
+	 * @param ex exchange.
+	 * @param now current time.
+	 */
+	protected void send(Exchange ex, long now) {
+		sendBuf.clear();
+		sendBuf.put(ex.pDat);
+		sendBuf.flip();
+		try {
+			if ( channels[ex.channel].send(sendBuf, ex.address) > 0 ) {
+				ex.sent = true;
+			}
+		}
+		catch (IOException e) {					// PortUnreachableException / IOException
+			release(ex);
+			failover(ex, e, now);
+		}
+	}
+
+	/**
+	 * Send the exchanges waiting for room in the socket send buffer of a channel.
+	 * @param ch channel.
+	 */
+	protected void flush(int ch) {
+		ArrayDeque queue = backlog[ch];
+		Exchange ex;
+		long now = now();
+		while ( !queue.isEmpty() ) {
+			ex = (Exchange)queue.peekFirst();
+			if ( (ex.channel == ch) && !ex.sent && (pending[ch][ex.id] == ex) ) {
+				send(ex, now);
+				if ( (ex.channel == ch) && !ex.sent ) {
+					return;
+				}
+			}
+			queue.pollFirst();
+		}
+		keys[ch].interestOps(SelectionKey.OP_READ);
+	}
+
+	/**
+	 * Read all datagrams available on a channel and complete the matching exchanges.
+	 * @param ch channel.
+	 * @throws IOException if the channel fails.
+	 */
+	protected void receive(int ch) throws IOException {
+		SocketAddress src;
+		Exchange ex;
+		byte[] response;
+		int pLen;
+		int id;
+		while ( true ) {
+			recvBuf.clear();
+			try {
+				src = channels[ch].receive(recvBuf);
+			}
+			catch (IOException e) {					// PortUnreachableException and the like from earlier sends.
+				return;
+			}
+			if ( src == null ) {
+				return;
+			}
+			pLen = recvBuf.position();
+			if ( (pLen < DNSHeader.HEADER_SIZE) || (pLen > payloadSize) ) {
+				++dropped;
+				continue;
+			}
+			id = (recvArr[0] & 255) << 8 | (recvArr[1] & 255);
+			ex = pending[ch][id];
+			if ( (ex == null) || !ex.address.equals(src) || !matches(ex.pDat, recvArr, pLen) ) {
+				++dropped;
+				continue;
+			}
+			release(ex);
+			response = new byte[pLen];
+			System.arraycopy(recvArr, 0, response, 0, pLen);
+			response[0] = (byte)(ex.origId >> 8);
+			response[1] = (byte)(ex.origId & 255);
+			ex.done = true;
+			try {
+				ex.listener.responseReceived(ex.query, response, hosts[ex.host]);
+			}
+			catch (RuntimeException e) {				// Listener bug, must not kill the I/O thread.
+			}
+		}
+	}
+
+	/**
+	 * Check that a response answers the questions of a query.
+	 * Names are compared case-insensitively. Only format error and not implemented responses
+	 * may omit the questions, any other response must echo them so a forged error response
+	 * has to guess more than the message id.
+	 * @param query query message.
+	 * @param response response message.
+	 * @param pLen length of the response.
+	 * @return true if the response matches the query.
+	 */
+	protected boolean matches(byte[] query, byte[] response, int pLen) {
+		int aLen;
+		int bLen;
+		try {
+			queryView.wrap(query);
+			responseView.wrap(response, 0, pLen);
+			if ( (responseView.getQueryResponse() != DNSHeader.Response) ) {
+				return false;
+			}
+			if ( responseView.getQuestionCount() == 0 ) {
+				switch ( responseView.getResponseCode() ) {
+					case DNSResponseCode.FORMATERROR:
+					case DNSResponseCode.NOTIMPLEMENTED:
+						return true;
+					default:
+						return queryView.getQuestionCount() == 0;
+				}
+			}
+			if ( responseView.getQuestionCount() != queryView.getQuestionCount() ) {
+				return false;
+			}
+			while ( queryView.nextQuestion() ) {
+				responseView.nextQuestion();
+				if ( (queryView.getType() != responseView.getType()) || (queryView.getRClass() != responseView.getRClass()) ) {
+					return false;
+				}
+				aLen = DNSWireName.flatten(query, queryView.getNameOffset(), query.length, nameA, 0);
+				bLen = DNSWireName.flatten(response, responseView.getNameOffset(), pLen, nameB, 0);
+				if ( !DNSWireName.equals(nameA, 0, aLen, nameB, 0, bLen) ) {
+					return false;
+				}
+			}
+			return true;
+		}
+		catch (DNSException e) {
+		}
+		catch (DNSNameException e) {
+		}
+		return false;
+	}
+
+	/**
+	 * Remove an exchange from its channel.
+	 * @param ex exchange.
+	 */
+	protected void release(Exchange ex) {
+		if ( ex.channel != -1 ) {
+			pending[ex.channel][ex.id] = null;
+			--inFlight[ex.channel];
+			ex.channel = -1;
+		}
+	}
+
+	/**
+	 * Move an exchange on to the next server, or fail it if there are no more servers.
+	 * @param ex exchange, removed from its channel.
+	 * @param e cause reported if the exchange fails.
+	 * @param now current time.
+	 */
+	protected void failover(Exchange ex, Exception e, long now) {
+		if ( ex.fixed || (ex.host + 1 >= hosts.length) ) {
+			complete(ex, e);
+		}
+		else {
+			++ex.host;
+			dispatch(ex, now);
+		}
+	}
+
+	/**
+	 * Fail an exchange.
+	 * @param ex exchange, removed from its channel.
+	 * @param e cause.
+	 */
+	protected void complete(Exchange ex, Exception e) {
+		ex.done = true;
+		try {
+			ex.listener.exchangeFailed(ex.query, e);
+		}
+		catch (RuntimeException re) {				// Listener bug, must not kill the I/O thread.
+		}
+	}
+
+	/**
+	 * Append an entry to the timeout queue.
+	 * Every exchange is given the same timeout, so appending keeps the queue ordered by deadline.
+	 * @param ex exchange.
+	 * @param deadline deadline.
+	 */
+	protected void enqueueTimeout(Exchange ex, long deadline) {
+		int idx;
+		if ( tqSize == tqExchange.length ) {
+			Exchange[] tmpExchange = new Exchange[tqSize * 2];
+			long[] tmpDeadline = new long[tqSize * 2];
+			int[] tmpAttempt = new int[tqSize * 2];
+			for(int i=0; i<tqSize; i++) {
+				idx = (tqHead + i) % tqExchange.length;
+				tmpExchange[i] = tqExchange[idx];
+				tmpDeadline[i] = tqDeadline[idx];
+				tmpAttempt[i] = tqAttempt[idx];
+			}
+			tqExchange = tmpExchange;
+			tqDeadline = tmpDeadline;
+			tqAttempt = tmpAttempt;
+			tqHead = 0;
+		}
+		idx = (tqHead + tqSize) % tqExchange.length;
+		tqExchange[idx] = ex;
+		tqDeadline[idx] = deadline;
+		tqAttempt[idx] = ex.attempt;
+		++tqSize;
+	}
+
+	/**
+	 * Move the exchanges whose current attempt has timed out on to the next server.
+	 * Entries of completed exchanges and of earlier attempts are discarded on the way.
+	 * @param now current time.
+	 */
+	protected void expire(long now) {
+		Exchange ex;
+		while ( tqSize > 0 ) {
+			ex = tqExchange[tqHead];
+			if ( !ex.done && (ex.attempt == tqAttempt[tqHead]) ) {
+				if ( tqDeadline[tqHead] > now ) {
+					return;
+				}
+			}
+			else {
+				ex = null;
+			}
+			tqExchange[tqHead] = null;
+			tqHead = (tqHead + 1) % tqExchange.length;
+			--tqSize;
+			if ( ex != null ) {
+				release(ex);
+				failover(ex, new SocketTimeoutException("No response."), now);
+			}
+		}
+	}
+
+	/**
+	 * Close the channels and fail everything still in flight, run by the I/O thread when it stops.
+	 */
+	protected void shutdown() {
+		IOException e = new IOException("Transport closed.");
+		Exchange ex;
+		closeChannels();
+		for(int ch=0; ch<channelCount; ch++) {
+			for(int id=0; id<IDS; id++) {
+				ex = pending[ch][id];
+				if ( ex != null ) {
+					release(ex);
+					complete(ex, e);
+				}
+			}
+			backlog[ch].clear();
+		}
+		while ( (ex = (Exchange)submitted.poll()) != null ) {
+			complete(ex, e);
+		}
+		tqSize = 0;
+	}
+
+	/**
+	 * Close the selector and all opened channels.
+	 */
+	protected void closeChannels() {
+		for(int i=0; i<channels.length; i++) {
+			try {
+				if ( channels[i] != null ) {
+					channels[i].close();
+				}
+			}
+			catch (IOException e) {
+			}
+		}
+		try {
+			selector.close();
+		}
+		catch (IOException e) {
+		}
+	}
+
+	// Javadoc inherited from interface.
+	public String toString() {
+		String host;
+		int port;
+		String tmpStr = "";
+		tmpStr += "Server(s):\n";
+		tmpStr += "----------";
+		for(int i=0; i<listHostPort.size(); i++) {
+			host = ((DNSHostPort)listHostPort.get(i)).getHost();
+			port = ((DNSHostPort)listHostPort.get(i)).getPort();
+			tmpStr += " " + host + ":" + port + "\n";
+		}
+		return tmpStr;
+	}
+
+	/**
+	 * State of a single message exchange, only touched by the I/O thread once submitted.
+	 */
+	protected static class Exchange {
+
+		/** Message as submitted. */
+		protected byte[] query;
+		/** Message as sent, with the transport's message id. */
+		protected byte[] pDat;
+		/** Message id of the submitted message. */
+		protected int origId;
+		/** Listener receiving the outcome. */
+		protected DNSExchangeListener listener;
+		/** Only the initial server may be tried. */
+		protected boolean fixed;
+		/** Current server index. */
+		protected int host;
+		/** Current server address. */
+		protected InetSocketAddress address;
+		/** Channel, -1 if not in flight. */
+		protected int channel = -1;
+		/** Message id on the channel. */
+		protected int id;
+		/** Number of times the exchange has been dispatched. */
+		protected int attempt;
+		/** Current attempt has been handed to the channel. */
+		protected boolean sent;
+		/** Outcome has been delivered. */
+		protected boolean done;
+
+	}
+
+}
@@ -28,6 +28,8 @@
  * 24-Aug-2001 : Implemented DNSTransport interface.
  *             : Moved connection code to inner class.
  *             : Renamed class.
+ * 16-Oct-2026 : Configurable UDP payload size for EDNS(0), reused receive buffer.
+ *             : Connector keeps the exception behind the last failure.
  *
  */
 
@@ -51,6 +53,8 @@ public class DNSUDPTransport implements DNSTransport {
 	protected ArrayList listHostPort;
 	/** Timeout when transmitting messages. */
 	protected int connTimeout;
+	/** Largest datagram accepted when receiving messages. */
+	protected int payloadSize;
 
 	/**
 	 * Instantiate an empty socket object.
@@ -58,6 +62,31 @@ public class DNSUDPTransport implements DNSTransport {
 	public DNSUDPTransport() {
 		listHostPort = new ArrayList();
 		connTimeout = 0;
+		payloadSize = 512;
+	}
+
+	/**
+	 * Set the largest datagram accepted when receiving messages.
+	 * Should match the UDP payload size advertised in the OPT record of queries.
+	 * Sizes below 512 bytes are raised to 512 bytes as mandated by rfc1035.
+	 * @param size UDP payload size.
+	 */
+	public void setPayloadSize(int size) {
+		if ( size < 512 ) {
+			size = 512;
+		}
+		if ( size > 65535 ) {
+			size = 65535;
+		}
+		payloadSize = size;
+	}
+
+	/**
+	 * Get the largest datagram accepted when receiving messages.
+	 * @return UDP payload size.
+	 */
+	public int getPayloadSize() {
+		return payloadSize;
 	}
 
 	// Javadoc inherited from interface.
@@ -114,11 +143,17 @@ public class DNSUDPTransport implements DNSTransport {
 		protected Iterator iterator;
 		/** Current host. */
 		protected DNSHostPort currHostPort;
+		/** Exception behind the last failed operation. */
+		protected Exception lastException = null;
 
 		/** InetAddr to lookup destination host. */
 		protected InetAddress inetaddr = null;
 		/** Datagram packet used to send/receive messages. */
 		protected DatagramPacket dgpacket = null;
+		/** Receive buffer, reused between messages. */
+		protected byte[] recvdata = null;
+		/** Datagram packet wrapping the receive buffer. */
+		protected DatagramPacket recvpacket = null;
 
 		/**
 		 * Instantiates a connector and initialize the host iterator.
@@ -152,6 +187,7 @@ public class DNSUDPTransport implements DNSTransport {
 			if ( currHostPort == null ) {
 				throw new IllegalStateException("No iterator element.");
 			}
+			lastException = null;
 			try {
 				host = currHostPort.getHost();
 				port = currHostPort.getPort();
@@ -162,6 +198,7 @@ public class DNSUDPTransport implements DNSTransport {
 				return true;
 			}
 			catch(Exception e) {					// UnknownHostException / IOException / NullPointerException
+				lastException = e;
 				return false;
 			}
 		}
@@ -184,6 +221,7 @@ public class DNSUDPTransport implements DNSTransport {
 			if ( currHostPort == null ) {
 				throw new IllegalStateException("No iterator element.");
 			}
+			lastException = null;
 			pLen = pDat.length;
 			if ( pLen > 0) {
 				try {
@@ -191,6 +229,7 @@ public class DNSUDPTransport implements DNSTransport {
 					socket.send(dgpacket);
 				}
 				catch (Exception e) {				// SocketException / InterruptedIOException / IOException
+					lastException = e;
 					return false;
 				}
 				return true;
@@ -205,23 +244,33 @@ public class DNSUDPTransport implements DNSTransport {
 				throw new IllegalStateException("No iterator element.");
 			}
 			byte[] pDat = null;
-			byte[] recvdata = new byte[512];
-			dgpacket = new DatagramPacket(recvdata, 512);
+			lastException = null;
+			if ( (recvdata == null) || (recvdata.length != payloadSize) ) {
+				recvdata = new byte[payloadSize];
+				recvpacket = new DatagramPacket(recvdata, payloadSize);
+			}
+			// The packet length shrinks to the size of the last datagram received.
+			recvpacket.setLength(payloadSize);
 			try {
-				socket.receive(dgpacket);
-				pLen = dgpacket.getLength();
+				socket.receive(recvpacket);
+				pLen = recvpacket.getLength();
 				if ( pLen > 0) {
-					recvdata = dgpacket.getData();
 					pDat = new byte[pLen];
 					System.arraycopy(recvdata, 0, pDat, 0, pLen);
 				}
 			}
 			catch (Exception e) {					// SocketException / InterruptedIOException / IOException
+				lastException = e;
 				pDat = null;
 			}
 			return pDat;
 		}
 
+		// Javadoc inherited from interface.
+		public Exception getLastException() {
+			return lastException;
+		}
+
 	}
 
 }
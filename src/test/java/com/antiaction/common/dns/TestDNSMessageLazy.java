@@ -0,0 +1,131 @@
+/*
+ * DNS Message lazy section decoding tests.
+ * Copyright (C) 2026  Nicholas Clarke
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+
+/*
+ * History:
+ *
+ * 16-Oct-2026 : First implementation.
+ *
+ */
+
+package com.antiaction.common.dns;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import com.antiaction.common.dns.record.DNSRDataException;
+
+@RunWith(JUnit4.class)
+public class TestDNSMessageLazy {
+
+	/**
+	 * Response with two A records followed by an MX record whose exchange name
+	 * is a compression pointer pointing forward.
+	 * @return packet.
+	 */
+	protected byte[] corruptPacket() {
+		return new byte[] {
+				0, 1, (byte)0x81, (byte)0x80, 0, 0, 0, 3, 0, 0, 0, 0,
+				// A 10.0.0.1
+				0, 0, 1, 0, 1, 0, 0, 14, 16, 0, 4, 10, 0, 0, 1,
+				// A 10.0.0.2
+				0, 0, 1, 0, 1, 0, 0, 14, 16, 0, 4, 10, 0, 0, 2,
+				// MX 10 -> pointer to offset 60
+				0, 0, 15, 0, 1, 0, 0, 14, 16, 0, 4, 0, 10, (byte)0xC0, 60
+		};
+	}
+
+	protected void assertFailsSame(DNSMessage msg, Exception expected) {
+		try {
+			msg.disassembleSections();
+			Assert.fail("Exception expected.");
+		}
+		catch (Exception e) {
+			Assert.assertTrue(expected == e);
+		}
+		Assert.assertEquals(0, msg.an_array.size());
+	}
+
+	protected void test_failed_section(boolean recycle) throws Exception {
+		DNSMessage msg = new DNSMessage();
+		Exception failure = null;
+		msg.setLazy(true);
+		msg.setRecycle(recycle);
+		msg.disassemblePacket(corruptPacket());
+
+		try {
+			msg.disassembleSections();
+			Assert.fail("Exception expected.");
+		}
+		catch (DNSRDataException e) {
+			failure = e;
+		}
+		Assert.assertEquals(0, msg.an_array.size());
+		Assert.assertFalse(msg.lazyPending[DNSSectionType.ANSWER]);
+		if ( recycle ) {
+			Assert.assertEquals(3, msg.rr_pool.size());
+		}
+
+		assertFailsSame(msg, failure);
+		assertFailsSame(msg, failure);
+		if ( recycle ) {
+			Assert.assertEquals(3, msg.rr_pool.size());
+		}
+
+		try {
+			msg.getAnswerView();
+			Assert.fail("Exception expected.");
+		}
+		catch (IllegalStateException e) {
+			Assert.assertTrue(failure == e.getCause());
+		}
+		assertFailsSame(msg, failure);
+	}
+
+	@Test
+	public void test_failed_section() throws Exception {
+		test_failed_section(false);
+	}
+
+	@Test
+	public void test_failed_section_recycled() throws Exception {
+		test_failed_section(true);
+	}
+
+	@Test
+	public void test_unchecked_first() throws Exception {
+		DNSMessage msg = new DNSMessage();
+		Throwable failure = null;
+		msg.setLazy(true);
+		msg.disassemblePacket(corruptPacket());
+		try {
+			msg.getAnswerView();
+			Assert.fail("Exception expected.");
+		}
+		catch (IllegalStateException e) {
+			failure = e.getCause();
+		}
+		Assert.assertNotNull(failure);
+		assertFailsSame(msg, (Exception)failure);
+	}
+
+}
@@ -0,0 +1,184 @@
+/*
+ * DNS Message size limited encoding tests.
+ * Copyright (C) 2026  Nicholas Clarke
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+
+/*
+ * History:
+ *
+ * 16-Oct-2026 : First implementation.
+ *
+ */
+
+package com.antiaction.common.dns;
+
+import java.nio.ByteBuffer;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import com.antiaction.common.dns.record.DNSRDataA;
+
+@RunWith(JUnit4.class)
+public class TestDNSMessageTruncation {
+
+	protected static final int ANSWERS = 41;
+
+	protected static final int ADDITIONALS = 20;
+
+	protected DNSRecord newRecord(String name, int addr) {
+		DNSRecordHeader recordheader = new DNSRecordHeader();
+		recordheader.setRName(name);
+		recordheader.setRType(DNSType.A);
+		recordheader.setRClass(DNSClass.IN);
+		recordheader.setRTTL(3600);
+		DNSRDataA rdata = new DNSRDataA();
+		rdata.setAddress(addr);
+		return new DNSRecord(recordheader, rdata);
+	}
+
+	protected DNSMessage newResponse(int answers, int additionals) {
+		DNSMessage msg = new DNSMessage();
+		DNSHeader header = new DNSHeader();
+		header.setID(4711);
+		header.setQueryResponse(1);
+		header.setRecursionDesired(true);
+		msg.setHeader(header);
+		DNSQuestion question = new DNSQuestion();
+		question.setQName("www.example.com");
+		question.setQType(DNSType.A);
+		question.setQClass(DNSClass.IN);
+		msg.addQuestion(question);
+		for (int i=0; i<answers; ++i) {
+			msg.addAnswer(newRecord("www.example.com", 0x0A000000 | i));
+		}
+		for (int i=0; i<additionals; ++i) {
+			msg.addAdditional(newRecord("ns" + i + ".example.net", 0x0A010000 | i));
+		}
+		return msg;
+	}
+
+	protected DNSMessage encode(DNSMessage msg, int maxSize) throws Exception {
+		ByteBuffer dst = ByteBuffer.allocate(65535);
+		int len = msg.assemblePacket(dst, maxSize);
+		Assert.assertTrue(len <= maxSize);
+		byte[] pDat = new byte[len];
+		dst.flip();
+		dst.get(pDat);
+		return decode(pDat);
+	}
+
+	protected DNSMessage decode(byte[] pDat) throws Exception {
+		DNSMessage decoded = new DNSMessage();
+		decoded.disassemblePacket(pDat);
+		return decoded;
+	}
+
+	@Test
+	public void test_answers_truncated() throws Exception {
+		DNSMessage msg = newResponse(ANSWERS, 0);
+		DNSMessage decoded = encode(msg, 200);
+		Assert.assertTrue(decoded.getHeader().getTrunCation());
+		Assert.assertEquals(1, decoded.getHeader().getQuestionCount());
+		Assert.assertTrue(decoded.getHeader().getAnswerCount() > 0);
+		Assert.assertTrue(decoded.getHeader().getAnswerCount() < ANSWERS);
+		Assert.assertEquals(decoded.getHeader().getAnswerCount(), decoded.getAnswers().size());
+	}
+
+	@Test
+	public void test_fits() throws Exception {
+		DNSMessage msg = newResponse(ANSWERS, ADDITIONALS);
+		DNSMessage decoded = encode(msg, 65535);
+		Assert.assertFalse(decoded.getHeader().getTrunCation());
+		Assert.assertEquals(ANSWERS, decoded.getAnswers().size());
+		Assert.assertEquals(ADDITIONALS, decoded.getAdditionals().size());
+	}
+
+	@Test
+	public void test_additionals_dropped() throws Exception {
+		DNSMessage msg = newResponse(1, ADDITIONALS);
+		DNSMessage decoded = encode(msg, 200);
+		Assert.assertFalse(decoded.getHeader().getTrunCation());
+		Assert.assertEquals(1, decoded.getAnswers().size());
+		Assert.assertTrue(decoded.getAdditionals().size() < ADDITIONALS);
+		Assert.assertEquals(decoded.getHeader().getAdditionalCount(), decoded.getAdditionals().size());
+	}
+
+	@Test
+	public void test_opt_kept_when_truncated() throws Exception {
+		DNSMessage msg = newResponse(ANSWERS, 0);
+		msg.setUDPPayloadSize(1232);
+		DNSMessage decoded = encode(msg, 200);
+		Assert.assertTrue(decoded.getHeader().getTrunCation());
+		Assert.assertTrue(decoded.getAnswers().size() < ANSWERS);
+		Assert.assertTrue(decoded.isEDNS());
+		Assert.assertEquals(1232, decoded.getUDPPayloadSize());
+		Assert.assertEquals(1, decoded.getAdditionals().size());
+	}
+
+	@Test
+	public void test_opt_kept_when_additionals_dropped() throws Exception {
+		DNSMessage msg = newResponse(1, ADDITIONALS);
+		msg.setUDPPayloadSize(1232);
+		DNSMessage decoded = encode(msg, 200);
+		Assert.assertFalse(decoded.getHeader().getTrunCation());
+		Assert.assertTrue(decoded.isEDNS());
+		Assert.assertTrue(decoded.getAdditionals().size() < ADDITIONALS + 1);
+		Assert.assertEquals(decoded.getHeader().getAdditionalCount(), decoded.getAdditionals().size());
+	}
+
+	@Test
+	public void test_header_untouched() throws Exception {
+		DNSMessage msg = newResponse(ANSWERS, 0);
+		encode(msg, 200);
+		Assert.assertFalse(msg.getHeader().getTrunCation());
+		Assert.assertEquals(0, msg.getHeader().getAnswerCount());
+	}
+
+	@Test
+	public void test_full_after_truncated() throws Exception {
+		DNSMessage msg = newResponse(ANSWERS, 0);
+		ByteBuffer dst = ByteBuffer.allocate(65535);
+		DNSMessage decoded;
+		byte[] pDat;
+		int len;
+
+		Assert.assertTrue(encode(msg, 200).getHeader().getTrunCation());
+
+		len = msg.assemblePacket(dst);
+		pDat = new byte[len];
+		dst.flip();
+		dst.get(pDat);
+		decoded = decode(pDat);
+		Assert.assertFalse(decoded.getHeader().getTrunCation());
+		Assert.assertEquals(ANSWERS, decoded.getHeader().getAnswerCount());
+		Assert.assertEquals(ANSWERS, decoded.getAnswers().size());
+
+		msg.buildPacket();
+		decoded = decode(msg.assemblePacket());
+		Assert.assertFalse(decoded.getHeader().getTrunCation());
+		Assert.assertEquals(ANSWERS, decoded.getAnswers().size());
+
+		decoded = encode(msg, 65535);
+		Assert.assertFalse(decoded.getHeader().getTrunCation());
+		Assert.assertEquals(ANSWERS, decoded.getAnswers().size());
+	}
+
+}
@@ -0,0 +1,251 @@
+/*
+ * DNS Name decoding tests.
+ * Copyright (C) 2026  Nicholas Clarke
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+
+/*
+ * History:
+ *
+ * 16-Oct-2026 : First implementation.
+ *             : Hardened decoding, pointer loops, chains, name length and packet bounds.
+ *
+ */
+
+package com.antiaction.common.dns;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class TestDNSName {
+
+	/**
+	 * Packet with the name "foo." at offset 0 and a pointer to it at offset 10.
+	 * @return packet.
+	 */
+	protected byte[] pointerPacket() {
+		byte[] pDat = new byte[12];
+		pDat[0] = 3;
+		pDat[1] = 'f';
+		pDat[2] = 'o';
+		pDat[3] = 'o';
+		pDat[4] = 0;
+		pDat[10] = (byte)0xC0;
+		pDat[11] = 0;
+		return pDat;
+	}
+
+	@Test
+	public void test_reused_buffer_unscoped() throws Exception {
+		DNSName dnsname = new DNSName();
+		byte[] pDat = pointerPacket();
+		Assert.assertEquals("foo.", dnsname.disassemblePacket(pDat, 10, pDat.length));
+		pDat[1] = 'b';
+		pDat[2] = 'a';
+		pDat[3] = 'r';
+		Assert.assertEquals("bar.", dnsname.disassemblePacket(pDat, 10, pDat.length));
+		Assert.assertEquals("bar.", dnsname.disassemblePacket(pDat, 0, pDat.length));
+	}
+
+	@Test
+	public void test_memo_scoped() throws Exception {
+		DNSName dnsname = new DNSName();
+		byte[] pDat = pointerPacket();
+		dnsname.beginMessage(pDat, pDat.length);
+		Assert.assertEquals("foo.", dnsname.disassemblePacket(pDat, 10, pDat.length));
+		pDat[1] = 'b';
+		pDat[2] = 'a';
+		pDat[3] = 'r';
+		// Pointer target memoized within the scope.
+		Assert.assertEquals("foo.", dnsname.disassemblePacket(pDat, 10, pDat.length));
+		dnsname.beginMessage(pDat, pDat.length);
+		Assert.assertEquals("bar.", dnsname.disassemblePacket(pDat, 10, pDat.length));
+		dnsname.reset();
+		pDat[1] = 'b';
+		pDat[2] = 'o';
+		pDat[3] = 'o';
+		Assert.assertEquals("boo.", dnsname.disassemblePacket(pDat, 10, pDat.length));
+	}
+
+	@Test
+	public void test_view_rewrap() throws Exception {
+		DNSMessageView view = new DNSMessageView();
+		byte[] pDat = new byte[DNSHeader.HEADER_SIZE + 12];
+		byte[] name = pointerPacket();
+		System.arraycopy(name, 0, pDat, DNSHeader.HEADER_SIZE, name.length);
+		pDat[DNSHeader.HEADER_SIZE + 11] = DNSHeader.HEADER_SIZE;
+		view.wrap(pDat);
+		Assert.assertEquals("foo.", view.getName(DNSHeader.HEADER_SIZE + 10));
+		pDat[DNSHeader.HEADER_SIZE + 1] = 'b';
+		view.wrap(pDat);
+		Assert.assertEquals("boo.", view.getName(DNSHeader.HEADER_SIZE + 10));
+	}
+
+	/**
+	 * Append a label of the given length to a packet being built.
+	 * @param pDat packet.
+	 * @param pIdx index to where the label is written.
+	 * @param len label length.
+	 * @return index after the label.
+	 */
+	protected int label(byte[] pDat, int pIdx, int len) {
+		pDat[pIdx++] = (byte)len;
+		for (int i=0; i<len; ++i) {
+			pDat[pIdx++] = 'a';
+		}
+		return pIdx;
+	}
+
+	protected void assertDNSException(DNSName dnsname, byte[] pDat, int pIdx, int pLen) throws Exception {
+		try {
+			dnsname.disassemblePacket(pDat, pIdx, pLen);
+			Assert.fail("Exception expected.");
+		}
+		catch (DNSException e) {
+		}
+	}
+
+	protected void assertDNSNameException(DNSName dnsname, byte[] pDat, int pIdx, int pLen) throws Exception {
+		try {
+			dnsname.disassemblePacket(pDat, pIdx, pLen);
+			Assert.fail("Exception expected.");
+		}
+		catch (DNSNameException e) {
+		}
+	}
+
+	@Test
+	public void test_forward_pointer() throws Exception {
+		DNSName dnsname = new DNSName();
+		byte[] pDat = {(byte)0xC0, 2, 1, 'a', 0};
+		assertDNSException(dnsname, pDat, 0, pDat.length);
+		// Pointer into itself, past the start of the name.
+		pDat = new byte[] {1, 'a', (byte)0xC0, 2};
+		assertDNSException(dnsname, pDat, 0, pDat.length);
+	}
+
+	@Test
+	public void test_self_pointer() throws Exception {
+		DNSName dnsname = new DNSName();
+		byte[] pDat = {0, 0, (byte)0xC0, 2};
+		assertDNSException(dnsname, pDat, 2, pDat.length);
+		dnsname.beginMessage(pDat, pDat.length);
+		assertDNSException(dnsname, pDat, 2, pDat.length);
+	}
+
+	@Test
+	public void test_pointer_chain() throws Exception {
+		DNSName dnsname = new DNSName();
+		byte[] pDat = new byte[1 + 2 * 129];
+		int pIdx = 1;
+		int target = 0;
+		// Root at offset 0, each pointer points at the one before it.
+		pDat[0] = 0;
+		for (int i=0; i<129; ++i) {
+			pDat[pIdx] = (byte)(0xC0 | (target >> 8));
+			pDat[pIdx + 1] = (byte)(target & 255);
+			target = pIdx;
+			pIdx += 2;
+		}
+		// 128 pointers are followed.
+		Assert.assertEquals(".", dnsname.disassemblePacket(pDat, pIdx - 4, pDat.length));
+		Assert.assertEquals(2, dnsname.getDisassembledLen());
+		// 129 pointers are not.
+		assertDNSNameException(dnsname, pDat, pIdx - 2, pDat.length);
+	}
+
+	@Test
+	public void test_name_too_long() throws Exception {
+		DNSName dnsname = new DNSName();
+		byte[] pDat = new byte[512];
+		int pIdx;
+		// 255 bytes in wire format.
+		pIdx = label(pDat, 0, 63);
+		pIdx = label(pDat, pIdx, 63);
+		pIdx = label(pDat, pIdx, 63);
+		pIdx = label(pDat, pIdx, 61);
+		pDat[pIdx++] = 0;
+		Assert.assertEquals(254, dnsname.disassemblePacket(pDat, 0, pIdx).length());
+		Assert.assertEquals(255, dnsname.getDisassembledLen());
+		// 256 bytes in wire format.
+		pIdx = label(pDat, 0, 63);
+		pIdx = label(pDat, pIdx, 63);
+		pIdx = label(pDat, pIdx, 63);
+		pIdx = label(pDat, pIdx, 62);
+		pDat[pIdx++] = 0;
+		assertDNSNameException(dnsname, pDat, 0, pIdx);
+	}
+
+	@Test
+	public void test_name_too_long_memoized() throws Exception {
+		DNSName dnsname = new DNSName();
+		byte[] pDat = new byte[512];
+		int pIdx;
+		int start;
+		// Suffix of 193 bytes at offset 0 and a pointer to it at offset 193.
+		pIdx = label(pDat, 0, 63);
+		pIdx = label(pDat, pIdx, 63);
+		pIdx = label(pDat, pIdx, 63);
+		pDat[pIdx++] = 0;
+		pDat[pIdx++] = (byte)0xC0;
+		pDat[pIdx++] = 0;
+		// Name of 64 bytes of labels followed by a pointer to the suffix, 257 bytes in total.
+		start = pIdx;
+		pIdx = label(pDat, pIdx, 63);
+		pDat[pIdx++] = (byte)0xC0;
+		pDat[pIdx++] = 0;
+
+		dnsname.beginMessage(pDat, pIdx);
+		Assert.assertEquals(192, dnsname.disassemblePacket(pDat, 193, pIdx).length());
+		assertDNSNameException(dnsname, pDat, start, pIdx);
+
+		dnsname.reset();
+		assertDNSNameException(dnsname, pDat, start, pIdx);
+	}
+
+	@Test
+	public void test_label_out_of_bounds() throws Exception {
+		DNSName dnsname = new DNSName();
+		byte[] pDat = {3, 'f', 'o', 'o', 0};
+		Assert.assertEquals("foo.", dnsname.disassemblePacket(pDat, 0, pDat.length));
+		assertDNSException(dnsname, pDat, 0, 4);
+		assertDNSException(dnsname, pDat, 0, 3);
+		// Missing root label.
+		pDat = new byte[] {3, 'f', 'o', 'o'};
+		assertDNSException(dnsname, pDat, 0, pDat.length);
+		// Pointer missing its second byte.
+		pDat = new byte[] {0, 1, 'a', (byte)0xC0};
+		assertDNSException(dnsname, pDat, 1, pDat.length);
+	}
+
+	@Test
+	public void test_pointer_to_root() throws Exception {
+		DNSName dnsname = new DNSName();
+		byte[] pDat = {0, 1, 'a', (byte)0xC0, 0};
+		Assert.assertEquals("a.", dnsname.disassemblePacket(pDat, 1, pDat.length));
+		Assert.assertEquals(4, dnsname.getDisassembledLen());
+		// Root memoized before the pointer is followed.
+		dnsname.beginMessage(pDat, pDat.length);
+		Assert.assertEquals(".", dnsname.disassemblePacket(pDat, 0, pDat.length));
+		Assert.assertEquals("a.", dnsname.disassemblePacket(pDat, 1, pDat.length));
+		Assert.assertEquals("a.", dnsname.disassemblePacket(pDat, 1, pDat.length));
+	}
+
+}
@@ -0,0 +1,94 @@
+/*
+ * DNS OPT record option tests.
+ * Copyright (C) 2026  Nicholas Clarke
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+
+/*
+ * History:
+ *
+ * 16-Oct-2026 : First implementation.
+ *
+ */
+
+package com.antiaction.common.dns.record;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class TestDNSRDataOPT {
+
+	@Test
+	public void test_addoption_bounds() {
+		DNSRDataOPT opt = new DNSRDataOPT();
+		opt.addOption(10, new byte[65531]);
+		Assert.assertEquals(65535, opt.getOptions().length);
+		try {
+			opt.addOption(10, new byte[0]);
+			Assert.fail("Exception expected.");
+		}
+		catch (IllegalArgumentException e) {
+		}
+		Assert.assertEquals(65535, opt.getOptions().length);
+		opt.clearOptions();
+		try {
+			opt.addOption(10, new byte[65532]);
+			Assert.fail("Exception expected.");
+		}
+		catch (IllegalArgumentException e) {
+		}
+		try {
+			opt.addOption(65536, new byte[0]);
+			Assert.fail("Exception expected.");
+		}
+		catch (IllegalArgumentException e) {
+		}
+		Assert.assertEquals(0, opt.getOptions().length);
+	}
+
+	@Test
+	public void test_setoptions_validated() {
+		DNSRDataOPT opt = new DNSRDataOPT();
+		opt.setOptions(new byte[] {0, 10, 0, 2, 1, 2, 0, 12, 0, 0});
+		Assert.assertEquals(2, opt.getOption(10).length);
+		Assert.assertEquals(0, opt.getOption(12).length);
+		byte[][] invalid = {
+				{0, 10, 0},
+				{0, 10, 0, 3, 1, 2},
+				{0, 10, 0, 2, 1, 2, 0}
+		};
+		for (int i=0; i<invalid.length; ++i) {
+			try {
+				opt.setOptions(invalid[i]);
+				Assert.fail("Exception expected.");
+			}
+			catch (IllegalArgumentException e) {
+			}
+		}
+		try {
+			opt.setOptions(new byte[65536]);
+			Assert.fail("Exception expected.");
+		}
+		catch (IllegalArgumentException e) {
+		}
+		Assert.assertEquals(10, opt.getOptions().length);
+	}
+
+}
@@ -0,0 +1,263 @@
+/*
+ * DNS Stream framer tests.
+ * Copyright (C) 2026  Nicholas Clarke
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+
+/*
+ * History:
+ *
+ * 16-Oct-2026 : First implementation.
+ *
+ */
+
+package com.antiaction.common.dns.transport;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class TestDNSStreamFramer {
+
+	protected static final byte[] MSG1 = {1, 2, 3, 4, 5};
+
+	protected static final byte[] MSG2 = {9, 8, 7};
+
+	/**
+	 * Loopback server writing a script of byte chunks to the first connection.
+	 */
+	protected static class Server extends Thread {
+
+		protected ServerSocket serverSocket;
+		protected byte[][] chunks;
+		protected int pause;
+		protected boolean close;
+		protected CountDownLatch done = new CountDownLatch(1);
+		protected CountDownLatch release = new CountDownLatch(1);
+		protected volatile Exception failure;
+
+		/**
+		 * @param chunks chunks written one at a time.
+		 * @param pause milliseconds to wait after each chunk.
+		 * @param close close the connection when the script has been written.
+		 */
+		protected Server(byte[][] chunks, int pause, boolean close) throws IOException {
+			this.chunks = chunks;
+			this.pause = pause;
+			this.close = close;
+			serverSocket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+			setDaemon(true);
+			start();
+		}
+
+		protected InetSocketAddress getAddress() {
+			return new InetSocketAddress(InetAddress.getLoopbackAddress(), serverSocket.getLocalPort());
+		}
+
+		public void run() {
+			Socket socket = null;
+			try {
+				socket = serverSocket.accept();
+				socket.setTcpNoDelay(true);
+				OutputStream out = socket.getOutputStream();
+				for (int i=0; i<chunks.length; ++i) {
+					out.write(chunks[i]);
+					out.flush();
+					if ( pause > 0 ) {
+						Thread.sleep(pause);
+					}
+				}
+				done.countDown();
+				if ( !close ) {
+					release.await();
+				}
+			}
+			catch (Exception e) {
+				failure = e;
+			}
+			finally {
+				done.countDown();
+				try {
+					if ( socket != null ) {
+						socket.close();
+					}
+					serverSocket.close();
+				}
+				catch (IOException e) {
+				}
+			}
+		}
+
+		protected void shutdown() throws InterruptedException {
+			release.countDown();
+			join(5000);
+		}
+
+	}
+
+	/**
+	 * Returns a message preceded by its length.
+	 */
+	protected static byte[] frame(byte[] pDat) {
+		byte[] frame = new byte[2 + pDat.length];
+		frame[0] = (byte)(pDat.length >> 8);
+		frame[1] = (byte)(pDat.length & 255);
+		System.arraycopy(pDat, 0, frame, 2, pDat.length);
+		return frame;
+	}
+
+	/**
+	 * Split bytes into single byte chunks.
+	 */
+	protected static byte[][] bytes(byte[] pDat) {
+		byte[][] chunks = new byte[pDat.length][];
+		for (int i=0; i<pDat.length; ++i) {
+			chunks[i] = new byte[] {pDat[i]};
+		}
+		return chunks;
+	}
+
+	/**
+	 * Concatenate arrays.
+	 */
+	protected static byte[] concat(byte[] a, byte[] b) {
+		byte[] c = new byte[a.length + b.length];
+		System.arraycopy(a, 0, c, 0, a.length);
+		System.arraycopy(b, 0, c, a.length, b.length);
+		return c;
+	}
+
+	@Test
+	public void test_single_byte_writes() throws Exception {
+		Server server = new Server(bytes(concat(frame(MSG1), frame(MSG2))), 5, true);
+		DNSStreamFramer framer = new DNSStreamFramer(SocketChannel.open(server.getAddress()));
+		try {
+			Assert.assertArrayEquals(MSG1, framer.readMessage(5000));
+			Assert.assertArrayEquals(MSG2, framer.readMessage(5000));
+			Assert.assertEquals(0, framer.in.position());
+		}
+		finally {
+			framer.release();
+			server.shutdown();
+		}
+		Assert.assertNull(server.failure);
+	}
+
+	@Test
+	public void test_pipelined_remainder() throws Exception {
+		byte[] pDat = concat(frame(MSG1), frame(MSG2));
+		Server server = new Server(new byte[][] {pDat}, 0, true);
+		DNSStreamFramer framer = new DNSStreamFramer(SocketChannel.open(server.getAddress()));
+		try {
+			server.join(5000);
+			Assert.assertArrayEquals(MSG1, framer.readMessage(5000));
+			// The second message arrived with the first and is kept in the buffer.
+			Assert.assertEquals(2 + MSG2.length, framer.in.position());
+			for (int i=0; i<2 + MSG2.length; ++i) {
+				Assert.assertEquals(pDat[2 + MSG1.length + i], framer.in.get(i));
+			}
+			Assert.assertArrayEquals(MSG2, framer.readMessage(5000));
+			Assert.assertEquals(0, framer.in.position());
+			try {
+				framer.readMessage(5000);
+				Assert.fail("Exception expected.");
+			}
+			catch (EOFException e) {
+			}
+		}
+		finally {
+			framer.release();
+			server.shutdown();
+		}
+	}
+
+	@Test
+	public void test_eof_in_message() throws Exception {
+		byte[] pDat = frame(MSG1);
+		byte[] partial = new byte[pDat.length - 1];
+		System.arraycopy(pDat, 0, partial, 0, partial.length);
+		Server server = new Server(bytes(partial), 5, true);
+		DNSStreamFramer framer = new DNSStreamFramer(SocketChannel.open(server.getAddress()));
+		try {
+			framer.readMessage(5000);
+			Assert.fail("Exception expected.");
+		}
+		catch (EOFException e) {
+		}
+		finally {
+			framer.release();
+			server.shutdown();
+		}
+	}
+
+	@Test
+	public void test_eof_in_length() throws Exception {
+		Server server = new Server(new byte[][] {{0}}, 0, true);
+		DNSStreamFramer framer = new DNSStreamFramer(SocketChannel.open(server.getAddress()));
+		try {
+			framer.readMessage(5000);
+			Assert.fail("Exception expected.");
+		}
+		catch (EOFException e) {
+		}
+		finally {
+			framer.release();
+			server.shutdown();
+		}
+	}
+
+	@Test
+	public void test_timeout() throws Exception {
+		byte[] pDat = frame(MSG1);
+		byte[] partial = new byte[3];
+		System.arraycopy(pDat, 0, partial, 0, partial.length);
+		Server server = new Server(bytes(partial), 0, false);
+		DNSStreamFramer framer = new DNSStreamFramer(SocketChannel.open(server.getAddress()));
+		long start;
+		try {
+			server.done.await();
+			start = System.nanoTime();
+			try {
+				framer.readMessage(200);
+				Assert.fail("Exception expected.");
+			}
+			catch (SocketTimeoutException e) {
+			}
+			Assert.assertTrue(System.nanoTime() - start >= 150 * 1000000L);
+			// The partial message stays buffered.
+			Assert.assertEquals(3, framer.in.position());
+		}
+		finally {
+			framer.release();
+			server.shutdown();
+		}
+	}
+
+}